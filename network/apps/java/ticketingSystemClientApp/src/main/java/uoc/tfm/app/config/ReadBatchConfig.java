@@ -0,0 +1,29 @@
+package uoc.tfm.app.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReadBatchConfig {
+
+    // Runs the ReadTickets transactions of a large batch in parallel, shut down
+    // with the application context
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService readBatchExecutor(
+            @Value("${fabric.read.batch.parallelism:4}") int readBatchParallelism) {
+        if (readBatchParallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "fabric.read.batch.parallelism must be a positive number: " + readBatchParallelism);
+        }
+        return Executors.newFixedThreadPool(readBatchParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "read-tickets-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
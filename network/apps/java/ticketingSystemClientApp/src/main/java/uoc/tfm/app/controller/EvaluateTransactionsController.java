@@ -1,14 +1,28 @@
 package uoc.tfm.app.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
 import org.hyperledger.fabric.client.GatewayException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -20,7 +34,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import uoc.tfm.app.model.dto.TicketBatchDto;
 import uoc.tfm.app.model.dto.TicketDto;
+import uoc.tfm.app.model.dto.TicketPageDto;
 import uoc.tfm.app.model.dto.TicketStatus;
 import uoc.tfm.app.service.FabricGatewayService;
 import uoc.tfm.app.util.JsonUtils;
@@ -32,19 +48,43 @@ import uoc.tfm.app.util.JsonUtils;
 @Tag(name = "Evaluate Transactions")
 public class EvaluateTransactionsController {
 
+    // Description of the error of the contract for a transaction to resume the
+    // history after that is not in the history of the ticket
+    private static final String HISTORY_BOOKMARK_NOT_FOUND = "Transaction to resume after not found";
+
+    private final ObjectMapper historyMapper = new ObjectMapper();
+
     private final FabricGatewayService fabricGatewayService;
 
-    public EvaluateTransactionsController(FabricGatewayService fabricGatewayService) {
+    // Maximum number of IDs read by each ReadTickets transaction, at most the
+    // maximum number of operations of a bulk transaction of the chaincode
+    private final int readBatchSize;
+
+    // Runs the ReadTickets transactions of a large batch in parallel, managed by
+    // ReadBatchConfig
+    private final ExecutorService readBatchExecutor;
+
+    public EvaluateTransactionsController(FabricGatewayService fabricGatewayService,
+            @Value("${fabric.read.batch.size:50}") int readBatchSize,
+            @Qualifier("readBatchExecutor") ExecutorService readBatchExecutor) {
+        // A batch size of 0 or less would never advance through the IDs
+        if (readBatchSize <= 0) {
+            throw new IllegalArgumentException("fabric.read.batch.size must be a positive number: " + readBatchSize);
+        }
         this.fabricGatewayService = fabricGatewayService;
+        this.readBatchSize = readBatchSize;
+        this.readBatchExecutor = readBatchExecutor;
     }
 
     /**
      * Retrieve a ticket from the ledger by its ID
      *
-     * @param ticketId the ID of the ticket
+     * @param ticketId        the ID of the ticket
+     * @param includeArchived whether to look for the ticket in the archive if it
+     *                        is not an active ticket
      * @return the retrieved ticket
      */
-    @Operation(summary = "Retrieve a ticket by its ID", description = "Retrieve a ticket from the ledger by its ID")
+    @Operation(summary = "Retrieve a ticket by its ID", description = "Retrieve a ticket from the ledger by its ID, optionally including the archived tickets")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket", content = @Content(schema = @Schema(implementation = TicketDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
@@ -54,7 +94,8 @@ public class EvaluateTransactionsController {
     })
     @GetMapping(value = "ticket")
     public ResponseEntity<?> getTicketById(
-            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId) {
+            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId,
+            @Parameter(name = "includeArchived", description = "Look for the ticket in the archive if it is not an active ticket") @RequestParam(defaultValue = "false") boolean includeArchived) {
 
         String methodName = "ReadTicket";
 
@@ -75,7 +116,21 @@ public class EvaluateTransactionsController {
         }
 
         try {
-            var result = fabricGatewayService.getContract().evaluateTransaction(methodName, ticketId);
+            byte[] result;
+            try {
+                result = fabricGatewayService.getContract().evaluateTransaction(methodName, ticketId);
+            } catch (GatewayException e) {
+                if (!includeArchived) {
+                    throw e;
+                }
+                // The archive is only read once the ticket is not found among the active ones
+                log.info("*** Ticket {} not found among the active tickets, trying the archive", ticketId);
+                try {
+                    result = fabricGatewayService.getContract().evaluateTransaction("ReadArchivedTicket", ticketId);
+                } catch (GatewayException archiveException) {
+                    throw e;
+                }
+            }
             String prettyResult = JsonUtils.prettyJson(result);
             log.info("*** Result: " + prettyResult);
 
@@ -93,21 +148,98 @@ public class EvaluateTransactionsController {
         }
     }
 
+    /**
+     * Retrieve several tickets from the ledger by their IDs. Batches larger
+     * than the configured size are split into sub-batches evaluated in
+     * parallel, each of them with a single ReadTickets transaction
+     *
+     * @param ticketIds the IDs of the tickets
+     * @return the tickets found, in the order of their IDs, and the IDs not
+     *         found
+     */
+    @Operation(summary = "Retrieve several tickets by their IDs", description = "Retrieve several tickets from the ledger by their IDs with as few transactions as possible. The IDs that do not belong to an active ticket are returned as missing")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets", content = @Content(schema = @Schema(implementation = TicketBatchDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @PostMapping(value = "tickets/batch")
+    public ResponseEntity<?> getTicketsByIds(@RequestBody List<String> ticketIds) {
+
+        String methodName = "ReadTickets";
+
+        log.info("\n--> Evaluate Transaction: {}] [returns the tickets for {} ticket IDs]", methodName,
+                ticketIds != null ? ticketIds.size() : 0);
+
+        // Validate input parameters
+        if (ticketIds == null || ticketIds.isEmpty()) {
+            String msg = "Ticket IDs cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+        if (ticketIds.stream().anyMatch(ticketId -> ticketId == null || ticketId.isEmpty())) {
+            String msg = "Ticket ID cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            // Split the distinct IDs into sub-batches and evaluate them in parallel
+            List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ticketIds));
+            List<CompletableFuture<TicketBatchDto>> subBatches = new ArrayList<>();
+            for (int from = 0; from < distinctIds.size(); from += readBatchSize) {
+                List<String> subBatch = distinctIds.subList(from, Math.min(from + readBatchSize, distinctIds.size()));
+                subBatches.add(CompletableFuture.supplyAsync(() -> readTickets(methodName, subBatch),
+                        readBatchExecutor));
+            }
+
+            // Join the sub-batches in order
+            TicketBatchDto batch = new TicketBatchDto();
+            for (CompletableFuture<TicketBatchDto> subBatch : subBatches) {
+                batch.addAll(subBatch.join());
+            }
+            log.info("*** Result: {} tickets found, {} missing in {} transactions", batch.getRecords().size(),
+                    batch.getMissing().size(), subBatches.size());
+
+            return ResponseEntity.ok(batch);
+
+        } catch (CompletionException e) {
+            return handleException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e, methodName);
+        }
+    }
+
     /**
      * Retrieve all tickets from the ledger without applying any filtering
      *
-     * @return the list of all tickets
+     * @param pageSize optional maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return the list of all tickets, or one page of tickets if a page size is
+     *         given
      */
     @Operation(summary = "Retrieve all tickets", description = "Retrieve all tickets from the ledger without applying any filtering")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets (a page of tickets if pageSize is given)", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
             @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
     })
     @GetMapping(value = "all-tickets")
-    public ResponseEntity<?> getAllTickets() {
+    public ResponseEntity<?> getAllTickets(
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page, omit it to retrieve all the tickets") @RequestParam(required = false) Integer pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        // Retrieve only one page of tickets if a page size is requested
+        if (pageSize != null) {
+            return getTicketsPage("GetAllTicketsWithPagination", pageSize, bookmark);
+        }
 
         String methodName = "GetAllTickets";
 
@@ -137,14 +269,221 @@ public class EvaluateTransactionsController {
         }
     }
 
+    /**
+     * Retrieve one page of the archived tickets
+     *
+     * @param pageSize maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return one page of archived tickets
+     */
+    @Operation(summary = "Retrieve the archived tickets", description = "Retrieve one page of the CLOSED tickets moved to the archive")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of archived tickets", content = @Content(schema = @Schema(implementation = TicketPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "archived-tickets")
+    public ResponseEntity<?> getArchivedTickets(
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        return getTicketsPage("GetArchivedTicketsWithPagination", pageSize, bookmark);
+    }
+
+    /**
+     * Search the tickets by the words of their title or description and by
+     * part of their assigned user
+     *
+     * @param query    words to search for and assigned:text terms
+     * @param pageSize maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return one page of the matching tickets
+     */
+    @Operation(summary = "Search tickets", description = "Retrieve one page of the tickets whose title or description contain every word of the query, and whose assigned user contains every assigned:text term (e.g. login assigned:\"Pepe Perez\")")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of matching tickets", content = @Content(schema = @Schema(implementation = TicketPageDto.class))),
+            @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "search-tickets")
+    public ResponseEntity<?> searchTickets(
+            @Parameter(name = "query", description = "Words to search for, and assigned:text terms") @RequestParam String query,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        if (query == null || query.isBlank()) {
+            String msg = "Search query cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        return getTicketsPage("SearchTickets", pageSize, bookmark, query);
+    }
+
+    /**
+     * Retrieve one page of the tickets matching criteria on the project, the
+     * status and the assigned user
+     *
+     * @param criteriaJson JSON object with a value or an array of values for
+     *                     some of projectIdNum, ticketStatus and assigned
+     * @param pageSize     maximum number of tickets per page
+     * @param offset       number of matching tickets to skip
+     * @return one page of the matching tickets, whose bookmark is the offset of
+     *         the next page
+     */
+    @Operation(summary = "Filter tickets", description = "Retrieve one page of the tickets matching every field of the criteria and any of the values given for a field, e.g. {\"projectIdNum\":[1,2],\"ticketStatus\":\"OPEN\",\"assigned\":\"Ana\"}. The bookmark of the page is the offset of the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of matching tickets", content = @Content(schema = @Schema(implementation = TicketPageDto.class))),
+            @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @PostMapping(value = "tickets/filter")
+    public ResponseEntity<?> filterTickets(
+            @RequestBody String criteriaJson,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "offset", description = "Number of matching tickets to skip, as returned in the bookmark") @RequestParam(defaultValue = "0") int offset) {
+
+        if (offset < 0) {
+            String msg = "Offset cannot be negative.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // The offset takes the place of the bookmark of the transaction
+        return getTicketsPage("FilterTickets", pageSize, String.valueOf(offset), criteriaJson);
+    }
+
+    /**
+     * Retrieve one page of the tickets modified since a date, oldest change
+     * first, to keep a local copy in sync
+     *
+     * @param since    optional earliest modification date
+     * @param pageSize maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return one page of the modified tickets
+     */
+    @Operation(summary = "Retrieve the tickets modified since a date", description = "Retrieve one page of the tickets modified at or after a date, oldest change first, to synchronize only the tickets that changed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of modified tickets", content = @Content(schema = @Schema(implementation = TicketPageDto.class))),
+            @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "tickets-modified-since")
+    public ResponseEntity<?> getTicketsModifiedSince(
+            @Parameter(name = "since", description = "Earliest modification date (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), omit it for all the tickets") @RequestParam(required = false) String since,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        return getTicketsPage("GetTicketsModifiedSince", pageSize, bookmark, since != null ? since : "");
+    }
+
+    /**
+     * Retrieve one page of the tickets created within a time window, oldest
+     * first
+     *
+     * @param from     optional earliest creation date
+     * @param to       optional creation date the window ends before
+     * @param pageSize maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return one page of the tickets created within the window
+     */
+    @Operation(summary = "Retrieve the tickets created within a time window", description = "Retrieve one page of the tickets created at or after 'from' and before 'to', oldest first (e.g. only 'to' for the tickets older than a date)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved a page of tickets", content = @Content(schema = @Schema(implementation = TicketPageDto.class))),
+            @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "tickets-created-between")
+    public ResponseEntity<?> getTicketsCreatedBetween(
+            @Parameter(name = "from", description = "Earliest creation date (yyyy-MM-ddTHH:mm:ss, Europe/Madrid)") @RequestParam(required = false) String from,
+            @Parameter(name = "to", description = "Creation date the window ends before (yyyy-MM-ddTHH:mm:ss, Europe/Madrid)") @RequestParam(required = false) String to,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        return getTicketsPage("GetTicketsCreatedBetween", pageSize, bookmark, from != null ? from : "",
+                to != null ? to : "");
+    }
+
+    /**
+     * Retrieve the most urgent tickets of a project with a status, for triage
+     *
+     * @param projectId ID of the project
+     * @param status    state of the tickets
+     * @param k         maximum number of tickets
+     * @return the list of the most urgent tickets, highest priority and then
+     *         oldest first
+     */
+    @Operation(summary = "Retrieve the most urgent tickets", description = "Retrieve the k tickets of a project with a status that have the highest priority, the oldest first within a priority")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the most urgent tickets", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
+            @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "top-tickets")
+    public ResponseEntity<?> getTopTickets(
+            @Parameter(name = "projectId", description = "ID of the project to which the ticket belongs") @RequestParam int projectId,
+            @Parameter(name = "status", description = "State the ticket is in") @RequestParam(defaultValue = "OPEN") TicketStatus status,
+            @Parameter(name = "k", description = "Maximum number of tickets") @RequestParam(defaultValue = "20") int k) {
+
+        String methodName = "GetTopTickets";
+
+        log.info("\n--> Evaluate Transaction: {} [returns the {} most urgent {} tickets of project ID {}]",
+                methodName, k, status.name(), projectId);
+
+        // Validate input parameters
+        if (k <= 0) {
+            String msg = "Number of tickets must be a positive number.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName,
+                    String.valueOf(projectId), status.name(), String.valueOf(k));
+            String prettyResult = JsonUtils.prettyJson(result);
+            List<TicketDto> list = TicketDto.fromJsonList(prettyResult);
+            log.info("*** Result : " + prettyResult);
+
+            // Check if the response or list is empty
+            if (prettyResult.isEmpty() || prettyResult.equals("[ ]") || list.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+
+            return ResponseEntity.ok(list);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
     /**
      * Retrieve all tickets from the ledger filtered by project ID
      *
-     * @return the list of tickets filtered by project ID
+     * @param pageSize optional maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return the list of tickets filtered by project ID, or one page of them if a
+     *         page size is given
      */
     @Operation(summary = "Retrieve all tickets by project", description = "Retrieve all tickets from the ledger filtered by project ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets (a page of tickets if pageSize is given)", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
             @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
@@ -152,7 +491,15 @@ public class EvaluateTransactionsController {
     })
     @GetMapping(value = "tickets-by-project")
     public ResponseEntity<?> getAllTicketsByProject(
-            @Parameter(name = "projectId", description = "ID of the project to which the ticket belongs") @RequestParam int projectId) {
+            @Parameter(name = "projectId", description = "ID of the project to which the ticket belongs") @RequestParam int projectId,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page, omit it to retrieve all the tickets") @RequestParam(required = false) Integer pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        // Retrieve only one page of tickets if a page size is requested
+        if (pageSize != null) {
+            return getTicketsPage("GetAllTicketsByProjectWithPagination", pageSize, bookmark,
+                    String.valueOf(projectId));
+        }
 
         String methodName = "GetAllTicketsByProject";
 
@@ -186,11 +533,14 @@ public class EvaluateTransactionsController {
     /**
      * Retrieve all tickets from the ledger filtered by status
      *
-     * @return the list of tickets filtered by status
+     * @param pageSize optional maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return the list of tickets filtered by status, or one page of them if a
+     *         page size is given
      */
     @Operation(summary = "Retrieve all tickets by status", description = "Retrieve all tickets from the ledger filtered by status")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets (a page of tickets if pageSize is given)", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
             @ApiResponse(responseCode = "204", description = "No tickets found", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
@@ -198,7 +548,14 @@ public class EvaluateTransactionsController {
     })
     @GetMapping(value = "tickets-by-status")
     public ResponseEntity<?> getAllTicketsByStatus(
-            @Parameter(name = "status", description = "State the ticket is in") @RequestParam TicketStatus status) {
+            @Parameter(name = "status", description = "State the ticket is in") @RequestParam TicketStatus status,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page, omit it to retrieve all the tickets") @RequestParam(required = false) Integer pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        // Retrieve only one page of tickets if a page size is requested
+        if (pageSize != null) {
+            return getTicketsPage("GetAllTicketsByStatusWithPagination", pageSize, bookmark, status.name());
+        }
 
         String methodName = "GetAllTicketsByStatus";
 
@@ -232,11 +589,14 @@ public class EvaluateTransactionsController {
     /**
      * Retrieve all tickets from the ledger filtered by the assigned user
      *
-     * @return the list of tickets filtered by the assigned user
+     * @param pageSize optional maximum number of tickets per page
+     * @param bookmark optional bookmark returned by the previous page
+     * @return the list of tickets filtered by the assigned user, or one page of them if a
+     *         page size is given
      */
     @Operation(summary = "Retrieve all tickets by assigned user", description = "Retrieve all tickets from the ledger filtered by the assigned user")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets assigned to the specified user", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved tickets assigned to the specified user (a page of tickets if pageSize is given)", content = @Content(array = @ArraySchema(schema = @Schema(implementation = TicketDto.class)))),
             @ApiResponse(responseCode = "204", description = "No tickets found assigned to the specified user", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "400", description = "Empty or invalid assigned user", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
@@ -244,7 +604,19 @@ public class EvaluateTransactionsController {
     })
     @GetMapping(value = "tickets-by-assigned")
     public ResponseEntity<?> getAllTicketsByAssigned(
-            @Parameter(name = "assigned", description = "Person assigned to the ticket to resolve it") @RequestParam String assigned) {
+            @Parameter(name = "assigned", description = "Person assigned to the ticket to resolve it") @RequestParam String assigned,
+            @Parameter(name = "pageSize", description = "Maximum number of tickets per page, omit it to retrieve all the tickets") @RequestParam(required = false) Integer pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page, omit it for the first page") @RequestParam(required = false) String bookmark) {
+
+        // Retrieve only one page of tickets if a page size is requested
+        if (pageSize != null) {
+            if (assigned == null || assigned.isEmpty()) {
+                String msg = "Assigned user is empty or invalid.";
+                log.warn("*** Result: " + msg);
+                return ResponseEntity.badRequest().body(msg);
+            }
+            return getTicketsPage("GetAllTicketsByAssignedWithPagination", pageSize, bookmark, assigned);
+        }
 
         String methodName = "GetAllTicketsByAssigned";
 
@@ -283,21 +655,134 @@ public class EvaluateTransactionsController {
     }
 
     /**
-     * Retrieve the transaction history for a specific ticket from the ledger
+     * Retrieve one page of the comments of a specific ticket from the ledger
+     *
+     * @param ticketId the ID of the ticket
+     * @param pageSize the maximum number of comments per page
+     * @param bookmark the bookmark returned by the previous page
+     * @return the page of comments with the bookmark of the next page
+     */
+    @Operation(summary = "Retrieve the comments of a specific ticket", description = "Retrieve one page of the comments of a specific ticket from the ledger, in the order they were added")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket comments", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "ticket-comments")
+    public ResponseEntity<?> getTicketComments(
+            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId,
+            @Parameter(name = "pageSize", description = "Maximum number of comments per page") @RequestParam(defaultValue = "20") int pageSize,
+            @Parameter(name = "bookmark", description = "Bookmark returned by the previous page") @RequestParam(required = false) String bookmark) {
+
+        String methodName = "GetTicketComments";
+
+        log.info("\n--> Evaluate Transaction: {}] [returns one page of the comments of ticket ID {}]",
+                methodName, ticketId);
+
+        // Validate input parameters
+        if (ticketId == null || ticketId.isEmpty()) {
+            String msg = "Ticket ID cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+        if (pageSize <= 0) {
+            String msg = "Page size must be a positive number.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(
+                    methodName,
+                    ticketId,
+                    String.valueOf(pageSize),
+                    bookmark != null ? bookmark : "");
+            String prettyResult = JsonUtils.prettyJson(result);
+            log.info("*** Result : " + prettyResult);
+
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Retrieve the timeline of a specific ticket rebuilt from its change log
+     *
+     * @param ticketId the ID of the ticket
+     * @return the changes of the ticket, oldest first
+     */
+    @Operation(summary = "Retrieve the change log of a specific ticket", description = "Retrieve the timeline of a specific ticket rebuilt from its field diffs, oldest first. Only the changes made while the change log was enabled in the chaincode are returned")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket change log", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "ticket-change-log")
+    public ResponseEntity<?> getTicketChangeLog(
+            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId) {
+
+        String methodName = "GetTicketChangeLog";
+
+        log.info("\n--> Evaluate Transaction: {}] [returns the change log of ticket ID {}]",
+                methodName, ticketId);
+
+        // Validate input parameters
+        if (ticketId == null || ticketId.isEmpty()) {
+            String msg = "Ticket ID cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName, ticketId);
+            String prettyResult = JsonUtils.prettyJson(result);
+            log.info("*** Result : " + prettyResult);
+
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Retrieve the transaction history for a specific ticket from the ledger,
+     * optionally limited and bounded in time
      *
      * @return the transaction history for the specified ticket
      */
-    @Operation(summary = "Retrieve the transaction history for a specific ticket", description = "Retrieve the transaction history for a specific ticket from the ledger")
+    @Operation(summary = "Retrieve the transaction history for a specific ticket", description = "Retrieve the transaction history for a specific ticket from the ledger, newest first. Use the returned bookmark as afterTxId to retrieve the next records")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket history", content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "204", description = "No history found for the ticket", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "404", description = "Transaction to resume after not found", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
     })
     @GetMapping(value = "ticket-history")
     public ResponseEntity<?> getTicketHistory(
-            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId) {
+            @Parameter(name = "ticketId", description = "ID of the ticket") @RequestParam String ticketId,
+            @Parameter(name = "limit", description = "Maximum number of records, omit it to retrieve all of them") @RequestParam(defaultValue = "0") int limit,
+            @Parameter(name = "afterTxId", description = "Transaction ID to resume after, as returned in the bookmark") @RequestParam(required = false) String afterTxId,
+            @Parameter(name = "from", description = "Earliest timestamp (yyyy-MM-ddTHH:mm:ss, Europe/Madrid)") @RequestParam(required = false) String from,
+            @Parameter(name = "to", description = "Latest timestamp (yyyy-MM-ddTHH:mm:ss, Europe/Madrid)") @RequestParam(required = false) String to) {
 
         String methodName = "GetTicketHistory";
 
@@ -310,6 +795,11 @@ public class EvaluateTransactionsController {
             log.warn("*** Result: " + msg);
             return ResponseEntity.badRequest().body(msg);
         }
+        if (limit < 0) {
+            String msg = "Limit cannot be negative.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
 
         // Check if the service is no operative
         ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
@@ -318,11 +808,30 @@ public class EvaluateTransactionsController {
         }
 
         try {
-            var result = fabricGatewayService.getContract().evaluateTransaction(methodName, ticketId);
+            byte[] result;
+            try {
+                result = fabricGatewayService.getContract().evaluateTransaction(methodName, ticketId,
+                        String.valueOf(limit),
+                        afterTxId != null ? afterTxId : "",
+                        from != null ? from : "",
+                        to != null ? to : "");
+            } catch (GatewayException e) {
+                // The contract rejects a transaction to resume after that is not in the history
+                if (e.getMessage() != null && e.getMessage().contains(HISTORY_BOOKMARK_NOT_FOUND)) {
+                    log.warn("*** Result: Transaction {} not found in the history of ticket {}", afterTxId,
+                            ticketId);
+                    return ResponseEntity.status(404).body("Transaction to resume after not found.");
+                }
+                throw e;
+            }
             String prettyResult = JsonUtils.prettyJson(result);
 
-            // Check if the response or list is empty
-            if (prettyResult.isEmpty() || prettyResult.equals("[ ]") || prettyResult.equals("{ }")) {
+            // Check if the response is empty or the page has no records
+            if (prettyResult.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+            JsonNode records = historyMapper.readTree(prettyResult).path("records");
+            if (!records.isArray() || records.isEmpty()) {
                 return ResponseEntity.noContent().build();
             }
 
@@ -333,6 +842,151 @@ public class EvaluateTransactionsController {
         }
     }
 
+    /**
+     * Retrieve the number of tickets and story points by status, for one
+     * project or for all of them
+     *
+     * @return the ticket stats
+     */
+    @Operation(summary = "Retrieve the ticket stats", description = "Retrieve the number of tickets and story points by status, for one project or for all projects")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved ticket stats", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "ticket-stats")
+    public ResponseEntity<?> getTicketStats(
+            @Parameter(name = "projectId", description = "Numeric ID of the project, all projects if empty") @RequestParam(required = false) Integer projectId) {
+
+        String methodName = "GetTicketStats";
+
+        log.info("\n--> Evaluate Transaction: {}] [returns the ticket stats of project {}]",
+                methodName, projectId != null ? projectId : "ALL");
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName,
+                    projectId != null ? String.valueOf(projectId) : "");
+            String prettyResult = JsonUtils.prettyJson(result);
+            log.info("*** Result : " + prettyResult);
+
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Retrieve the metrics of the chaincode of the peer that evaluates the
+     * transaction
+     *
+     * @return the contract metrics by transaction function
+     */
+    @Operation(summary = "Retrieve the contract metrics", description = "Retrieve the duration, shim calls and bytes read and written of the transactions served by the chaincode of the evaluating peer, by function, since it started")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved contract metrics", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    @GetMapping(value = "contract-metrics")
+    public ResponseEntity<?> getContractMetrics() {
+
+        String methodName = "GetContractMetrics";
+
+        log.info("\n--> Evaluate Transaction: {}] [returns the metrics of the chaincode]", methodName);
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName);
+            String prettyResult = JsonUtils.prettyJson(result);
+            log.info("*** Result : " + prettyResult);
+
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Retrieve one page of tickets from the ledger using a paginated transaction
+     *
+     * @param methodName the paginated transaction to evaluate
+     * @param pageSize   the maximum number of tickets per page
+     * @param bookmark   the bookmark returned by the previous page
+     * @param args       the filter arguments of the transaction
+     * @return the page of tickets with the bookmark of the next page
+     */
+    private ResponseEntity<?> getTicketsPage(String methodName, int pageSize, String bookmark, String... args) {
+
+        log.info("\n--> Evaluate Transaction: {}] [returns one page of {} tickets on the ledger]",
+                methodName, pageSize);
+
+        // Validate input parameters
+        if (pageSize <= 0) {
+            String msg = "Page size must be a positive number.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is no operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            // Filter arguments first, then page size and bookmark
+            String[] txArgs = Arrays.copyOf(args, args.length + 2);
+            txArgs[args.length] = String.valueOf(pageSize);
+            txArgs[args.length + 1] = bookmark != null ? bookmark : "";
+
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName, txArgs);
+            String prettyResult = JsonUtils.prettyJson(result);
+            TicketPageDto page = TicketPageDto.fromJson(prettyResult);
+            log.info("*** Result : " + prettyResult);
+
+            // Check if the page is empty and there are no more pages
+            if (page.getRecords().isEmpty() && (page.getBookmark() == null || page.getBookmark().isEmpty())) {
+                return ResponseEntity.noContent().build();
+            }
+
+            return ResponseEntity.ok(page);
+
+        } catch (Exception e) {
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Evaluate one ReadTickets transaction for a sub-batch of ticket IDs
+     *
+     * @param methodName the name of the transaction
+     * @param ticketIds  the IDs of the sub-batch
+     * @return the tickets found and the IDs not found
+     */
+    private TicketBatchDto readTickets(String methodName, List<String> ticketIds) {
+        try {
+            var result = fabricGatewayService.getContract().evaluateTransaction(methodName,
+                    TicketBatchDto.idsToJson(ticketIds));
+            return TicketBatchDto.fromJson(new String(result, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
     private ResponseEntity<?> handleException(Exception e, String methodName) {
         if (e instanceof GatewayException) {
             GatewayException ge = (GatewayException) e;
@@ -1,5 +1,7 @@
 package uoc.tfm.app.controller;
 
+import java.util.List;
+
 import org.hyperledger.fabric.client.CommitException;
 import org.hyperledger.fabric.client.CommitStatusException;
 import org.hyperledger.fabric.client.EndorseException;
@@ -8,6 +10,7 @@ import org.hyperledger.fabric.client.TransactionException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -22,8 +25,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import uoc.tfm.app.model.dto.NewTicketDto;
 import uoc.tfm.app.model.dto.TicketDto;
 import uoc.tfm.app.model.dto.TicketPriority;
+import uoc.tfm.app.model.dto.TicketSummaryDto;
+import uoc.tfm.app.model.dto.TicketTransitionDto;
 import uoc.tfm.app.service.FabricGatewayService;
 import uoc.tfm.app.util.JsonUtils;
 
@@ -34,6 +40,11 @@ import uoc.tfm.app.util.JsonUtils;
 @Tag(name = "Submit Transactions")
 public class SubmitTransactionsController {
 
+    // Transient key and value that select the slim response of the
+    // transactions that change a ticket
+    private static final String RESPONSE_MODE_KEY = "responseMode";
+    private static final String SLIM_RESPONSE_MODE = "slim";
+
     private final FabricGatewayService fabricGatewayService;
 
     public SubmitTransactionsController(FabricGatewayService fabricGatewayService) {
@@ -49,12 +60,13 @@ public class SubmitTransactionsController {
      * @param creator         the creator of the ticket
      * @param priority        the priority of the ticket
      * @param initStoryPoints the story points associated with the ticket
-     * @return the created ticket
+     * @param fullTicket      whether to return the whole ticket
+     * @return the summary of the created ticket, or the whole ticket
      */
     @PostMapping("/open-new-ticket")
     @Operation(summary = "Create and open a new ticket", description = "Creates and opens a new ticket on the ledger")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "201", description = "Successfully created ticket", content = @Content(schema = @Schema(implementation = TicketDto.class))),
+            @ApiResponse(responseCode = "201", description = "Successfully created ticket", content = @Content(schema = @Schema(oneOf = { TicketSummaryDto.class, TicketDto.class }))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
@@ -65,7 +77,8 @@ public class SubmitTransactionsController {
             @Parameter(name = "projectIdNum", description = "ID of the project associated with the ticket") @RequestParam int projectIdNum,
             @Parameter(name = "creator", description = "Creator of the ticket") @RequestParam String creator,
             @Parameter(name = "priority", description = "Priority of the ticket") @RequestParam TicketPriority priority,
-            @Parameter(name = "initStoryPoints", description = "Initial story points associated with the ticket") @RequestParam int initStoryPoints) {
+            @Parameter(name = "initStoryPoints", description = "Initial story points associated with the ticket") @RequestParam int initStoryPoints,
+            @Parameter(name = "fullTicket", description = "Whether to return the whole ticket instead of its summary") @RequestParam(defaultValue = "false") boolean fullTicket) {
 
         String methodName = "OpenNewTicket";
 
@@ -96,8 +109,9 @@ public class SubmitTransactionsController {
 
         try {
             // Submit the transaction to open a new ticket
-            var result = fabricGatewayService.getContract().submitTransaction(
+            Object ticket = submitTicketTransaction(
                     methodName,
+                    fullTicket,
                     title,
                     description,
                     String.valueOf(projectIdNum),
@@ -105,11 +119,6 @@ public class SubmitTransactionsController {
                     priority.name(),
                     String.valueOf(initStoryPoints));
 
-            // Convert the result to a pretty JSON format
-            String prettyResult = JsonUtils.prettyJson(result);
-            // Deserialize the JSON string to a TicketDto object
-            TicketDto ticket = TicketDto.fromJson(prettyResult);
-
             log.info("*** Transaction committed successfully: " + ticket);
             // Return the created ticket with status 201 Created
             return ResponseEntity.status(201).body(ticket);
@@ -124,15 +133,16 @@ public class SubmitTransactionsController {
      * Updates the ticket status to indicate it is now in progress
      * and may assign a new person and/or add a comment.
      *
-     * @param ticketId the ID of the ticket being updated
-     * @param assigned the new assigned person
-     * @param comment  an optional comment
-     * @return the updated ticket
+     * @param ticketId   the ID of the ticket being updated
+     * @param assigned   the new assigned person
+     * @param comment    an optional comment
+     * @param fullTicket whether to return the whole ticket
+     * @return the summary of the updated ticket, or the whole ticket
      */
     @PostMapping("/update-ticket-to-in-progress")
     @Operation(summary = "Update ticket to In Progress", description = "Updates the ticket status to indicate it is now in progress and may assign a new person and/or add a comment")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully updated ticket", content = @Content(schema = @Schema(implementation = TicketDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully updated ticket", content = @Content(schema = @Schema(oneOf = { TicketSummaryDto.class, TicketDto.class }))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
@@ -140,7 +150,8 @@ public class SubmitTransactionsController {
     public ResponseEntity<?> updateTicketToInProgress(
             @Parameter(name = "ticketId", description = "ID of the ticket being updated") @RequestParam String ticketId,
             @Parameter(name = "assigned", description = "New assigned person") @RequestParam String assigned,
-            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment) {
+            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment,
+            @Parameter(name = "fullTicket", description = "Whether to return the whole ticket instead of its summary") @RequestParam(defaultValue = "false") boolean fullTicket) {
 
         String methodName = "UpdateTicketToInProgress";
 
@@ -169,17 +180,13 @@ public class SubmitTransactionsController {
 
         try {
             // Submit the transaction to update the ticket to in progress
-            var result = fabricGatewayService.getContract().submitTransaction(
+            Object ticket = submitTicketTransaction(
                     methodName,
+                    fullTicket,
                     ticketId,
                     assigned,
                     comment);
 
-            // Convert the result to a pretty JSON format
-            String prettyResult = JsonUtils.prettyJson(result);
-            // Deserialize the JSON string to a TicketDto object
-            TicketDto ticket = TicketDto.fromJson(prettyResult);
-
             log.info("*** Transaction committed successfully: " + ticket);
             // Return the updated ticket with status 200 OK
             return ResponseEntity.ok(ticket);
@@ -193,17 +200,16 @@ public class SubmitTransactionsController {
     /**
      * Adds a comment to a ticket that is in progress.
      * The ticket must be in the IN_PROGRESS state for the comment to be added.
-     * The method will update the last modified date of the ticket if the comment is
-     * not empty.
+     * The comment is stored on its own, so the ticket is not rewritten.
      *
      * @param ticketId the ID of the ticket being updated
      * @param comment  the comment to be added to the ticket
-     * @return the updated ticket
+     * @return the ticket ID and the timestamp of the comment
      */
     @PostMapping("/add-comment-to-ticket-in-progress")
-    @Operation(summary = "Add comment to ticket in progress", description = "Adds a comment to a ticket that is in progress. The ticket must be in the IN_PROGRESS state for the comment to be added. The method will update the last modified date of the ticket if the comment is not empty.")
+    @Operation(summary = "Add comment to ticket in progress", description = "Adds a comment to a ticket that is in progress. The ticket must be in the IN_PROGRESS state for the comment to be added. The comment is stored on its own, so the ticket is not rewritten.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully added comment to ticket", content = @Content(schema = @Schema(implementation = TicketDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully added comment to ticket", content = @Content(schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
@@ -243,12 +249,10 @@ public class SubmitTransactionsController {
 
             // Convert the result to a pretty JSON format
             String prettyResult = JsonUtils.prettyJson(result);
-            // Deserialize the JSON string to a TicketDto object
-            TicketDto ticket = TicketDto.fromJson(prettyResult);
 
-            log.info("*** Transaction committed successfully: " + ticket);
-            // Return the updated ticket with status 200 OK
-            return ResponseEntity.ok(ticket);
+            log.info("*** Transaction committed successfully: " + prettyResult);
+            // Return the timestamp of the comment with status 200 OK
+            return ResponseEntity.ok(prettyResult);
 
         } catch (Exception e) {
             // Handle exceptions
@@ -264,12 +268,13 @@ public class SubmitTransactionsController {
      * @param relatedProductVersion the related product version
      * @param realStoryPoints       the actual story points
      * @param comment               an optional comment
-     * @return the updated ticket
+     * @param fullTicket            whether to return the whole ticket
+     * @return the summary of the updated ticket, or the whole ticket
      */
     @PostMapping("/update-ticket-to-resolved")
     @Operation(summary = "Update ticket to Resolved", description = "Updates the ticket status to indicate it has been resolved, setting related product version and real story points")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully updated ticket to resolved", content = @Content(schema = @Schema(implementation = TicketDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully updated ticket to resolved", content = @Content(schema = @Schema(oneOf = { TicketSummaryDto.class, TicketDto.class }))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
@@ -278,7 +283,8 @@ public class SubmitTransactionsController {
             @Parameter(name = "ticketId", description = "ID of the ticket being updated") @RequestParam String ticketId,
             @Parameter(name = "relatedProductVersion", description = "The related product version") @RequestParam String relatedProductVersion,
             @Parameter(name = "realStoryPoints", description = "The actual story points") @RequestParam int realStoryPoints,
-            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment) {
+            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment,
+            @Parameter(name = "fullTicket", description = "Whether to return the whole ticket instead of its summary") @RequestParam(defaultValue = "false") boolean fullTicket) {
 
         String methodName = "UpdateTicketToResolved";
 
@@ -312,18 +318,14 @@ public class SubmitTransactionsController {
 
         try {
             // Submit the transaction to update the ticket to resolved
-            var result = fabricGatewayService.getContract().submitTransaction(
+            Object ticket = submitTicketTransaction(
                     methodName,
+                    fullTicket,
                     ticketId,
                     relatedProductVersion,
                     String.valueOf(realStoryPoints),
                     comment);
 
-            // Convert the result to a pretty JSON format
-            String prettyResult = JsonUtils.prettyJson(result);
-            // Deserialize the JSON string to a TicketDto object
-            TicketDto ticket = TicketDto.fromJson(prettyResult);
-
             log.info("*** Transaction committed successfully: " + ticket);
             // Return the updated ticket with status 200 OK
             return ResponseEntity.ok(ticket);
@@ -338,21 +340,23 @@ public class SubmitTransactionsController {
      * Updates the ticket status to indicate it has been closed,
      * adding an optional comment.
      *
-     * @param ticketId the ID of the ticket being updated
-     * @param comment  an optional comment
-     * @return the updated ticket
+     * @param ticketId   the ID of the ticket being updated
+     * @param comment    an optional comment
+     * @param fullTicket whether to return the whole ticket
+     * @return the summary of the updated ticket, or the whole ticket
      */
     @PostMapping("/update-ticket-to-closed")
     @Operation(summary = "Update ticket to Closed", description = "Updates the ticket status to indicate it has been closed, adding an optional comment")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully updated ticket to closed", content = @Content(schema = @Schema(implementation = TicketDto.class))),
+            @ApiResponse(responseCode = "200", description = "Successfully updated ticket to closed", content = @Content(schema = @Schema(oneOf = { TicketSummaryDto.class, TicketDto.class }))),
             @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
             @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
     })
     public ResponseEntity<?> updateTicketToClosed(
             @Parameter(name = "ticketId", description = "ID of the ticket being updated") @RequestParam String ticketId,
-            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment) {
+            @Parameter(name = "comment", description = "An optional comment") @RequestParam(required = false) String comment,
+            @Parameter(name = "fullTicket", description = "Whether to return the whole ticket instead of its summary") @RequestParam(defaultValue = "false") boolean fullTicket) {
 
         String methodName = "UpdateTicketToClosed";
 
@@ -376,16 +380,12 @@ public class SubmitTransactionsController {
 
         try {
             // Submit the transaction to update the ticket to closed
-            var result = fabricGatewayService.getContract().submitTransaction(
+            Object ticket = submitTicketTransaction(
                     methodName,
+                    fullTicket,
                     ticketId,
                     comment);
 
-            // Convert the result to a pretty JSON format
-            String prettyResult = JsonUtils.prettyJson(result);
-            // Deserialize the JSON string to a TicketDto object
-            TicketDto ticket = TicketDto.fromJson(prettyResult);
-
             log.info("*** Transaction committed successfully: " + ticket);
             // Return the updated ticket with status 200 OK
             return ResponseEntity.ok(ticket);
@@ -396,6 +396,116 @@ public class SubmitTransactionsController {
         }
     }
 
+    /**
+     * Creates and opens several new tickets on the ledger in one transaction.
+     * Either every ticket is opened or none is.
+     *
+     * @param tickets the tickets to open
+     * @return the ID and status of every ticket opened
+     */
+    @PostMapping("/bulk-open-new-tickets")
+    @Operation(summary = "Create and open several new tickets", description = "Creates and opens several new tickets on the ledger in one transaction. Either every ticket is opened or none is.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created tickets", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    public ResponseEntity<?> bulkOpenNewTickets(
+            @RequestBody List<NewTicketDto> tickets) {
+
+        String methodName = "OpenNewTickets";
+
+        log.info("\n--> Submit Transaction: {} [creating {} new tickets on the ledger]", methodName,
+                tickets != null ? tickets.size() : 0);
+
+        // Validate input parameters
+        if (tickets == null || tickets.isEmpty()) {
+            String msg = "Tickets cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is not operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            // Submit the transaction to open all the tickets
+            var result = fabricGatewayService.getContract().submitTransaction(
+                    methodName,
+                    NewTicketDto.toJson(tickets));
+
+            // Convert the result to a pretty JSON format
+            String prettyResult = JsonUtils.prettyJson(result);
+
+            log.info("*** Transaction committed successfully: " + prettyResult);
+            // Return the results of the tickets with status 201 Created
+            return ResponseEntity.status(201).body(prettyResult);
+
+        } catch (Exception e) {
+            // Handle exceptions
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Applies several status transitions to tickets on the ledger in one
+     * transaction. Either every transition is applied or none is.
+     *
+     * @param transitions the transitions to apply, in order
+     * @return the ID and status of the ticket of every transition
+     */
+    @PostMapping("/bulk-transition-tickets")
+    @Operation(summary = "Update the status of several tickets", description = "Applies several status transitions (IN_PROGRESS, RESOLVED or CLOSED) to tickets on the ledger in one transaction. Either every transition is applied or none is.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully updated tickets", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    public ResponseEntity<?> bulkTransitionTickets(
+            @RequestBody List<TicketTransitionDto> transitions) {
+
+        String methodName = "BulkTransition";
+
+        log.info("\n--> Submit Transaction: {} [updating the status of {} tickets on the ledger]", methodName,
+                transitions != null ? transitions.size() : 0);
+
+        // Validate input parameters
+        if (transitions == null || transitions.isEmpty()) {
+            String msg = "Transitions cannot be empty.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is not operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            // Submit the transaction to apply all the transitions
+            var result = fabricGatewayService.getContract().submitTransaction(
+                    methodName,
+                    TicketTransitionDto.toJson(transitions));
+
+            // Convert the result to a pretty JSON format
+            String prettyResult = JsonUtils.prettyJson(result);
+
+            log.info("*** Transaction committed successfully: " + prettyResult);
+            // Return the results of the transitions with status 200 OK
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            // Handle exceptions
+            return handleException(e, methodName);
+        }
+    }
+
     /**
      * Deletes a ticket from the ledger.
      *
@@ -450,6 +560,130 @@ public class SubmitTransactionsController {
         }
     }
 
+    /**
+     * Moves the CLOSED tickets last modified before a cutoff to the archive, in
+     * chunks of at most maxPerTx tickets.
+     *
+     * @param olderThan optional cutoff (yyyy-MM-ddTHH:mm:ss), all the CLOSED
+     *                  tickets if omitted
+     * @param maxPerTx  the maximum number of tickets to archive
+     * @return the number of tickets archived and whether more remain
+     */
+    @PostMapping("/archive-closed-tickets")
+    @Operation(summary = "Archive closed tickets", description = "Moves the CLOSED tickets last modified before a cutoff to the archive, at most maxPerTx tickets per call. Call it again while HasMore is true.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tickets successfully archived", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    public ResponseEntity<?> archiveClosedTickets(
+            @Parameter(name = "olderThan", description = "Cutoff (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), omit it to archive every CLOSED ticket") @RequestParam(required = false) String olderThan,
+            @Parameter(name = "maxPerTx", description = "Maximum number of tickets to archive") @RequestParam(defaultValue = "100") int maxPerTx) {
+
+        return submitChunkedTransaction("ArchiveClosedTickets", olderThan, maxPerTx);
+    }
+
+    /**
+     * Deletes the archived tickets last modified before a cutoff, in chunks of
+     * at most maxPerTx tickets.
+     *
+     * @param olderThan optional cutoff (yyyy-MM-ddTHH:mm:ss), all the archived
+     *                  tickets if omitted
+     * @param maxPerTx  the maximum number of tickets to purge
+     * @return the number of tickets purged and whether more remain
+     */
+    @DeleteMapping("/purge-archived-tickets")
+    @Operation(summary = "Purge archived tickets", description = "Deletes the archived tickets last modified before a cutoff, at most maxPerTx tickets per call. Call it again while HasMore is true.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tickets successfully purged", content = @Content(schema = @Schema(implementation = String.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema(implementation = Void.class))),
+            @ApiResponse(responseCode = "503", description = "Service unavailable", content = @Content(schema = @Schema(implementation = Void.class)))
+    })
+    public ResponseEntity<?> purgeArchivedTickets(
+            @Parameter(name = "olderThan", description = "Cutoff (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), omit it to purge every archived ticket") @RequestParam(required = false) String olderThan,
+            @Parameter(name = "maxPerTx", description = "Maximum number of tickets to purge") @RequestParam(defaultValue = "100") int maxPerTx) {
+
+        return submitChunkedTransaction("PurgeArchivedTickets", olderThan, maxPerTx);
+    }
+
+    /**
+     * Submits a transaction that processes tickets in bounded chunks.
+     *
+     * @param methodName the transaction to submit
+     * @param olderThan  optional cutoff of the tickets to process
+     * @param maxPerTx   the maximum number of tickets to process
+     * @return the number of tickets processed and whether more remain
+     */
+    private ResponseEntity<?> submitChunkedTransaction(String methodName, String olderThan, int maxPerTx) {
+
+        log.info("\n--> Submit Transaction: {} [processing up to {} tickets older than {}]",
+                methodName, maxPerTx, olderThan != null ? olderThan : "now");
+
+        // Validate input parameters
+        if (maxPerTx <= 0) {
+            String msg = "Maximum number of tickets per transaction must be a positive number.";
+            log.warn("*** Result: " + msg);
+            return ResponseEntity.badRequest().body(msg);
+        }
+
+        // Check if the service is not operative
+        ResponseEntity<?> serviceNonOperative = fabricGatewayService.checkServiceNonOperative();
+        if (serviceNonOperative != null) {
+            return serviceNonOperative;
+        }
+
+        try {
+            var result = fabricGatewayService.getContract().submitTransaction(
+                    methodName,
+                    olderThan != null ? olderThan : "",
+                    String.valueOf(maxPerTx));
+
+            // Convert the result to a pretty JSON format
+            String prettyResult = JsonUtils.prettyJson(result);
+
+            log.info("*** Transaction committed successfully: " + prettyResult);
+            return ResponseEntity.ok(prettyResult);
+
+        } catch (Exception e) {
+            // Handle exceptions
+            return handleException(e, methodName);
+        }
+    }
+
+    /**
+     * Submits a transaction that changes a ticket in the slim response mode, so
+     * the response stored in the block only holds the ID, status, last
+     * modification date and version of the ticket. The whole ticket is read
+     * from the ledger once the transaction is committed, only if requested.
+     *
+     * @param methodName the transaction to submit
+     * @param fullTicket whether to return the whole ticket
+     * @param arguments  the arguments of the transaction
+     * @return the summary of the ticket, or the whole ticket
+     */
+    private Object submitTicketTransaction(String methodName, boolean fullTicket, String... arguments)
+            throws Exception {
+
+        var result = fabricGatewayService.getContract().newProposal(methodName)
+                .addArguments(arguments)
+                .putTransient(RESPONSE_MODE_KEY, SLIM_RESPONSE_MODE)
+                .build()
+                .endorse()
+                .submit();
+
+        // Deserialize the JSON string to a TicketSummaryDto object
+        TicketSummaryDto summary = TicketSummaryDto.fromJson(JsonUtils.prettyJson(result));
+        if (!fullTicket) {
+            return summary;
+        }
+
+        // Read the committed ticket from the ledger
+        var ticket = fabricGatewayService.getContract().evaluateTransaction("ReadTicket", summary.getTicketId());
+        return TicketDto.fromJson(JsonUtils.prettyJson(ticket));
+    }
+
     private ResponseEntity<?> handleException(Exception e, String methodName) {
         if (e instanceof EndorseException | e instanceof SubmitException | e instanceof CommitStatusException) {
             TransactionException te = (TransactionException) e;
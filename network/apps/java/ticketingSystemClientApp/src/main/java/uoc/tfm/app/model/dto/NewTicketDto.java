@@ -0,0 +1,37 @@
+package uoc.tfm.app.model.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uoc.tfm.app.config.JacksonConfig;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewTicketDto {
+
+    private String title;
+
+    private String description;
+
+    private int projectIdNum;
+
+    private String creator;
+
+    private TicketPriority priority;
+
+    private int initStoryPoints;
+
+    // Method to convert a list of NewTicketDto objects to JSON
+    public static String toJson(List<NewTicketDto> tickets) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to serialize the list to a JSON array
+        return objectMapper.writeValueAsString(tickets);
+    }
+
+}
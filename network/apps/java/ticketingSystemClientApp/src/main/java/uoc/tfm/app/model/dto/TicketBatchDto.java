@@ -0,0 +1,47 @@
+package uoc.tfm.app.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uoc.tfm.app.config.JacksonConfig;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketBatchDto {
+
+    private List<TicketDto> records = new ArrayList<>();
+
+    // IDs that do not belong to an active ticket
+    private List<String> missing = new ArrayList<>();
+
+    // Method to add the tickets and missing IDs of another batch
+    public void addAll(TicketBatchDto other) {
+        records.addAll(other.getRecords());
+        missing.addAll(other.getMissing());
+    }
+
+    // Method to convert a list of ticket IDs to JSON
+    public static String idsToJson(List<String> ticketIds) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to serialize the list to a JSON array
+        return objectMapper.writeValueAsString(ticketIds);
+    }
+
+    // Method to convert JSON to a TicketBatchDto object
+    public static TicketBatchDto fromJson(String json) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to deserialize JSON to a TicketBatchDto object
+        return objectMapper.readValue(json, new TypeReference<TicketBatchDto>() {
+        });
+    }
+
+}
@@ -0,0 +1,35 @@
+package uoc.tfm.app.model.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uoc.tfm.app.config.JacksonConfig;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketPageDto {
+
+    private List<TicketDto> records;
+
+    // Bookmark to request the next page, empty when there are no more pages
+    private String bookmark;
+
+    // Number of keys read on the ledger to build the page
+    private int fetchedCount;
+
+    // Method to convert JSON to a TicketPageDto object
+    public static TicketPageDto fromJson(String json) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to deserialize JSON to a TicketPageDto object
+        return objectMapper.readValue(json, new TypeReference<TicketPageDto>() {
+        });
+    }
+
+}
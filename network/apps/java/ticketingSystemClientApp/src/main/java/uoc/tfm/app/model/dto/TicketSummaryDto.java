@@ -0,0 +1,34 @@
+package uoc.tfm.app.model.dto;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uoc.tfm.app.config.JacksonConfig;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketSummaryDto {
+
+    private String ticketId;
+    private TicketStatus status;
+    private LocalDateTime lastModifiedDate;
+
+    // ID of the transaction that wrote this version of the ticket
+    private String version;
+
+    // Method to convert JSON to a TicketSummaryDto object
+    public static TicketSummaryDto fromJson(String json) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to deserialize JSON to a TicketSummaryDto object
+        return objectMapper.readValue(json, new TypeReference<TicketSummaryDto>() {
+        });
+    }
+
+}
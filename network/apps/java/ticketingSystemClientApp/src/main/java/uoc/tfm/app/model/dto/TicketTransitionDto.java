@@ -0,0 +1,43 @@
+package uoc.tfm.app.model.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uoc.tfm.app.config.JacksonConfig;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TicketTransitionDto {
+
+    private String ticketId;
+
+    // Target status of the ticket: IN_PROGRESS, RESOLVED or CLOSED
+    private TicketStatus status;
+
+    // New assigned person, required to move the ticket to IN_PROGRESS
+    private String assigned;
+
+    // Related product version, required to move the ticket to RESOLVED
+    private String relatedProductVersion;
+
+    // Actual story points, required to move the ticket to RESOLVED
+    private Integer realStoryPoints;
+
+    private String comment;
+
+    // Method to convert a list of TicketTransitionDto objects to JSON
+    public static String toJson(List<TicketTransitionDto> transitions) throws Exception {
+        // Using the ObjectMapper bean from JacksonConfig class
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // Using Jackson ObjectMapper to serialize the list to a JSON array
+        return objectMapper.writeValueAsString(transitions);
+    }
+
+}
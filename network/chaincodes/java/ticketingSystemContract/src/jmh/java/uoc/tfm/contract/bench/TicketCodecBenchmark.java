@@ -0,0 +1,78 @@
+package uoc.tfm.contract.bench;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.codec.TicketCodecs;
+import uoc.tfm.contract.enums.TicketPriority;
+import uoc.tfm.contract.enums.TicketStatus;
+import uoc.tfm.contract.enums.TicketType;
+
+/**
+ * Cost of encoding and decoding one ticket with each state codec.
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketCodecBenchmark {
+
+    @Param({"json", "binary"})
+    private String codec;
+
+    private TicketCodecs codecs;
+    private Ticket ticket;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        codecs = new TicketCodecs(mapper);
+
+        LocalDateTime now = LocalDateTime.of(2024, 6, 10, 8, 13, 21);
+        List<String> comments = new ArrayList<>();
+        comments.add("Started");
+        ticket = new Ticket("dev_t1718000001000_0000000000000000000000000000000000000000000000000000000000001eef",
+                "Benchmark", "Ticket encoded by the benchmark", 1, "bench", TicketPriority.HIGH,
+                TicketType.DEVELOPMENT, now, now, "user1", "1.0", comments, 5, TicketStatus.IN_PROGRESS);
+        encoded = codecs.encode(ticket, codec);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codecs.encode(ticket, codec);
+    }
+
+    @Benchmark
+    public Ticket decode() throws IOException {
+        return codecs.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] toJson() throws IOException {
+        return codecs.toJson(encoded);
+    }
+}
@@ -0,0 +1,83 @@
+package uoc.tfm.contract.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uoc.tfm.contract.TicketLedgerFixture;
+import uoc.tfm.contract.TicketingSystemContract;
+
+/**
+ * FilterTickets resolved on the bitmap index against the scan of the
+ * tickets, run without a Fabric network.
+ *
+ * The ledger is built with the bitmap index enabled or disabled in the
+ * configuration of the contract (BitmapIndex), so FilterTickets resolves the
+ * same criteria on the index or by scanning the tickets. The selective
+ * criteria match one in every twenty tickets of the fixture and are read at a
+ * random offset, the empty criteria match no ticket, so the scan has to read
+ * the whole ledger.
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketFilterBenchmark {
+
+    // Project 2, in progress and assigned to user12: every ticket i with i % 20 == 12
+    private static final String SELECTIVE_CRITERIA =
+            "{\"projectIdNum\":2,\"ticketStatus\":\"IN_PROGRESS\",\"assigned\":\"user12\"}";
+
+    // Project 3 and assigned to user12: no ticket of the fixture
+    private static final String EMPTY_CRITERIA = "{\"projectIdNum\":3,\"assigned\":\"user12\"}";
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000"})
+    private int numberOfTickets;
+
+    @Param({"true", "false"})
+    private boolean bitmapIndex;
+
+    private TicketLedgerFixture ledger;
+    private TicketingSystemContract contract;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = new TicketLedgerFixture(numberOfTickets, "{\"BitmapIndex\":" + bitmapIndex + "}");
+        contract = ledger.getContract();
+    }
+
+    @Benchmark
+    public String filterSelective() {
+        return contract.FilterTickets(ledger.begin(), SELECTIVE_CRITERIA, PAGE_SIZE, randomOffset());
+    }
+
+    @Benchmark
+    public String filterEmpty() {
+        return contract.FilterTickets(ledger.begin(), EMPTY_CRITERIA, PAGE_SIZE, 0);
+    }
+
+    /**
+     * @return an offset of a page of the matches of the selective criteria
+     */
+    private int randomOffset() {
+        return ThreadLocalRandom.current().nextInt(numberOfTickets / 20 - PAGE_SIZE);
+    }
+}
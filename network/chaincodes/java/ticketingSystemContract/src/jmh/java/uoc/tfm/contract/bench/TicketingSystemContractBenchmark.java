@@ -0,0 +1,108 @@
+package uoc.tfm.contract.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.contract.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.TicketLedgerFixture;
+import uoc.tfm.contract.TicketingSystemContract;
+
+/**
+ * Baseline of the main transactions of the contract on ledgers of different
+ * sizes, run without a Fabric network.
+ *
+ * Every invocation runs in its own transaction. Writes are flushed into the
+ * simulated write set but never committed, so the ledger does not grow while
+ * measuring.
+ *
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TicketingSystemContractBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int numberOfTickets;
+
+    private TicketLedgerFixture ledger;
+    private TicketingSystemContract contract;
+    private List<String> ticketIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ledger = new TicketLedgerFixture(numberOfTickets);
+        contract = ledger.getContract();
+        ticketIds = ledger.getTicketIds();
+    }
+
+    @Benchmark
+    public String openNewTicket() {
+        Context ctx = ledger.begin();
+        String response = contract.OpenNewTicket(ctx, "Benchmark", "Ticket opened by the benchmark", 1, "bench",
+                "HIGH", 5);
+        contract.afterTransaction(ctx, response);
+        return response;
+    }
+
+    @Benchmark
+    public String openNewTicketSlim() {
+        Context ctx = ledger.begin();
+        ledger.getStub().putTransient(TicketingSystemContract.RESPONSE_MODE_KEY,
+                TicketingSystemContract.SLIM_RESPONSE_MODE.getBytes(StandardCharsets.UTF_8));
+        String response = contract.OpenNewTicket(ctx, "Benchmark", "Ticket opened by the benchmark", 1, "bench",
+                "HIGH", 5);
+        contract.afterTransaction(ctx, response);
+        return response;
+    }
+
+    @Benchmark
+    public Ticket readTicket() {
+        return contract.ReadTicket(ledger.begin(), randomTicketId());
+    }
+
+    @Benchmark
+    public String getAllTicketsByProject() {
+        int project = ThreadLocalRandom.current().nextInt(TicketLedgerFixture.PROJECTS);
+        return contract.GetAllTicketsByProject(ledger.begin(), project);
+    }
+
+    @Benchmark
+    public String getAllTicketsByStatus() {
+        return contract.GetAllTicketsByStatus(ledger.begin(), "IN_PROGRESS");
+    }
+
+    @Benchmark
+    public String getAllTicketsByAssigned() {
+        int user = ThreadLocalRandom.current().nextInt(TicketLedgerFixture.USERS);
+        return contract.GetAllTicketsByAssigned(ledger.begin(), TicketLedgerFixture.user(user));
+    }
+
+    @Benchmark
+    public String getTicketHistory() {
+        return contract.GetTicketHistory(ledger.begin(), randomTicketId(), 0, "", "", "");
+    }
+
+    private String randomTicketId() {
+        return ticketIds.get(ThreadLocalRandom.current().nextInt(ticketIds.size()));
+    }
+}
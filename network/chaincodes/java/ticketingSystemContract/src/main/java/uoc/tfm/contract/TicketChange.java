@@ -0,0 +1,37 @@
+package uoc.tfm.contract;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import uoc.tfm.contract.enums.TicketOperation;
+import uoc.tfm.contract.enums.TicketStatus;
+
+/**
+ * Change of a ticket made by a transaction, as sent in the payload of the
+ * TicketChanged event.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class TicketChange {
+
+    // ID of the changed ticket
+    @JsonProperty("ticketId")
+    private String ticketId;
+
+    // Status of the ticket after the change, null if it was deleted
+    @JsonProperty("ticketStatus")
+    private TicketStatus ticketStatus;
+
+    // Date and time of the change
+    @JsonProperty("lastModifiedDate")
+    private LocalDateTime lastModifiedDate;
+
+    // Kind of operation that changed the ticket
+    @JsonProperty("operation")
+    private TicketOperation operation;
+}
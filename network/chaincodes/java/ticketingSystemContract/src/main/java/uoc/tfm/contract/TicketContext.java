@@ -0,0 +1,144 @@
+package uoc.tfm.contract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import uoc.tfm.contract.config.ChannelConfig;
+import uoc.tfm.contract.config.ContractConfig;
+import uoc.tfm.contract.ledger.CachingStub;
+import uoc.tfm.contract.metrics.InstrumentingStub;
+
+/**
+ * Transaction context of the ticketing system contract.
+ *
+ * The stub of the context memoizes state reads and buffers state writes for
+ * the whole transaction, the writes are sent to the peer by {@link #flush()}
+ * once the transaction has finished. If the metrics are enabled, the cache sits
+ * on an {@link InstrumentingStub}, so the calls that reach the peer are
+ * measured.
+ */
+public class TicketContext extends Context {
+
+    private final CachingStub cache;
+
+    // Measures the calls to the peer, null if the metrics are disabled
+    private final InstrumentingStub instrumentation;
+
+    // Sequences of numbers used during the transaction, by name
+    private final Map<String, Integer> sequences = new HashMap<>();
+
+    // Changes of tickets made by the transaction, in order
+    private final List<TicketChange> changes = new ArrayList<>();
+
+    // Deltas of the stats made by the transaction, by project
+    private final Map<String, ObjectNode> statsDeltas = new TreeMap<>();
+
+    // Configuration of the channel, each setting read on first use
+    private ChannelConfig config;
+
+    /**
+     * Creates the context of a transaction.
+     *
+     * @param stub the stub of the transaction
+     */
+    public TicketContext(final ChaincodeStub stub) {
+        this(ContractConfig.isMetricsEnabled() ? InstrumentingStub.over(stub) : null, stub);
+    }
+
+    private TicketContext(final InstrumentingStub instrumentation, final ChaincodeStub stub) {
+        this(instrumentation, CachingStub.over(instrumentation != null ? instrumentation.getStub() : stub));
+    }
+
+    private TicketContext(final InstrumentingStub instrumentation, final CachingStub cache) {
+        super(cache.getStub());
+        this.cache = cache;
+        this.instrumentation = instrumentation;
+    }
+
+    /**
+     * Gives the next number of a sequence that only lives during the
+     * transaction, such as the comments added to one ticket.
+     *
+     * @param scope the name of the sequence
+     * @return the next number, starting at 0
+     */
+    public int nextSequence(final String scope) {
+        return sequences.merge(scope, 1, Integer::sum) - 1;
+    }
+
+    /**
+     * Gives the configuration of the channel, each setting being read from the
+     * ledger the first time the transaction needs it.
+     *
+     * @return the configuration of the channel
+     */
+    public ChannelConfig getConfig() {
+        if (config == null) {
+            config = ChannelConfig.read(getStub());
+        }
+        return config;
+    }
+
+    /**
+     * Replaces the configuration of the channel seen by the rest of the
+     * transaction, once it has been written.
+     *
+     * @param config the new configuration
+     */
+    public void setConfig(final ChannelConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Records a change of a ticket, to be sent in the event of the transaction.
+     *
+     * @param change the change of the ticket
+     */
+    public void addChange(final TicketChange change) {
+        changes.add(change);
+    }
+
+    /**
+     * @return the changes of tickets made by the transaction
+     */
+    public List<TicketChange> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * @return the deltas of the stats made by the transaction, by project, to
+     *         be written once it has finished
+     */
+    public Map<String, ObjectNode> getStatsDeltas() {
+        return statsDeltas;
+    }
+
+    /**
+     * Sends the writes buffered during the transaction to the peer.
+     */
+    public void flush() {
+        if (instrumentation != null) {
+            instrumentation.measureFlush(cache::flush);
+        } else {
+            cache.flush();
+        }
+    }
+
+    /**
+     * Records the metrics of the transaction, once it has finished.
+     */
+    public void recordMetrics() {
+        if (instrumentation != null) {
+            instrumentation.finish();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package uoc.tfm.contract;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import uoc.tfm.contract.enums.TicketStatus;
+
+/**
+ * Summary of a ticket returned by the transactions that change it when the
+ * client asks for the slim response mode, instead of the whole ticket.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class TicketSummary {
+
+    // ID of the ticket
+    @JsonProperty("ticketId")
+    private String ticketId;
+
+    // Status of the ticket after the transaction
+    @JsonProperty("status")
+    private TicketStatus status;
+
+    // Date and time of the last modification of the ticket
+    @JsonProperty("lastModifiedDate")
+    private LocalDateTime lastModifiedDate;
+
+    // ID of the transaction that wrote this version of the ticket
+    @JsonProperty("version")
+    private String version;
+}
@@ -1,16 +1,44 @@
 package uoc.tfm.contract;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import org.hyperledger.fabric.contract.ClientIdentity;
 import org.hyperledger.fabric.contract.Context;
 import org.hyperledger.fabric.contract.ContractInterface;
 import org.hyperledger.fabric.contract.annotation.Contact;
@@ -21,14 +49,34 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyModification;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
+import uoc.tfm.contract.codec.TicketCodecs;
+import uoc.tfm.contract.config.ChannelConfig;
+import uoc.tfm.contract.config.ContractConfig;
 import uoc.tfm.contract.enums.TicketError;
+import uoc.tfm.contract.enums.TicketOperation;
 import uoc.tfm.contract.enums.TicketPriority;
 import uoc.tfm.contract.enums.TicketStatus;
 import uoc.tfm.contract.enums.TicketType;
+import uoc.tfm.contract.ledger.TicketArchive;
+import uoc.tfm.contract.ledger.TicketBitmaps;
+import uoc.tfm.contract.ledger.TicketChangeLog;
+import uoc.tfm.contract.ledger.TicketComments;
+import uoc.tfm.contract.ledger.TicketIndexes;
+import uoc.tfm.contract.ledger.TicketKeys;
+import uoc.tfm.contract.ledger.TicketStats;
+import uoc.tfm.contract.ledger.TicketTerms;
+import uoc.tfm.contract.metrics.ContractMetrics;
+import uoc.tfm.contract.metrics.FunctionMetrics;
+import uoc.tfm.contract.metrics.LatencyHistogram;
+import uoc.tfm.contract.util.TicketFieldFilter;
+import uoc.tfm.contract.util.TicketJsonStream;
+import uoc.tfm.contract.util.TicketLogger;
 
 @Contract(name = "TicketingSystemContract", info = @Info(title = "Ticketing System", description = "Contract for managing the lifecycle of tickets in a system.", version = "0.0.1-SNAPSHOT", license = @License(name = "Apache 2.0 License", url = "http://www.apache.org/licenses/LICENSE-2.0.html"), contact = @Contact(email = "amartinno@uoc.edu", name = "Alvaro Martin", url = "https://www.uoc.edu/es")))
 @Default
@@ -37,8 +85,96 @@ public final class TicketingSystemContract implements ContractInterface {
     // Create an ObjectMapper with the JavaTimeModule module
     private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
-    private static int ticketIdNum_dev = 0;
-    private static int ticketIdNum_qa = 0;
+    // Writers of the responses and events, bound to their type once
+    private final ObjectWriter ticketWriter = mapper.writerFor(Ticket.class);
+    private final ObjectWriter summaryWriter = mapper.writerFor(TicketSummary.class);
+    private final ObjectWriter changesWriter = mapper.writerFor(
+            mapper.getTypeFactory().constructCollectionType(List.class, TicketChange.class));
+
+    // Codecs of the tickets stored on the ledger, writing with the one
+    // configured for the channel
+    private final TicketCodecs codecs = new TicketCodecs(mapper);
+
+    // Seconds between summary lines of the metrics in the log, 0 for none
+    private final long metricsSummarySeconds = ContractConfig.getMetricsSummarySeconds();
+
+    // Time zone of the dates of the tickets
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+
+    // Name of the event sent by the transactions that change tickets
+    public static final String TICKET_CHANGED_EVENT = "TicketChanged";
+
+    // Term of a text search: a word, or assigned: followed by a word or a quoted text
+    private static final Pattern SEARCH_TERM = Pattern.compile("(assigned:)?(?:\"([^\"]*)\"|(\\S+))");
+
+    // Transient key and value that select the slim response of the
+    // transactions that change a ticket
+    public static final String RESPONSE_MODE_KEY = "responseMode";
+    public static final String SLIM_RESPONSE_MODE = "slim";
+
+    // Index keys deleted by each call of the rebuild per ticket it may index,
+    // about the number of entries of a ticket in the indexes
+    private static final int REBUILD_KEYS_PER_TICKET = 50;
+
+    // Role (OU) of the certificates of the administrators of an organization,
+    // and attribute of Fabric CA that grants it to other identities
+    private static final String ADMIN_ROLE = "admin";
+    private static final String ADMIN_ATTRIBUTE = "ticketing.admin";
+
+    // JSON fields of the ticket read to rebuild the indexes, the text index and the stats
+    private static final List<String> INDEXED_FIELDS = List.of(
+            TicketFieldFilter.STATUS_FIELD, TicketFieldFilter.PROJECT_FIELD, TicketFieldFilter.ASSIGNED_FIELD,
+            TicketFieldFilter.STORY_POINTS_FIELD, TicketFieldFilter.TITLE_FIELD, TicketFieldFilter.DESCRIPTION_FIELD,
+            TicketFieldFilter.LAST_MODIFIED_FIELD, TicketFieldFilter.CREATION_DATE_FIELD,
+            TicketFieldFilter.PRIORITY_FIELD);
+
+    /************************************************************************/
+    /* TRANSACTION CONTEXT METHODS */
+    /************************************************************************/
+
+    /**
+     * Creates the context of every transaction, whose stub caches the state
+     * read and written during the transaction.
+     *
+     * @param stub the stub of the transaction
+     * @return the transaction context
+     */
+    @Override
+    public Context createContext(final ChaincodeStub stub) {
+        return new TicketContext(stub);
+    }
+
+    /**
+     * Writes the deltas of the stats made by the transaction, sends the state
+     * writes buffered during the transaction to the peer, and a single
+     * TicketChanged event with every ticket changed by it, if any. Then
+     * records the metrics of the transaction.
+     *
+     * @param ctx    the transaction context
+     * @param result the result of the transaction
+     */
+    @Override
+    public void afterTransaction(final Context ctx, final Object result) {
+        if (!(ctx instanceof TicketContext)) {
+            return;
+        }
+        TicketContext ticketContext = (TicketContext) ctx;
+        if (!ticketContext.getChanges().isEmpty()) {
+            try {
+                ctx.getStub().setEvent(TICKET_CHANGED_EVENT, changesWriter.writeValueAsBytes(ticketContext.getChanges()));
+            } catch (JsonProcessingException e) {
+                handleJsonProcessingError(e, String.class);
+            }
+        }
+        try {
+            TicketStats.write(ctx.getStub(), ticketContext.getStatsDeltas());
+        } catch (IOException e) {
+            handleJsonProcessingError(e, String.class);
+        }
+        ticketContext.flush();
+        ticketContext.recordMetrics();
+        ContractMetrics.logSummaryIfDue(metricsSummarySeconds);
+    }
 
     /************************************************************************/
     /* SUBMIT TRANSACTIONS METHODS */
@@ -52,11 +188,14 @@ public final class TicketingSystemContract implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public String InitLedger(final Context ctx) {
 
-        System.out.println("[InitLedger] Trying open new tickets");
+        TicketLogger.debug("InitLedger", "Trying open new tickets");
 
         // Retrieve the name of the channel
         String channelName = getChannelName(ctx);
 
+        // The text index only holds every ticket if there were none before
+        boolean emptyLedger = isEmptyLedger(ctx.getStub(), "InitLedger");
+
         List<Ticket> tickets = null;
         /// Open initial tickets based on the channel type
         if (channelName.contains("dev")) {
@@ -67,6 +206,10 @@ public final class TicketingSystemContract implements ContractInterface {
             tickets = openInitQaTickets(ctx);
         }
 
+        if (emptyLedger) {
+            TicketTerms.setComplete(ctx.getStub(), true);
+        }
+
         // Get the number of tickets
         int numberOfTickets = (tickets != null) ? tickets.size() : 0;
 
@@ -88,7 +231,7 @@ public final class TicketingSystemContract implements ContractInterface {
         jsonResponseObject.put("TimestampOperation", currentDateTime);
         String jsonResponse = jsonResponseObject.toString();
 
-        System.out.println("[InitLedger] OK: " + jsonResponse);
+        TicketLogger.info("InitLedger", () -> "OK: " + jsonResponse);
         return jsonResponse;
     }
 
@@ -102,10 +245,23 @@ public final class TicketingSystemContract implements ContractInterface {
      * @param creator         the creator of the ticket
      * @param priority        the priority of the ticket
      * @param initStoryPoints the story points associated with the ticket
-     * @return the created ticket
+     * @return the created ticket, or its summary in the slim response mode
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Ticket OpenNewTicket(
+    public String OpenNewTicket(
+            final Context ctx,
+            final String title,
+            final String description,
+            final int projectIdNum,
+            final String creator,
+            final String priority,
+            final int initStoryPoints) {
+        return ticketResponse(ctx,
+                openNewTicket(ctx, title, description, projectIdNum, creator, priority, initStoryPoints),
+                "OpenNewTicket");
+    }
+
+    private Ticket openNewTicket(
             final Context ctx,
             final String title,
             final String description,
@@ -117,14 +273,10 @@ public final class TicketingSystemContract implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
         final String ticketId = getTicketId(ctx);
 
-        System.out.println("[OpenNewTicket] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("OpenNewTicket", () -> "Trying with ticketId=" + ticketId);
 
-        // Check if the ticket exists
-        if (ticketExists(ctx, ticketId)) {
-            String errorMessage = String.format("Ticket %s already exists", ticketId);
-            System.out.println(errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_ALREADY_EXISTS.getCodeAndName());
-        }
+        // The ticket ID is unique to the transaction, so the ticket cannot exist
+        // yet and the ledger does not need to be read
 
         // Parse the priority from string to enum
         final TicketPriority ticketPriority = TicketPriority.fromString(priority);
@@ -159,15 +311,18 @@ public final class TicketingSystemContract implements ContractInterface {
                     initStoryPoints,
                     ticketStatus);
 
-            // Serialize the ticket object to JSON and store it in the ledger
-            final String jsonTicket = mapper.writeValueAsString(ticket);
-            stub.putStringState(ticketId, jsonTicket);
+            // Encode the ticket object and store it in the ledger
+            stub.putState(TicketKeys.key(stub, ticketId), codecs.encode(ticket, config(ctx).getStateCodec()));
 
-            System.out.println("[OpenNewTicket] OK: " + ticket);
+            // Add the ticket to the secondary indexes and the stats
+            onTicketChanged(ctx, null, ticket);
+
+            TicketLogger.info("OpenNewTicket", () -> "OK: ticketId=" + ticket.getTicketId() +
+                    " status=" + ticket.getTicketStatus());
             return ticket;
 
-        } catch (JsonProcessingException e) {
-            System.out.println("[OpenNewTicket] NOK");
+        } catch (IOException e) {
+            TicketLogger.warn("OpenNewTicket", "NOK");
             // Handle JSON processing errors
             return handleJsonProcessingError(e, Ticket.class);
         }
@@ -181,26 +336,35 @@ public final class TicketingSystemContract implements ContractInterface {
      * @param ticketId the ID of the ticket being updated
      * @param assigned the new assigned person
      * @param comment  an optional comment
-     * @return the updated ticket
+     * @return the updated ticket, or its summary in the slim response mode
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Ticket UpdateTicketToInProgress(
+    public String UpdateTicketToInProgress(
+            final Context ctx,
+            final String ticketId,
+            final String assigned,
+            final String comment) {
+        return ticketResponse(ctx, updateTicketToInProgress(ctx, ticketId, assigned, comment),
+                "UpdateTicketToInProgress");
+    }
+
+    private Ticket updateTicketToInProgress(
             final Context ctx,
             final String ticketId,
             final String assigned,
             final String comment) {
 
-        System.out.println("[UpdateTicketToInProgress] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("UpdateTicketToInProgress", () -> "Trying with ticketId=" + ticketId);
 
         // Retrieve the ticket from the ledger
-        Ticket ticket = ReadTicket(ctx, ticketId);
+        Ticket ticket = readStoredTicket(ctx, ticketId);
 
         // Check if the ticket status is OPEN
         if (ticket.getTicketStatus() != TicketStatus.OPEN) {
             String errorMessage = String.format(
                     "Ticket %s must be in OPEN to be updated to IN_PROGRESS",
                     ticketId);
-            System.out.println("[UpdateTicketToInProgress] NOK: " + errorMessage);
+            TicketLogger.warn("UpdateTicketToInProgress", "NOK: " + errorMessage);
             throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
         }
 
@@ -211,69 +375,78 @@ public final class TicketingSystemContract implements ContractInterface {
         ticket.setAssigned(assigned);
         ticket.setTicketStatus(TicketStatus.IN_PROGRESS);
         if (!comment.isEmpty()) {
-            ticket.getComments().add(comment);
+            addComment(ctx, ticketId, comment);
         }
         ticket.setLastModifiedDate(currentDateTime);
 
         // Update the ticket in the ledger and return the updated ticket
         Ticket updatedTicket = updateTicket(ctx, ticket);
 
-        System.out.println("[UpdateTicketToInProgress] OK: " + updatedTicket);
+        TicketLogger.info("UpdateTicketToInProgress", () -> "OK: ticketId=" + updatedTicket.getTicketId() +
+                " status=" + updatedTicket.getTicketStatus());
         return updatedTicket;
     }
 
     /**
      * Adds a comment to a ticket that is in progress.
      * The ticket must be in the IN_PROGRESS state for the comment to be added.
-     * The method will update the last modified date of the ticket if the comment is
-     * not empty.
+     * The comment is stored under its own key, so the ticket itself is neither
+     * read nor rewritten: its status is checked through the status index, and
+     * the ticket is listed by GetTicketsModifiedSince through an extra entry of
+     * the index by last modification date. Comments on the same ticket do not
+     * conflict with each other.
      *
      * @param ctx      the transaction context
      * @param ticketId the ID of the ticket being updated
      * @param comment  the comment to be added to the ticket
-     * @return the updated ticket
+     * @return the ticket ID and the timestamp of the comment
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Ticket AddCommentForTicketInProgress(
+    public String AddCommentForTicketInProgress(
             final Context ctx,
             final String ticketId,
             final String comment) {
 
-        System.out.println("[addCommentForTicketInProgress] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("addCommentForTicketInProgress", () -> "Trying with ticketId=" + ticketId);
 
         // Check if the comment is empty
         if (comment == null || comment.trim().isEmpty()) {
             String errorMessage = String.format(
                     "New comment cannot be empty for ticket %s",
                     ticketId);
-            System.out.println("[addCommentForTicketInProgress] NOK: " + errorMessage);
+            TicketLogger.warn("addCommentForTicketInProgress", "NOK: " + errorMessage);
             throw new ChaincodeException(errorMessage, TicketError.TICKET_COMMENT_EMPTY.getCodeAndName());
         }
 
-        // Retrieve the ticket from the ledger
-        Ticket ticket = ReadTicket(ctx, ticketId);
-
-        // Check if the ticket status is IN_PROGRESS
-        if (ticket.getTicketStatus() != TicketStatus.IN_PROGRESS) {
+        // Check if the ticket status is IN_PROGRESS, the ticket is only read
+        // when the status index has no entry for it
+        boolean inProgress = TicketIndexes.hasEntry(
+                ctx.getStub(), TicketIndexes.STATUS_INDEX, TicketStatus.IN_PROGRESS.name(), ticketId)
+                || readStoredTicket(ctx, ticketId).getTicketStatus() == TicketStatus.IN_PROGRESS;
+        if (!inProgress) {
             String errorMessage = String.format(
                     "Ticket %s must be in IN_PROGRESS to add a comment",
                     ticketId);
-            System.out.println("[addCommentForTicketInProgress] NOK: " + errorMessage);
+            TicketLogger.warn("addCommentForTicketInProgress", "NOK: " + errorMessage);
             throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
         }
 
+        // Store the comment as a new key of the ticket
+        addComment(ctx, ticketId, comment);
+
         // Get the current date and time
         final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+        TicketIndexes.touch(ctx.getStub(), ticketId);
+        recordChange(ctx, ticketId, TicketStatus.IN_PROGRESS, currentDateTime, TicketOperation.COMMENT);
 
-        // Update the ticket details
-        ticket.getComments().add(comment);
-        ticket.setLastModifiedDate(currentDateTime);
-
-        // Update the ticket in the ledger and return the updated ticket
-        Ticket updatedTicket = updateTicket(ctx, ticket);
+        // Create a JSON response with ticket ID and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("TicketId", ticketId);
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
 
-        System.out.println("[addCommentForTicketInProgress] OK: " + updatedTicket);
-        return updatedTicket;
+        TicketLogger.info("addCommentForTicketInProgress", () -> "OK: " + jsonResponse);
+        return jsonResponse;
     }
 
     /**
@@ -285,27 +458,38 @@ public final class TicketingSystemContract implements ContractInterface {
      * @param relatedProductVersion the related product version
      * @param realinitS             the actual story points
      * @param comment               an optional comment
-     * @return the updated ticket
+     * @return the updated ticket, or its summary in the slim response mode
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Ticket UpdateTicketToResolved(
+    public String UpdateTicketToResolved(
+            final Context ctx,
+            final String ticketId,
+            final String relatedProductVersion,
+            final int realStoryPoints,
+            final String comment) {
+        return ticketResponse(ctx,
+                updateTicketToResolved(ctx, ticketId, relatedProductVersion, realStoryPoints, comment),
+                "UpdateTicketToResolved");
+    }
+
+    private Ticket updateTicketToResolved(
             final Context ctx,
             final String ticketId,
             final String relatedProductVersion,
             final int realStoryPoints,
             final String comment) {
 
-        System.out.println("[UpdateTicketToResolved] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("UpdateTicketToResolved", () -> "Trying with ticketId=" + ticketId);
 
         // Retrieve the ticket from the ledger
-        Ticket ticket = ReadTicket(ctx, ticketId);
+        Ticket ticket = readStoredTicket(ctx, ticketId);
 
         // Check if the ticket status is IN_PROGRESS
         if (ticket.getTicketStatus() != TicketStatus.IN_PROGRESS) {
             String errorMessage = String.format(
                     "Ticket %s must be in IN_PROGRESS to be updated to RESOLVED",
                     ticketId);
-            System.out.println("[UpdateTicketToResolved] NOK: " + errorMessage);
+            TicketLogger.warn("UpdateTicketToResolved", "NOK: " + errorMessage);
             throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
         }
 
@@ -317,14 +501,15 @@ public final class TicketingSystemContract implements ContractInterface {
         ticket.setRelatedProductVersion(relatedProductVersion);
         ticket.setStoryPoints(realStoryPoints);
         if (!comment.isEmpty()) {
-            ticket.getComments().add(comment);
+            addComment(ctx, ticketId, comment);
         }
         ticket.setLastModifiedDate(currentDateTime);
 
         // Update the ticket in the ledger and return the updated ticket
         Ticket updatedTicket = updateTicket(ctx, ticket);
 
-        System.out.println("[UpdateTicketToResolved] OK: " + updatedTicket);
+        TicketLogger.info("UpdateTicketToResolved", () -> "OK: ticketId=" + updatedTicket.getTicketId() +
+                " status=" + updatedTicket.getTicketStatus());
         return updatedTicket;
     }
 
@@ -335,22 +520,26 @@ public final class TicketingSystemContract implements ContractInterface {
      * @param ctx      the transaction context
      * @param ticketId the ID of the ticket being updated
      * @param comment  an optional comment
-     * @return the updated ticket
+     * @return the updated ticket, or its summary in the slim response mode
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
-    public Ticket UpdateTicketToClosed(final Context ctx, final String ticketId, final String comment) {
+    public String UpdateTicketToClosed(final Context ctx, final String ticketId, final String comment) {
+        return ticketResponse(ctx, updateTicketToClosed(ctx, ticketId, comment), "UpdateTicketToClosed");
+    }
+
+    private Ticket updateTicketToClosed(final Context ctx, final String ticketId, final String comment) {
 
-        System.out.println("[UpdateTicketToClosed] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("UpdateTicketToClosed", () -> "Trying with ticketId=" + ticketId);
 
         // Retrieve the ticket from the ledger
-        Ticket ticket = ReadTicket(ctx, ticketId);
+        Ticket ticket = readStoredTicket(ctx, ticketId);
 
         // Check if the ticket status is RESOLVED
         if (ticket.getTicketStatus() != TicketStatus.RESOLVED) {
             String errorMessage = String.format(
                     "Ticket %s must be in RESOLVED to be updated to CLOSED",
                     ticketId);
-            System.out.println("[UpdateTicketToClosed] NOK: " + errorMessage);
+            TicketLogger.warn("UpdateTicketToClosed", "NOK: " + errorMessage);
             throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
         }
 
@@ -360,17 +549,112 @@ public final class TicketingSystemContract implements ContractInterface {
         // Update the ticket details
         ticket.setTicketStatus(TicketStatus.CLOSED);
         if (!comment.isEmpty()) {
-            ticket.getComments().add(comment);
+            addComment(ctx, ticketId, comment);
         }
         ticket.setLastModifiedDate(currentDateTime);
 
         // Update the ticket in the ledger and return the updated ticket
         Ticket updatedTicket = updateTicket(ctx, ticket);
 
-        System.out.println("[UpdateTicketToClosed] OK: " + updatedTicket);
+        TicketLogger.info("UpdateTicketToClosed", () -> "OK: ticketId=" + updatedTicket.getTicketId() +
+                " status=" + updatedTicket.getTicketStatus());
         return updatedTicket;
     }
 
+    /**
+     * Creates and opens several new tickets on the ledger in one transaction.
+     * Either every ticket is opened or, if any of them fails, none is.
+     *
+     * @param ctx         the transaction context
+     * @param ticketsJson JSON array of tickets, each with title, description,
+     *                    projectIdNum, creator, priority and initStoryPoints
+     * @return the result of every ticket, in the order of the request
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String OpenNewTickets(final Context ctx, final String ticketsJson) {
+
+        TicketLogger.debug("OpenNewTickets", () -> "Trying with ticketsJson=" + ticketsJson);
+
+        JsonNode items = parseBulkItems(ctx, ticketsJson, "OpenNewTickets");
+        JSONArray results = new JSONArray();
+        JSONArray errors = new JSONArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            try {
+                Ticket ticket = openNewTicket(
+                        ctx,
+                        requiredText(item, "title"),
+                        optionalText(item, "description"),
+                        requiredInt(item, "projectIdNum"),
+                        requiredText(item, "creator"),
+                        optionalText(item, "priority"),
+                        requiredInt(item, "initStoryPoints"));
+                results.put(bulkResult(i, ticket));
+            } catch (ChaincodeException e) {
+                errors.put(bulkError(i, e));
+            }
+        }
+
+        return bulkResponse(ctx, results, errors, "OpenNewTickets");
+    }
+
+    /**
+     * Applies several status transitions to tickets on the ledger in one
+     * transaction. Either every transition is applied or, if any of them fails,
+     * none is. Transitions are applied in order, so one ticket can go through
+     * several of them.
+     *
+     * @param ctx             the transaction context
+     * @param transitionsJson JSON array of transitions, each with ticketId, the
+     *                        target status (IN_PROGRESS, RESOLVED or CLOSED), an
+     *                        optional comment and the fields the target status
+     *                        needs: assigned for IN_PROGRESS and
+     *                        relatedProductVersion and realStoryPoints for RESOLVED
+     * @return the result of every transition, in the order of the request
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String BulkTransition(final Context ctx, final String transitionsJson) {
+
+        TicketLogger.debug("BulkTransition", () -> "Trying with transitionsJson=" + transitionsJson);
+
+        JsonNode items = parseBulkItems(ctx, transitionsJson, "BulkTransition");
+        JSONArray results = new JSONArray();
+        JSONArray errors = new JSONArray();
+
+        for (int i = 0; i < items.size(); i++) {
+            JsonNode item = items.get(i);
+            try {
+                String ticketId = requiredText(item, "ticketId");
+                String status = requiredText(item, "status");
+                String comment = optionalText(item, "comment");
+
+                Ticket ticket;
+                switch (TicketStatus.fromString(status)) {
+                    case IN_PROGRESS:
+                        ticket = updateTicketToInProgress(ctx, ticketId, requiredText(item, "assigned"), comment);
+                        break;
+                    case RESOLVED:
+                        ticket = updateTicketToResolved(ctx, ticketId, requiredText(item, "relatedProductVersion"),
+                                requiredInt(item, "realStoryPoints"), comment);
+                        break;
+                    case CLOSED:
+                        ticket = updateTicketToClosed(ctx, ticketId, comment);
+                        break;
+                    default:
+                        throw new ChaincodeException(
+                                TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + status,
+                                TicketError.TICKET_INVALID_STATUS.getCodeAndName());
+                }
+                results.put(bulkResult(i, ticket));
+            } catch (ChaincodeException e) {
+                errors.put(bulkError(i, e));
+            }
+        }
+
+        return bulkResponse(ctx, results, errors, "BulkTransition");
+    }
+
     /**
      * Deletes a ticket from the ledger.
      *
@@ -381,21 +665,22 @@ public final class TicketingSystemContract implements ContractInterface {
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public String DeleteTicket(final Context ctx, final String ticketId) {
 
-        System.out.println("[DeleteTicket] Trying with ticketId=" + ticketId);
+        TicketLogger.debug("DeleteTicket", () -> "Trying with ticketId=" + ticketId);
 
         ChaincodeStub stub = ctx.getStub();
 
-        // Check if the ticket exists
-        if (!ticketExists(ctx, ticketId)) {
-            String errorMessage = String.format(
-                    "Ticket %s does not exist",
-                    ticketId);
-            System.out.println("[DeleteTicket] NOK: " + errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_NOT_FOUND.getCodeAndName());
-        }
+        // Retrieve the ticket from the ledger (fails if it does not exist)
+        Ticket ticket = readStoredTicket(ctx, ticketId);
 
-        // Delete the ticket from the ledger
-        stub.delState(ticketId);
+        // Delete the ticket, its index entries and its comments from the ledger
+        stub.delState(TicketKeys.storedKey(stub, ticketId));
+        try {
+            onTicketChanged(ctx, ticket, null);
+        } catch (IOException e) {
+            TicketLogger.error("DeleteTicket", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        }
+        deleteKeys(stub, TicketComments.partialKey(stub, ticketId), "DeleteTicket");
 
         // Get the current date and time
         final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
@@ -406,311 +691,2260 @@ public final class TicketingSystemContract implements ContractInterface {
         jsonResponseObject.put("TimestampOperation", currentDateTime);
         String jsonResponse = jsonResponseObject.toString();
 
-        System.out.println("[DeleteTicket] OK: " + jsonResponse);
+        TicketLogger.info("DeleteTicket", () -> "OK: " + jsonResponse);
         return jsonResponse;
     }
 
-    /************************************************************************/
-    /* EVALUATE TRANSACTIONS METHODS */
-    /************************************************************************/
-
     /**
-     * Retrieves a ticket from the ledger by its ID.
+     * Starts the rebuild of the secondary indexes, the text index, the stats
+     * and, if it is enabled, the bitmap index of all the tickets on the
+     * ledger. Intended to backfill them on existing ledgers, or after enabling
+     * the bitmap index.
+     *
+     * The rebuild is driven by the client in three steps, so that no
+     * transaction has to scan the ledger: StartTicketIndexRebuild, called until
+     * HasMore is false, deletes the current entries of the indexes and the
+     * stats, up to {@value #REBUILD_KEYS_PER_TICKET} keys per ticket of
+     * maxPerTx each; RebuildTicketIndexes then indexes each page of ticket IDs
+     * listed by GetTicketIdsWithPagination; and FinishTicketIndexRebuild marks
+     * the text index and the bitmap index as complete, so the queries use them
+     * again. In between, the transactions that change tickets or add comments
+     * are rejected.
+     *
+     * Only the tickets in the tickets namespace are indexed, so on ledgers
+     * written by earlier versions of the contract MigrateTicketKeys must be
+     * run to the end first; the rebuild is refused while any ticket stored
+     * under its bare ID remains.
      *
      * @param ctx      the transaction context
-     * @param ticketId the ID of the ticket to retrieve
-     * @return the ticket object
+     * @param maxPerTx the maximum number of tickets whose keys are deleted, up
+     *                 to the maximum number of bulk operations
+     * @return whether more keys remain to be deleted and the timestamp of the
+     *         operation
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public Ticket ReadTicket(final Context ctx, final String ticketId) {
-
-        System.out.println("[ReadTicket] Trying with ticketId=" + ticketId);
-
-        ChaincodeStub stub = ctx.getStub();
-        String jsonTicket = stub.getStringState(ticketId);
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String StartTicketIndexRebuild(final Context ctx, final int maxPerTx) {
 
-        // Check if the ticket exists
-        if (jsonTicket == null || jsonTicket.isEmpty()) {
-            String errorMessage = String.format(
-                    "Ticket %s does not exist",
-                    ticketId);
-            System.out.println("[ReadTicket] NOK: " + errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_NOT_FOUND.getCodeAndName());
-        }
+        TicketLogger.debug("StartTicketIndexRebuild", () -> "Trying with maxPerTx=" + maxPerTx);
 
-        try {
-            // Deserialize the JSON string to a Ticket object
-            Ticket ticket = mapper.readValue(jsonTicket, Ticket.class);
+        requireAdmin(ctx, "StartTicketIndexRebuild");
 
-            System.out.println("[ReadTicket] OK: " + ticket);
-            return ticket;
+        validatePageSize(maxPerTx, "StartTicketIndexRebuild");
+        final int limit = Math.min(maxPerTx, config(ctx).getMaxBulkOperations());
 
-        } catch (JsonProcessingException e) {
-            System.out.println("[ReadTicket] NOK: Error processing JSON");
-            // Handle JSON processing errors
-            return handleJsonProcessingError(e, Ticket.class);
-        }
+        ChaincodeStub stub = ctx.getStub();
+        requireKeysMigrated(stub, "StartTicketIndexRebuild");
+        TicketIndexes.setRebuilding(stub, true);
+        TicketTerms.setComplete(stub, false);
+        TicketBitmaps.setComplete(stub, false);
+
+        // The keys deleted by the previous calls are gone, so each call only
+        // reads the keys it deletes
+        boolean deletedAll = deleteIndexKeys(stub, limit * REBUILD_KEYS_PER_TICKET);
+        return chunkResponse(ctx, 0, !deletedAll, "StartTicketIndexRebuild");
     }
 
     /**
-     * Retrieves all tickets from the ledger.
+     * Indexes and counts again a page of tickets, as a step of the rebuild
+     * started by StartTicketIndexRebuild. Only the given tickets are read, so
+     * the read set of each call is bounded by its page. Tickets that are not
+     * active, or that are already indexed by a previous call, are skipped, so
+     * a page can be submitted again after a failure without counting its
+     * tickets twice.
      *
-     * @param ctx the transaction context
-     * @return array of tickets found on the ledger
+     * @param ctx     the transaction context
+     * @param idsJson JSON array with the IDs of the tickets, as listed by
+     *                GetTicketIdsWithPagination, at most the maximum number of
+     *                bulk operations
+     * @return the number of tickets indexed, the number skipped and the
+     *         timestamp of the operation
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetAllTickets(final Context ctx) {
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String RebuildTicketIndexes(final Context ctx, final String idsJson) {
 
-        System.out.println("[GetAllTickets] Trying with all tickets");
+        TicketLogger.debug("RebuildTicketIndexes", () -> "Trying with idsJson=" + idsJson);
 
-        ChaincodeStub stub = ctx.getStub();
-        List<Ticket> queryResults = new ArrayList<>();
+        requireAdmin(ctx, "RebuildTicketIndexes");
 
-        // Query the ledger for all tickets by specifying a range
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
+        Set<String> ticketIds = parseTicketIds(ctx, idsJson, "RebuildTicketIndexes");
+
+        ChaincodeStub stub = ctx.getStub();
+        int numberOfTickets = 0;
+        Map<String, ObjectNode> stats = ((TicketContext) ctx).getStatsDeltas();
+        TicketBitmaps.Builder bitmaps = config(ctx).isBitmapIndexEnabled() ? new TicketBitmaps.Builder(stub) : null;
 
         try {
-            // Iterate through the query results
-            for (KeyValue result : results) {
-                // Deserialize each ticket from JSON format
-                Ticket ticket = mapper.readValue(result.getStringValue(), Ticket.class);
-                System.out.println("[GetAllTickets] Retrieved ticket: " + ticket);
-                queryResults.add(ticket);
-            }
+            for (String ticketId : ticketIds) {
+                byte[] storedTicket = TicketKeys.read(stub, ticketId);
+                if (storedTicket.length == 0) {
+                    continue;
+                }
 
-            // Serialize the list of tickets to JSON format
-            final String jsonResponse = mapper.writeValueAsString(queryResults);
+                // Only the indexed fields are read, the ticket is not bound
+                Map<String, String> fields = TicketFieldFilter.readFields(
+                        mapper.getFactory(), codecs.toJson(storedTicket), INDEXED_FIELDS);
+                String project = fields.get(TicketFieldFilter.PROJECT_FIELD);
+                String status = fields.get(TicketFieldFilter.STATUS_FIELD);
+                if (status != null && TicketIndexes.hasEntry(stub, TicketIndexes.STATUS_INDEX, status, ticketId)) {
+                    continue;
+                }
 
-            System.out.println("[GetAllTickets] OK: Retrieved " + queryResults.size() + " tickets");
-            return jsonResponse;
+                TicketIndexes.add(stub, ticketId, fields);
+                TicketTerms.add(stub, ticketId, fields.get(TicketFieldFilter.TITLE_FIELD),
+                        fields.get(TicketFieldFilter.DESCRIPTION_FIELD), fields.get(TicketFieldFilter.ASSIGNED_FIELD));
+                if (bitmaps != null) {
+                    bitmaps.add(ticketId, fields);
+                }
 
-        } catch (JsonProcessingException e) {
-            System.out.println("[GetAllTickets] NOK: Error processing JSON");
+                // The counters are written as the delta of this call
+                if (project != null && status != null) {
+                    TicketStats.addTicket(stats.computeIfAbsent(project, p -> mapper.createObjectNode()), status,
+                            Long.parseLong(fields.getOrDefault(TicketFieldFilter.STORY_POINTS_FIELD, "0")));
+                }
+                numberOfTickets++;
+            }
+            if (bitmaps != null) {
+                bitmaps.write();
+            }
+        } catch (IOException e) {
+            TicketLogger.error("RebuildTicketIndexes", "NOK: Error processing JSON");
             return handleJsonProcessingError(e, String.class);
         }
+
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+
+        // Create a JSON response with number of tickets indexed and skipped and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("NumberOfTickets", numberOfTickets);
+        jsonResponseObject.put("NumberOfSkipped", ticketIds.size() - numberOfTickets);
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info("RebuildTicketIndexes", () -> "OK: " + jsonResponse);
+        return jsonResponse;
     }
 
     /**
-     * Retrieves all tickets from the ledger by project.
+     * Finishes the rebuild started by StartTicketIndexRebuild, once every page
+     * of ticket IDs has been given to RebuildTicketIndexes. The text index, and
+     * the bitmap index if it is enabled, are marked as complete, so the queries
+     * use them again.
      *
-     * @param ctx          the transaction context
-     * @param projectIdNum the numeric id of the project to filter tickets by
-     * @return array of tickets found on the ledger for the specified project
+     * @param ctx the transaction context
+     * @return the indexes marked as complete and the timestamp of the operation
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetAllTicketsByProject(final Context ctx, int projectIdNum) {
-
-        System.out.println("[GetAllTicketsByProject] Trying with projectIdNum=" + projectIdNum);
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String FinishTicketIndexRebuild(final Context ctx) {
 
-        ChaincodeStub stub = ctx.getStub();
-        List<Ticket> queryResults = new ArrayList<>();
+        TicketLogger.debug("FinishTicketIndexRebuild", () -> "Trying");
 
-        // Query the ledger for all tickets by specifying a range
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
+        requireAdmin(ctx, "FinishTicketIndexRebuild");
 
-        try {
-            // Iterate through the query results
-            for (KeyValue result : results) {
-                // Deserialize each ticket from JSON format
-                Ticket ticket = mapper.readValue(result.getStringValue(), Ticket.class);
-                // Check if the ticket belongs to the specified project
-                if (ticket.getProjectIdNum() == projectIdNum) {
-                    System.out.println("[GetAllTicketsByProject] Retrieved ticket: " + ticket);
-                    queryResults.add(ticket);
-                }
-            }
+        ChaincodeStub stub = ctx.getStub();
+        boolean bitmapIndex = config(ctx).isBitmapIndexEnabled();
+        TicketIndexes.setRebuilding(stub, false);
+        TicketTerms.setComplete(stub, true);
+        TicketBitmaps.setComplete(stub, bitmapIndex);
 
-            // Serialize the list of tickets to JSON format
-            final String jsonResponse = mapper.writeValueAsString(queryResults);
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
 
-            System.out.println("[GetAllTicketsByProject] OK: Retrieved " + queryResults.size() +
-                    " tickets for projectID=" + projectIdNum);
-            return jsonResponse;
+        // Create a JSON response with the indexes completed and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("TermIndexComplete", true);
+        jsonResponseObject.put("BitmapIndexComplete", bitmapIndex);
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
 
-        } catch (JsonProcessingException e) {
-            // Handle any JSON processing errors
-            System.out.println("[GetAllTicketsByProject] NOK: Error processing JSON");
-            return handleJsonProcessingError(e, String.class);
-        }
+        TicketLogger.info("FinishTicketIndexRebuild", () -> "OK: " + jsonResponse);
+        return jsonResponse;
     }
 
     /**
-     * Retrieves all tickets from the ledger by status.
+     * Moves the comments embedded in a page of tickets to their own keys, as
+     * stored by the current version of the contract.
+     * Intended to be run once on ledgers with tickets written by earlier versions,
+     * after their keys are migrated with MigrateTicketKeys, and refused while
+     * any ticket stored under its bare ID remains. The client gives each page
+     * of ticket IDs listed by GetTicketIdsWithPagination, so each call only
+     * reads its own tickets. Tickets without embedded comments are skipped.
      *
-     * @param ctx    the transaction context
-     * @param status the status to filter tickets by
-     * @return array of tickets found on the ledger with the specified status
+     * @param ctx     the transaction context
+     * @param idsJson JSON array with the IDs of the tickets, at most the
+     *                maximum number of bulk operations
+     * @return the number of tickets and comments migrated and the timestamp of
+     *         the operation
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetAllTicketsByStatus(final Context ctx, String status) {
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String MigrateTicketComments(final Context ctx, final String idsJson) {
 
-        System.out.println("[GetAllTicketsByStatus] Trying with status=" + status);
+        TicketLogger.debug("MigrateTicketComments", () -> "Trying with idsJson=" + idsJson);
 
-        // Validate the status input
-        try {
-            TicketStatus.valueOf(status);
-        } catch (IllegalArgumentException e) {
-            String errorMessage = TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + status;
-            System.out.println("[GetAllTicketsByStatus] NOK: " + errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
-        }
+        requireAdmin(ctx, "MigrateTicketComments");
+
+        Set<String> ticketIds = parseTicketIds(ctx, idsJson, "MigrateTicketComments");
 
         ChaincodeStub stub = ctx.getStub();
-        List<Ticket> queryResults = new ArrayList<>();
-        QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
+        requireKeysMigrated(stub, "MigrateTicketComments");
+
+        int numberOfTickets = 0;
+        int numberOfComments = 0;
 
         try {
-            // Iterate through the query results
-            for (KeyValue result : results) {
-                // Deserialize each ticket from JSON format
-                Ticket ticket = mapper.readValue(result.getStringValue(), Ticket.class);
-                // Check if the ticket status matches the specified status
-                if (ticket.getTicketStatus().name().equals(status)) {
-                    System.out.println("[GetAllTicketsByStatus] Retrieved ticket: " + ticket);
-                    queryResults.add(ticket);
+            for (String ticketId : ticketIds) {
+                byte[] storedTicket = TicketKeys.read(stub, ticketId);
+                if (storedTicket.length == 0) {
+                    continue;
+                }
+                Ticket ticket = codecs.decode(storedTicket);
+                if (ticket.getComments() == null || ticket.getComments().isEmpty()) {
+                    continue;
                 }
-            }
-
-            // Serialize the list of tickets to JSON format
-            final String jsonResponse = mapper.writeValueAsString(queryResults);
 
-            System.out.println("[GetAllTicketsByStatus] OK: Retrieved " + queryResults.size() +
-                    " tickets with status=" + status);
-            return jsonResponse;
+                // Embedded comments keep their order and sort before any newer comment
+                long creationMillis = ticket.getCreationDate().atZone(ZONE)
+                        .toInstant().toEpochMilli();
+                for (int i = 0; i < ticket.getComments().size(); i++) {
+                    TicketComments.add(stub, ticketId, ticket.getComments().get(i), creationMillis, i);
+                }
+                numberOfComments += ticket.getComments().size();
+                numberOfTickets++;
 
-        } catch (JsonProcessingException e) {
-            // Handle any JSON processing errors
-            System.out.println("[GetAllTicketsByStatus] NOK: Error processing JSON");
+                // The indexed fields do not change, so only the ticket is rewritten
+                ticket.setComments(new ArrayList<>());
+                stub.putState(TicketKeys.key(stub, ticketId), codecs.encode(ticket, config(ctx).getStateCodec()));
+            }
+        } catch (IOException e) {
+            TicketLogger.error("MigrateTicketComments", "NOK: Error processing JSON");
             return handleJsonProcessingError(e, String.class);
         }
+
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+
+        // Create a JSON response with number of tickets and comments and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("NumberOfTickets", numberOfTickets);
+        jsonResponseObject.put("NumberOfComments", numberOfComments);
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info("MigrateTicketComments", () -> "OK: " + jsonResponse);
+        return jsonResponse;
     }
 
     /**
-     * Retrieves all tickets from the ledger by the assigned user.
+     * Moves the tickets stored under their bare ID by earlier versions of the
+     * contract to the tickets namespace (ticket~ticketId), so the scans of the
+     * tickets never read other keys. At most maxPerTx tickets are moved by
+     * each call, so it must be called until HasMore is false. The index
+     * entries and the comments refer to the ticket ID and are left as they are.
      *
      * @param ctx      the transaction context
-     * @param assigned the assigned user to filter tickets by
-     * @return array of tickets found on the ledger assigned to the specified user
+     * @param maxPerTx the maximum number of tickets to migrate, up to the
+     *                 maximum number of bulk operations
+     * @return the number of tickets migrated, whether more remain and the
+     *         timestamp of the operation
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetAllTicketsByAssigned(final Context ctx, String assigned) {
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String MigrateTicketKeys(final Context ctx, final int maxPerTx) {
 
-        System.out.println("[GetAllTicketsByAssigned] Trying with assigned=" + assigned);
+        TicketLogger.debug("MigrateTicketKeys", () -> "Trying with maxPerTx=" + maxPerTx);
 
-        // Validate the assigned input
-        if (assigned == null || assigned.trim().isEmpty()) {
-            String errorMessage = TicketError.TICKET_ASSIGNED_EMPTY.getDescription();
-            System.out.println("[GetAllTicketsByAssigned] NOK: " + errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_ASSIGNED_EMPTY.getCodeAndName());
-        }
+        requireAdmin(ctx, "MigrateTicketKeys");
+
+        validatePageSize(maxPerTx, "MigrateTicketKeys");
+        final int limit = Math.min(maxPerTx, config(ctx).getMaxBulkOperations());
 
         ChaincodeStub stub = ctx.getStub();
-        List<Ticket> queryResults = new ArrayList<>();
+        int numberOfTickets = 0;
+        boolean hasMore = false;
+
+        // The range of simple keys skips the composite keys, so only the
+        // tickets not migrated yet are returned
         QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
 
         try {
-            // Iterate through the query results
             for (KeyValue result : results) {
-                // Deserialize each ticket from JSON format
-                Ticket ticket = mapper.readValue(result.getStringValue(), Ticket.class);
-                // Check if the assigned user in ticket matches the specified assigned user
-                if (ticket.getAssigned().contains(assigned)) {
-                    System.out.println("[GetAllTicketsByAssigned] Retrieved ticket: " + ticket);
-                    queryResults.add(ticket);
+                if (numberOfTickets == limit) {
+                    hasMore = true;
+                    break;
                 }
+                stub.putState(TicketKeys.key(stub, result.getKey()), result.getValue());
+                stub.delState(result.getKey());
+                numberOfTickets++;
             }
-
-            // Serialize the list of tickets to JSON format
-            final String jsonResponse = mapper.writeValueAsString(queryResults);
-
-            System.out.println("[GetAllTicketsByAssigned] OK: Retrieved " + queryResults.size() +
-                    " tickets assigned to " + assigned);
-            return jsonResponse;
-
-        } catch (JsonProcessingException e) {
-            // Handle any JSON processing errors
-            System.out.println("[GetAllTicketsByAssigned] NOK: Error processing JSON");
-            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "MigrateTicketKeys");
         }
+
+        return chunkResponse(ctx, numberOfTickets, hasMore, "MigrateTicketKeys");
     }
 
     /**
-     * Retrieves the transaction history for a specific ticket from the ledger.
+     * Moves the CLOSED tickets last modified before a cutoff to the archive,
+     * where they no longer take part in the queries of the active tickets nor
+     * in the stats. At most maxPerTx tickets are moved by each call, so large
+     * ledgers are archived in bounded chunks by calling it until HasMore is
+     * false.
      *
-     * @param ctx      the transaction context
-     * @param ticketId the ID of the ticket to retrieve history for
-     * @return JSON string representing the transaction history
+     * @param ctx       the transaction context
+     * @param olderThan the cutoff (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), empty
+     *                  to archive every CLOSED ticket
+     * @param maxPerTx  the maximum number of tickets to archive, up to the
+     *                  maximum number of bulk operations
+     * @return the number of tickets archived, whether more remain and the
+     *         timestamp of the operation
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String ArchiveClosedTickets(final Context ctx, final String olderThan, final int maxPerTx) {
+
+        TicketLogger.debug("ArchiveClosedTickets", () -> "Trying with olderThan=" + olderThan +
+                " maxPerTx=" + maxPerTx);
+
+        requireAdmin(ctx, "ArchiveClosedTickets");
+
+        validatePageSize(maxPerTx, "ArchiveClosedTickets");
+        final Instant cutoff = parseCutoff(ctx, olderThan, "ArchiveClosedTickets");
+        final int limit = Math.min(maxPerTx, config(ctx).getMaxBulkOperations());
+
+        ChaincodeStub stub = ctx.getStub();
+        int numberOfTickets = 0;
+        boolean hasMore = false;
+
+        // Only the CLOSED tickets are read, through the status index
+        QueryResultsIterator<KeyValue> entries = stub.getStateByPartialCompositeKey(
+                TicketIndexes.partialKey(stub, TicketIndexes.STATUS_INDEX, TicketStatus.CLOSED.name()));
+
+        try {
+            for (KeyValue entry : entries) {
+                String ticketId = TicketIndexes.ticketIdOf(stub, entry.getKey());
+                String storedKey = TicketKeys.storedKey(stub, ticketId);
+                if (storedKey == null) {
+                    continue;
+                }
+                byte[] storedTicket = stub.getState(storedKey);
+                Ticket ticket = codecs.decode(storedTicket);
+                if (!isOlderThan(ticket, cutoff)) {
+                    continue;
+                }
+                if (numberOfTickets == limit) {
+                    hasMore = true;
+                    break;
+                }
+
+                // The stored value is moved as is, its comments keep their keys
+                stub.putState(TicketArchive.key(stub, ticketId), storedTicket);
+                stub.delState(storedKey);
+                onTicketChanged(ctx, ticket, null, TicketOperation.ARCHIVE);
+                numberOfTickets++;
+            }
+        } catch (IOException e) {
+            TicketLogger.error("ArchiveClosedTickets", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(entries, "ArchiveClosedTickets");
+        }
+
+        return chunkResponse(ctx, numberOfTickets, hasMore, "ArchiveClosedTickets");
+    }
+
+    /**
+     * Deletes from the ledger the archived tickets last modified before a
+     * cutoff, with their comments. At most maxPerTx tickets are deleted by
+     * each call, so it must be called until HasMore is false.
+     *
+     * @param ctx       the transaction context
+     * @param olderThan the cutoff (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), empty
+     *                  to purge every archived ticket
+     * @param maxPerTx  the maximum number of tickets to purge, up to the
+     *                  maximum number of bulk operations
+     * @return the number of tickets purged, whether more remain and the
+     *         timestamp of the operation
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String PurgeArchivedTickets(final Context ctx, final String olderThan, final int maxPerTx) {
+
+        TicketLogger.debug("PurgeArchivedTickets", () -> "Trying with olderThan=" + olderThan +
+                " maxPerTx=" + maxPerTx);
+
+        requireAdmin(ctx, "PurgeArchivedTickets");
+
+        validatePageSize(maxPerTx, "PurgeArchivedTickets");
+        final Instant cutoff = parseCutoff(ctx, olderThan, "PurgeArchivedTickets");
+        final int limit = Math.min(maxPerTx, config(ctx).getMaxBulkOperations());
+
+        ChaincodeStub stub = ctx.getStub();
+        int numberOfTickets = 0;
+        boolean hasMore = false;
+
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(TicketArchive.partialKey(stub));
+
+        try {
+            for (KeyValue result : results) {
+                Ticket ticket = codecs.decode(result.getValue());
+                if (!isOlderThan(ticket, cutoff)) {
+                    continue;
+                }
+                if (numberOfTickets == limit) {
+                    hasMore = true;
+                    break;
+                }
+
+                stub.delState(result.getKey());
+                String ticketId = TicketArchive.ticketIdOf(stub, result.getKey());
+                deleteKeys(stub, TicketComments.partialKey(stub, ticketId), "PurgeArchivedTickets");
+                deleteKeys(stub, TicketChangeLog.partialKey(stub, ticketId), "PurgeArchivedTickets");
+                numberOfTickets++;
+            }
+        } catch (IOException e) {
+            TicketLogger.error("PurgeArchivedTickets", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "PurgeArchivedTickets");
+        }
+
+        return chunkResponse(ctx, numberOfTickets, hasMore, "PurgeArchivedTickets");
+    }
+
+    /**
+     * Folds the shards of the stats into the base counters of their project,
+     * so reading the stats of a project takes one read instead of up to
+     * {@value TicketStats#SHARDS} + 1. It also folds the per-transaction
+     * deltas written by earlier versions of the contract, which are not
+     * bounded. It is only maintenance: the stats are correct whether it runs
+     * or not. At most maxPerTx shards are folded by each call, so it must be
+     * called until HasMore is false. A call conflicts with the transactions
+     * that add to one of its shards meanwhile, and can simply be repeated.
+     *
+     * @param ctx      the transaction context
+     * @param maxPerTx the maximum number of shards to fold, up to the maximum
+     *                 number of bulk operations
+     * @return the number of shards folded (NumberOfTickets), whether more
+     *         remain and the timestamp of the operation
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CompactTicketStats(final Context ctx, final int maxPerTx) {
+
+        TicketLogger.debug("CompactTicketStats", () -> "Trying with maxPerTx=" + maxPerTx);
+
+        requireAdmin(ctx, "CompactTicketStats");
+
+        validatePageSize(maxPerTx, "CompactTicketStats");
+        final int limit = Math.min(maxPerTx, config(ctx).getMaxBulkOperations());
+
+        ChaincodeStub stub = ctx.getStub();
+        int numberOfShards = 0;
+        boolean hasMore = false;
+        Map<String, ObjectNode> sums = new TreeMap<>();
+
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(TicketStats.partialKey(stub));
+
+        try {
+            for (KeyValue result : results) {
+                if (TicketStats.isBase(stub, result.getKey())) {
+                    continue;
+                }
+                if (numberOfShards == limit) {
+                    hasMore = true;
+                    break;
+                }
+                TicketStats.add(sums.computeIfAbsent(TicketStats.projectIdOf(stub, result.getKey()),
+                        project -> mapper.createObjectNode()), TicketStats.read(result.getValue()));
+                stub.delState(result.getKey());
+                numberOfShards++;
+            }
+
+            // Add the sums of the shards to the base counters of each project
+            for (Map.Entry<String, ObjectNode> sum : sums.entrySet()) {
+                ObjectNode counters = TicketStats.read(stub.getState(TicketStats.baseKey(stub, sum.getKey())));
+                TicketStats.add(counters, sum.getValue());
+                TicketStats.put(stub, sum.getKey(), counters);
+            }
+        } catch (IOException e) {
+            TicketLogger.error("CompactTicketStats", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "CompactTicketStats");
+        }
+
+        return chunkResponse(ctx, numberOfShards, hasMore, "CompactTicketStats");
+    }
+
+    /**
+     * Changes the configuration of the contract for the whole channel. Only
+     * the given settings change, the rest keep their value. Only the
+     * administrators of an organization can invoke it, as the migrations, the
+     * rebuild of the indexes, the archive and the compaction of the stats.
+     *
+     * The binary codec (StateCodec) only affects the tickets written from then
+     * on, and the tickets it writes can only be read by versions of the
+     * contract that know it, so it must only be chosen once every peer of the
+     * channel runs one of them. Choosing json again does not rewrite them.
+     *
+     * The bitmap index (BitmapIndex) is not kept while it is disabled, so
+     * enabling it on a ledger with tickets, or with tickets changed since it
+     * was disabled, requires rebuilding the indexes, up to
+     * FinishTicketIndexRebuild, before FilterTickets uses it. It also makes
+     * the transactions that open tickets or change their project, status or
+     * assigned user conflict with each other, see {@link TicketBitmaps}.
+     *
+     * @param ctx        the transaction context
+     * @param configJson JSON object with the settings to change: StateCodec
+     *                   ("json" or "binary"), MaxBulkOperations (a positive
+     *                   number), ChangeLog and BitmapIndex (true or false)
+     * @return the new configuration and the timestamp of the operation
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String SetContractConfig(final Context ctx, final String configJson) {
+
+        TicketLogger.debug("SetContractConfig", () -> "Trying with configJson=" + configJson);
+
+        requireAdmin(ctx, "SetContractConfig");
+
+        ChaincodeStub stub = ctx.getStub();
+        ChannelConfig previous = config(ctx);
+        ChannelConfig config;
+        try {
+            config = previous.with(mapper.readTree(configJson));
+        } catch (JsonProcessingException e) {
+            throw configError(e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            throw configError(e.getMessage());
+        }
+
+        // An enabled bitmap index only holds every ticket if none was ever
+        // opened, otherwise it must be rebuilt before it is used
+        if (config.isBitmapIndexEnabled() != previous.isBitmapIndexEnabled()) {
+            TicketBitmaps.setComplete(stub, config.isBitmapIndexEnabled() && TicketBitmaps.isEmpty(stub)
+                    && isEmptyLedger(stub, "SetContractConfig"));
+        }
+
+        config.write(stub);
+        ((TicketContext) ctx).setConfig(config);
+
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+
+        // Create a JSON response with the configuration and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put(ChannelConfig.STATE_CODEC_FIELD, config.getStateCodec());
+        jsonResponseObject.put(ChannelConfig.MAX_BULK_OPERATIONS_FIELD, config.getMaxBulkOperations());
+        jsonResponseObject.put(ChannelConfig.CHANGELOG_FIELD, config.isChangeLogEnabled());
+        jsonResponseObject.put(ChannelConfig.BITMAP_INDEX_FIELD, config.isBitmapIndexEnabled());
+        jsonResponseObject.put("BitmapIndexComplete", TicketBitmaps.isComplete(stub));
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info("SetContractConfig", () -> "OK: " + jsonResponse);
+        return jsonResponse;
+    }
+
+    /************************************************************************/
+    /* EVALUATE TRANSACTIONS METHODS */
+    /************************************************************************/
+
+    /**
+     * Retrieves a ticket from the ledger by its ID.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the ticket to retrieve
+     * @return the ticket object
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public Ticket ReadTicket(final Context ctx, final String ticketId) {
+
+        TicketLogger.debug("ReadTicket", () -> "Trying with ticketId=" + ticketId);
+
+        Ticket ticket = readStoredTicket(ctx, ticketId);
+
+        // Append the comments stored under their own keys
+        mergeComments(ctx, ticket, "ReadTicket");
+
+        TicketLogger.info("ReadTicket", () -> "OK: ticketId=" + ticket.getTicketId() +
+                " status=" + ticket.getTicketStatus());
+        return ticket;
+    }
+
+    /**
+     * Retrieves several tickets from the ledger by their IDs in one
+     * invocation, with their comments. IDs that do not belong to an active
+     * ticket are reported apart instead of failing the transaction.
+     *
+     * @param ctx     the transaction context
+     * @param idsJson JSON array with the IDs of the tickets, at most the
+     *                maximum number of operations of a bulk transaction
+     * @return JSON object with the tickets found, in the order of their first
+     *         ID (records), and the IDs not found (missing)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String ReadTickets(final Context ctx, final String idsJson) {
+
+        TicketLogger.debug("ReadTickets", () -> "Trying with idsJson=" + idsJson);
+
+        // Validate the IDs, reading each of them only once
+        Set<String> ticketIds = parseTicketIds(ctx, idsJson, "ReadTickets");
+
+        ChaincodeStub stub = ctx.getStub();
+        List<String> missing = new ArrayList<>();
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            JsonGenerator generator = stream.getGenerator();
+            generator.writeStartObject();
+            generator.writeFieldName("records");
+            stream.startArray();
+            for (String ticketId : ticketIds) {
+                byte[] storedTicket = TicketKeys.read(stub, ticketId);
+                if (storedTicket.length == 0) {
+                    missing.add(ticketId);
+                    continue;
+                }
+                Ticket ticket = codecs.decode(storedTicket);
+                mergeComments(ctx, ticket, "ReadTickets");
+                stream.writeObject(ticket);
+            }
+            stream.endArray();
+            generator.writeFieldName("missing");
+            stream.startArray();
+            for (String ticketId : missing) {
+                generator.writeString(ticketId);
+            }
+            stream.endArray();
+            generator.writeEndObject();
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("ReadTickets", () -> "OK: Retrieved " + (ticketIds.size() - missing.size()) +
+                    " tickets, " + missing.size() + " missing");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("ReadTickets", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        }
+    }
+
+    /**
+     * Retrieves an archived ticket by its ID.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the archived ticket to retrieve
+     * @return the ticket object
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public Ticket ReadArchivedTicket(final Context ctx, final String ticketId) {
+
+        TicketLogger.debug("ReadArchivedTicket", () -> "Trying with ticketId=" + ticketId);
+
+        Ticket ticket = readStoredTicket(ctx, TicketArchive.key(ctx.getStub(), ticketId), ticketId);
+
+        // Append the comments stored under their own keys
+        mergeComments(ctx, ticket, "ReadArchivedTicket");
+
+        TicketLogger.info("ReadArchivedTicket", () -> "OK: ticketId=" + ticket.getTicketId() +
+                " status=" + ticket.getTicketStatus());
+        return ticket;
+    }
+
+    /**
+     * Retrieves all tickets from the ledger.
+     *
+     * @param ctx the transaction context
+     * @return array of tickets found on the ledger
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTickets(final Context ctx) {
+
+        TicketLogger.debug("GetAllTickets", "Trying with all tickets");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the ledger for all the keys of the tickets namespace
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(TicketKeys.partialKey(stub));
+
+        return streamTickets(stub, results, false, key -> true, null, "GetAllTickets");
+    }
+
+    /**
+     * Retrieves all tickets from the ledger by project.
+     *
+     * @param ctx          the transaction context
+     * @param projectIdNum the numeric id of the project to filter tickets by
+     * @return array of tickets found on the ledger for the specified project
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByProject(final Context ctx, final int projectIdNum) {
+
+        TicketLogger.debug("GetAllTicketsByProject", () -> "Trying with projectIdNum=" + projectIdNum);
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the project index for the tickets of the project
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(
+                TicketIndexes.partialKey(stub, TicketIndexes.PROJECT_INDEX, String.valueOf(projectIdNum)));
+
+        return streamTickets(stub, results, true, key -> true,
+                projectFilter(projectIdNum), "GetAllTicketsByProject");
+    }
+
+    /**
+     * Retrieves all tickets from the ledger by status.
+     *
+     * @param ctx    the transaction context
+     * @param status the status to filter tickets by
+     * @return array of tickets found on the ledger with the specified status
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByStatus(final Context ctx, final String status) {
+
+        TicketLogger.debug("GetAllTicketsByStatus", () -> "Trying with status=" + status);
+
+        // Validate the status input
+        try {
+            TicketStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            String errorMessage = TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + status;
+            TicketLogger.warn("GetAllTicketsByStatus", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the status index for the tickets with the status
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(
+                TicketIndexes.partialKey(stub, TicketIndexes.STATUS_INDEX, status));
+
+        return streamTickets(stub, results, true, key -> true,
+                statusFilter(status), "GetAllTicketsByStatus");
+    }
+
+    /**
+     * Retrieves all tickets from the ledger by the assigned user. Only the
+     * tickets whose assigned user holds every n-gram of the given text are
+     * read, through the text index; texts shorter than an n-gram, or any text
+     * while the text index is not complete, are matched against the keys of
+     * the assigned index instead.
+     *
+     * @param ctx      the transaction context
+     * @param assigned the assigned user to filter tickets by
+     * @return array of tickets found on the ledger assigned to the specified user
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByAssigned(final Context ctx, final String assigned) {
+
+        TicketLogger.debug("GetAllTicketsByAssigned", () -> "Trying with assigned=" + assigned);
+
+        // Validate the assigned input
+        if (assigned == null || assigned.trim().isEmpty()) {
+            String errorMessage = TicketError.TICKET_ASSIGNED_EMPTY.getDescription();
+            TicketLogger.warn("GetAllTicketsByAssigned", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_ASSIGNED_EMPTY.getCodeAndName());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // The n-grams select the candidates, the filter keeps the exact matches
+        Set<String> grams = TicketTerms.grams(assigned);
+        if (!grams.isEmpty() && TicketTerms.isComplete(stub)) {
+            TicketTerms.Intersection matches = TicketTerms.intersect(stub, grams, "");
+            try {
+                TicketJsonStream stream = new TicketJsonStream(mapper);
+                stream.startArray();
+                writeMatchingTickets(stream, stub, matches, 0, assignedFilter(assigned));
+                stream.endArray();
+
+                final String jsonResponse = stream.toJson();
+                TicketLogger.info("GetAllTicketsByAssigned", () -> "OK: Retrieved " + stream.getCount() + " tickets");
+                return jsonResponse;
+
+            } catch (IOException e) {
+                TicketLogger.error("GetAllTicketsByAssigned", "NOK: Error processing JSON");
+                return handleJsonProcessingError(e, String.class);
+            } finally {
+                matches.close();
+            }
+        }
+
+        // Query the whole assigned index, only its keys are read
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(
+                TicketIndexes.partialKey(stub, TicketIndexes.ASSIGNED_INDEX));
+
+        // Only the tickets whose indexed assigned user matches are read
+        return streamTickets(stub, results, true,
+                key -> TicketIndexes.indexedValueOf(stub, key).contains(assigned),
+                assignedFilter(assigned), "GetAllTicketsByAssigned");
+    }
+
+    /**
+     * Retrieves one page of all the tickets from the ledger.
+     *
+     * @param ctx      the transaction context
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+
+        TicketLogger.debug("GetAllTicketsWithPagination", () -> "Trying with pageSize=" + pageSize +
+                " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetAllTicketsWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the ledger for one page of the keys of the tickets namespace
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketKeys.partialKey(stub), pageSize, bookmark);
+
+        return streamTicketsPage(stub, results, false, key -> true, null, "GetAllTicketsWithPagination");
+    }
+
+    /**
+     * Retrieves one page of the IDs of all the active tickets, without reading
+     * the tickets themselves. Used by the clients to give the pages of tickets
+     * to the maintenance transactions, RebuildTicketIndexes and
+     * MigrateTicketComments, so none of them has to scan the ledger.
+     *
+     * @param ctx      the transaction context
+     * @param pageSize the maximum number of IDs to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the ticket IDs (records), the bookmark of the
+     *         next page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketIdsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+
+        TicketLogger.debug("GetTicketIdsWithPagination", () -> "Trying with pageSize=" + pageSize +
+                " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetTicketIdsWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketKeys.partialKey(stub), pageSize, bookmark);
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            for (KeyValue result : results) {
+                stream.writeString(TicketKeys.ticketIdOf(stub, result.getKey()));
+            }
+            stream.endPage(results.getMetadata().getBookmark(), results.getMetadata().getFetchedRecordsCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("GetTicketIdsWithPagination", () -> "OK: Retrieved " + stream.getCount() + " IDs");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("GetTicketIdsWithPagination", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "GetTicketIdsWithPagination");
+        }
+    }
+
+    /**
+     * Retrieves one page of the archived tickets.
+     *
+     * @param ctx      the transaction context
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetArchivedTicketsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+
+        TicketLogger.debug("GetArchivedTicketsWithPagination", () -> "Trying with pageSize=" + pageSize +
+                " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetArchivedTicketsWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the archive for one page of tickets
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketArchive.partialKey(stub), pageSize, bookmark);
+
+        return streamTicketsPage(stub, results, false, key -> true, null, "GetArchivedTicketsWithPagination");
+    }
+
+    /**
+     * Retrieves one page of the tickets from the ledger by project.
+     *
+     * @param ctx          the transaction context
+     * @param projectIdNum the numeric id of the project to filter tickets by
+     * @param pageSize     the maximum number of tickets to retrieve
+     * @param bookmark     the bookmark returned by the previous page, empty for
+     *                     the first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByProjectWithPagination(
+            final Context ctx,
+            final int projectIdNum,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetAllTicketsByProjectWithPagination", () -> "Trying with projectIdNum=" + projectIdNum +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetAllTicketsByProjectWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query one page of the project index for the tickets of the project
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketIndexes.partialKey(stub, TicketIndexes.PROJECT_INDEX, String.valueOf(projectIdNum)),
+                pageSize, bookmark);
+
+        return streamTicketsPage(stub, results, true, key -> true,
+                projectFilter(projectIdNum), "GetAllTicketsByProjectWithPagination");
+    }
+
+    /**
+     * Retrieves one page of the tickets from the ledger by status.
+     *
+     * @param ctx      the transaction context
+     * @param status   the status to filter tickets by
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByStatusWithPagination(
+            final Context ctx,
+            final String status,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetAllTicketsByStatusWithPagination", () -> "Trying with status=" + status +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        // Validate the status input
+        try {
+            TicketStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            String errorMessage = TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + status;
+            TicketLogger.warn("GetAllTicketsByStatusWithPagination", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
+        }
+        validatePageSize(pageSize, "GetAllTicketsByStatusWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query one page of the status index for the tickets with the status
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketIndexes.partialKey(stub, TicketIndexes.STATUS_INDEX, status), pageSize, bookmark);
+
+        return streamTicketsPage(stub, results, true, key -> true,
+                statusFilter(status), "GetAllTicketsByStatusWithPagination");
+    }
+
+    /**
+     * Retrieves one page of the tickets from the ledger by the assigned user.
+     * The page size bounds the index entries read, so a page may hold fewer
+     * tickets than the page size and still be followed by more pages.
+     *
+     * @param ctx      the transaction context
+     * @param assigned the assigned user to filter tickets by
+     * @param pageSize the maximum number of index entries to read
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllTicketsByAssignedWithPagination(
+            final Context ctx,
+            final String assigned,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetAllTicketsByAssignedWithPagination", () -> "Trying with assigned=" + assigned +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        // Validate the assigned input
+        if (assigned == null || assigned.trim().isEmpty()) {
+            String errorMessage = TicketError.TICKET_ASSIGNED_EMPTY.getDescription();
+            TicketLogger.warn("GetAllTicketsByAssignedWithPagination", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_ASSIGNED_EMPTY.getCodeAndName());
+        }
+        validatePageSize(pageSize, "GetAllTicketsByAssignedWithPagination");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query one page of the whole assigned index, only its keys are read
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketIndexes.partialKey(stub, TicketIndexes.ASSIGNED_INDEX), pageSize, bookmark);
+
+        return streamTicketsPage(stub, results, true,
+                key -> TicketIndexes.indexedValueOf(stub, key).contains(assigned),
+                assignedFilter(assigned), "GetAllTicketsByAssignedWithPagination");
+    }
+
+    /**
+     * Retrieves one page of the tickets modified at or after a date, oldest
+     * change first, from the index by last modification date. A client can
+     * keep in sync by asking for the tickets modified since the last date it
+     * has seen, so each sync only reads the tickets that changed. Adding a
+     * comment counts as a modification of the ticket. A ticket is returned
+     * once per page, and again on a later page only if it was commented again.
+     * A ticket deleted or archived since is returned as the record of its
+     * removal, with its ticketId, the instant of the removal (removedDate) and
+     * the kind of removal (operation, DELETE or ARCHIVE). The index is keyed on
+     * instants, so the order of the changes holds when the clocks go back.
+     *
+     * @param ctx      the transaction context
+     * @param since    the earliest modification, an ISO instant such as the
+     *                 removedDate of a record (yyyy-MM-ddTHH:mm:ss.SSSZ) or a
+     *                 local date (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), empty
+     *                 for all the tickets
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketsModifiedSince(
+            final Context ctx,
+            final String since,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetTicketsModifiedSince", () -> "Trying with since=" + since +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        final Instant sinceInstant = parseDateTime(since, "GetTicketsModifiedSince");
+        validatePageSize(pageSize, "GetTicketsModifiedSince");
+
+        return streamTimeRangePage(ctx.getStub(), TicketIndexes.MODIFIED_INDEX, sinceInstant, null, pageSize,
+                bookmark, "GetTicketsModifiedSince");
+    }
+
+    /**
+     * Retrieves one page of the tickets created within a time window, oldest
+     * first, from the index by creation date. Aging reports, such as the
+     * tickets open for more than a week, are a window with no lower bound.
+     *
+     * @param ctx      the transaction context
+     * @param from     the earliest creation date (yyyy-MM-ddTHH:mm:ss,
+     *                 Europe/Madrid), empty for no lower bound
+     * @param to       the creation date the window ends before
+     *                 (yyyy-MM-ddTHH:mm:ss, Europe/Madrid), empty for no upper
+     *                 bound
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark, empty once the window is over) and the number of
+     *         keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketsCreatedBetween(
+            final Context ctx,
+            final String from,
+            final String to,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetTicketsCreatedBetween", () -> "Trying with from=" + from + " to=" + to +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        // Validate the time window and the page size
+        final Instant fromInstant = parseDateTime(from, "GetTicketsCreatedBetween");
+        final Instant toInstant = parseDateTime(to, "GetTicketsCreatedBetween");
+        validatePageSize(pageSize, "GetTicketsCreatedBetween");
+
+        return streamTimeRangePage(ctx.getStub(), TicketIndexes.CREATED_INDEX, fromInstant, toInstant, pageSize,
+                bookmark, "GetTicketsCreatedBetween");
+    }
+
+    /**
+     * Retrieves the k most urgent tickets of a project with a status: the
+     * highest priority first, and the oldest first within a priority. They are
+     * the first k entries of the triage index, so only k tickets are read
+     * however many the project has.
+     *
+     * @param ctx          the transaction context
+     * @param projectIdNum the project ID to filter tickets by
+     * @param status       the status to filter tickets by
+     * @param k            the maximum number of tickets to retrieve
+     * @return array of the most urgent tickets, in triage order
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTopTickets(final Context ctx, final int projectIdNum, final String status, final int k) {
+
+        TicketLogger.debug("GetTopTickets", () -> "Trying with projectIdNum=" + projectIdNum + " status=" + status +
+                " k=" + k);
+
+        // Validate the status and the number of tickets
+        try {
+            TicketStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            String errorMessage = TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + status;
+            TicketLogger.warn("GetTopTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_STATUS.getCodeAndName());
+        }
+        validatePageSize(k, "GetTopTickets");
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Query the first k entries of the triage index for the project and status
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketIndexes.partialKey(stub, TicketIndexes.TRIAGE_INDEX, String.valueOf(projectIdNum), status),
+                k, "");
+
+        return streamTickets(stub, results, true, key -> true, null, "GetTopTickets");
+    }
+
+    /**
+     * Retrieves one page of the active tickets matching a CouchDB rich query.
+     * Only available when the peers use CouchDB as state database and the
+     * tickets are stored as JSON, the indexes shipped in META-INF/statedb/couchdb
+     * are used for selectors on the status, project, assigned user and last
+     * modification date. Archived tickets and tickets not migrated by
+     * MigrateTicketKeys are never returned.
+     *
+     * @param ctx          the transaction context
+     * @param selectorJson a CouchDB selector, or a full query with a selector
+     *                     and optionally sort and use_index
+     * @param pageSize     the maximum number of tickets to retrieve
+     * @param bookmark     the bookmark returned by the previous page, empty for
+     *                     the first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of documents read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String QueryTickets(
+            final Context ctx,
+            final String selectorJson,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("QueryTickets", () -> "Trying with selectorJson=" + selectorJson +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "QueryTickets");
+
+        ChaincodeStub stub = ctx.getStub();
+        String query = buildTicketQuery(stub, selectorJson);
+
+        // Query the state database for one page of tickets
+        QueryResultsIteratorWithMetadata<KeyValue> results;
+        try {
+            results = stub.getQueryResultWithPagination(query, pageSize, bookmark);
+        } catch (RuntimeException e) {
+            String errorMessage = TicketError.TICKET_INVALID_QUERY.getDescription() + ": " + e.getMessage();
+            TicketLogger.warn("QueryTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_QUERY.getCodeAndName());
+        }
+
+        return streamTicketsPage(stub, results, false, key -> true, null, "QueryTickets");
+    }
+
+    /**
+     * Retrieves one page of the tickets matching a text search, through the
+     * text index. Each word of the query must appear in the title or the
+     * description of the ticket, ignoring case and diacritics, and each
+     * assigned:text term must be part of its assigned user (use quotes for
+     * texts with spaces, e.g. assigned:"Pepe Perez"). Only the posting lists of
+     * the query tokens are read, so the cost depends on the number of matches
+     * and not on the size of the ledger. It fails on ledgers with tickets
+     * written before the text index existed until the rebuild of the indexes
+     * is finished by FinishTicketIndexRebuild.
+     *
+     * @param ctx      the transaction context
+     * @param query    the words and assigned:text terms to search for
+     * @param pageSize the maximum number of tickets to retrieve
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of index entries read
+     *         (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String SearchTickets(final Context ctx, final String query, final int pageSize, final String bookmark) {
+
+        TicketLogger.debug("SearchTickets", () -> "Trying with query=" + query + " pageSize=" + pageSize +
+                " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "SearchTickets");
+
+        if (!TicketTerms.isComplete(ctx.getStub())) {
+            String errorMessage = TicketError.TICKET_INDEX_NOT_REBUILT.getDescription() + ": " +
+                    TicketTerms.TERM_INDEX;
+            TicketLogger.warn("SearchTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INDEX_NOT_REBUILT.getCodeAndName());
+        }
+
+        // Split the query into the tokens to look up and the assigned texts to check
+        Set<String> tokens = new TreeSet<>();
+        List<String> assignedTexts = new ArrayList<>();
+        Matcher terms = SEARCH_TERM.matcher(query != null ? query : "");
+        while (terms.find()) {
+            String text = terms.group(2) != null ? terms.group(2) : terms.group(3);
+            if (terms.group(1) == null) {
+                tokens.addAll(TicketTerms.terms(text));
+                continue;
+            }
+            Set<String> grams = TicketTerms.grams(text);
+            if (grams.isEmpty()) {
+                String errorMessage = String.format("%s: assigned text '%s' is shorter than %d characters",
+                        TicketError.TICKET_INVALID_SEARCH.getDescription(), text, TicketTerms.GRAM_LENGTH);
+                TicketLogger.warn("SearchTickets", "NOK: " + errorMessage);
+                throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_SEARCH.getCodeAndName());
+            }
+            tokens.addAll(grams);
+            assignedTexts.add(TicketTerms.normalize(text));
+        }
+        if (tokens.isEmpty()) {
+            String errorMessage = TicketError.TICKET_INVALID_SEARCH.getDescription() + ": " + query;
+            TicketLogger.warn("SearchTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_SEARCH.getCodeAndName());
+        }
+
+        // The n-grams only select candidates, their assigned user is checked
+        TicketFieldFilter rowFilter = assignedTexts.isEmpty() ? null
+                : TicketFieldFilter.matching(mapper.getFactory(), TicketFieldFilter.ASSIGNED_FIELD,
+                        value -> assignedTexts.stream().allMatch(TicketTerms.normalize(value)::contains));
+
+        TicketTerms.Intersection matches = TicketTerms.intersect(ctx.getStub(), tokens, bookmark);
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            String lastTicketId = writeMatchingTickets(stream, ctx.getStub(), matches, pageSize, rowFilter);
+            stream.endPage(lastTicketId, matches.getFetchedCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("SearchTickets", () -> "OK: Retrieved " + stream.getCount() + " tickets");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("SearchTickets", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            matches.close();
+        }
+    }
+
+    /**
+     * Retrieves one page of the tickets matching some criteria on the project,
+     * the status and the assigned user, e.g.
+     * {"projectIdNum":[1,2],"ticketStatus":"OPEN","assigned":["Ana","Pepe"]}.
+     * A ticket must match every field given, and any of the values given for
+     * a field. When the bitmap index is enabled and complete the criteria are
+     * resolved on the bitmaps and only the tickets of the page are read, in the
+     * order they were opened. Otherwise the tickets are scanned in key order
+     * until the page is full.
+     *
+     * @param ctx          the transaction context
+     * @param criteriaJson a JSON object with a value or an array of values for
+     *                     some of projectIdNum, ticketStatus and assigned
+     * @param pageSize     the maximum number of tickets to retrieve
+     * @param offset       the number of matching tickets to skip
+     * @return JSON object with the tickets (records), the offset of the next
+     *         page (bookmark, empty if there are no more tickets) and the
+     *         number of tickets read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String FilterTickets(final Context ctx, final String criteriaJson, final int pageSize, final int offset) {
+
+        TicketLogger.debug("FilterTickets", () -> "Trying with criteriaJson=" + criteriaJson + " pageSize=" +
+                pageSize + " offset=" + offset);
+
+        // Validate the criteria, the page size and the offset
+        Map<String, List<String>> criteria = parseCriteria(criteriaJson, "FilterTickets");
+        validatePageSize(pageSize, "FilterTickets");
+        if (offset < 0) {
+            String errorMessage = TicketError.TICKET_INVALID_PAGE_SIZE.getDescription() + ": offset " + offset;
+            TicketLogger.warn("FilterTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_PAGE_SIZE.getCodeAndName());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            int fetchedCount = config(ctx).isBitmapIndexEnabled() && TicketBitmaps.isComplete(stub)
+                    ? writeFilteredTickets(stream, stub, criteria, pageSize, offset)
+                    : writeScannedTickets(stream, stub, criteria, pageSize, offset);
+            // A full page may be followed by more matching tickets
+            String nextOffset = stream.getCount() == pageSize ? String.valueOf((long) offset + pageSize) : "";
+            stream.endPage(nextOffset, fetchedCount);
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("FilterTickets", () -> "OK: Retrieved " + stream.getCount() + " tickets");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("FilterTickets", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        }
+    }
+
+    /**
+     * Retrieves one page of the comments of a ticket, in the order they were
+     * added. The first page starts with the comments embedded in the ticket by
+     * earlier versions of the contract, if any.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the ticket
+     * @param pageSize the maximum number of comment keys to read
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the comments (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketComments(
+            final Context ctx,
+            final String ticketId,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetTicketComments", () -> "Trying with ticketId=" + ticketId +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetTicketComments");
+
+        ChaincodeStub stub = ctx.getStub();
+        Ticket ticket = readStoredTicket(ctx, ticketId);
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketComments.partialKey(stub, ticketId), pageSize, bookmark);
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            if (bookmark == null || bookmark.isEmpty()) {
+                for (String comment : ticket.getComments()) {
+                    stream.writeString(comment);
+                }
+            }
+            for (KeyValue result : results) {
+                stream.writeString(result.getStringValue());
+            }
+            stream.endPage(results.getMetadata().getBookmark(), results.getMetadata().getFetchedRecordsCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("GetTicketComments", () -> "OK: Retrieved " + stream.getCount() + " comments");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("GetTicketComments", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "GetTicketComments");
+        }
+    }
+
+    /**
+     * Retrieves one page of the timeline of a ticket from its change log,
+     * oldest first. Each record holds the transaction ID, its timestamp, the
+     * operation and either the fields it changed, with their value before and
+     * after the change, or the comment it added. Only the changes made while
+     * the change log was enabled are returned.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the ticket
+     * @param pageSize the maximum number of change log keys to read
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @return JSON object with the timeline (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketChangeLog(
+            final Context ctx,
+            final String ticketId,
+            final int pageSize,
+            final String bookmark) {
+
+        TicketLogger.debug("GetTicketChangeLog", () -> "Trying with ticketId=" + ticketId +
+                " pageSize=" + pageSize + " bookmark=" + bookmark);
+
+        validatePageSize(pageSize, "GetTicketChangeLog");
+
+        ChaincodeStub stub = ctx.getStub();
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketChangeLog.partialKey(stub, ticketId), pageSize, bookmark);
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            for (KeyValue result : results) {
+                ObjectNode entry = TicketChangeLog.read(result.getValue());
+
+                ObjectNode record = mapper.createObjectNode();
+                record.put("txId", TicketChangeLog.txIdOf(stub, result.getKey()));
+                record.put("timestamp", LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(TicketChangeLog.epochMillisOf(stub, result.getKey())),
+                        ZONE).toString());
+                record.set(TicketChangeLog.OPERATION_FIELD, entry.get(TicketChangeLog.OPERATION_FIELD));
+
+                if (entry.has(TicketChangeLog.COMMENT_FIELD)) {
+                    record.set(TicketChangeLog.COMMENT_FIELD, entry.get(TicketChangeLog.COMMENT_FIELD));
+                } else {
+                    // Each record holds the previous value of the fields it
+                    // changed, except when the ticket is opened
+                    ObjectNode changes = record.putObject(TicketChangeLog.CHANGES_FIELD);
+                    JsonNode previous = entry.path(TicketChangeLog.PREVIOUS_FIELD);
+                    for (Map.Entry<String, JsonNode> change : (Iterable<Map.Entry<String, JsonNode>>) entry
+                            .path(TicketChangeLog.CHANGES_FIELD)::fields) {
+                        ObjectNode fieldChange = changes.putObject(change.getKey());
+                        fieldChange.set("from", previous.get(change.getKey()));
+                        fieldChange.set("to", change.getValue());
+                    }
+                }
+                stream.writeObject(record);
+            }
+            stream.endPage(results.getMetadata().getBookmark(), results.getMetadata().getFetchedRecordsCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("GetTicketChangeLog", () -> "OK: Retrieved " + stream.getCount() +
+                    " changes for ticketId=" + ticketId);
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error("GetTicketChangeLog", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "GetTicketChangeLog");
+        }
+    }
+
+    /**
+     * Retrieves the transaction history for a specific ticket from the ledger,
+     * streaming it as it is returned by the peer. Each record holds the transaction ID, its
+     * timestamp, whether it deleted the ticket and the ticket it stored.
+     *
+     * @param ctx       the transaction context
+     * @param ticketId  the ID of the ticket to retrieve history for
+     * @param limit     the maximum number of records to return, 0 for all
+     * @param afterTxId the ID of the transaction to resume after, i.e. the
+     *                  bookmark of the previous call, empty to start from the
+     *                  first record
+     * @param from      the earliest timestamp to return (yyyy-MM-ddTHH:mm:ss,
+     *                  Europe/Madrid), empty for no lower bound
+     * @param to        the latest timestamp to return (yyyy-MM-ddTHH:mm:ss,
+     *                  Europe/Madrid), empty for no upper bound
+     * @return JSON object with the history, newest first (records), the
+     *         transaction ID to resume after (bookmark, empty if there are no
+     *         more records) and the number of history entries read
+     *         (fetchedCount)
+     * @throws ChaincodeException if afterTxId is not in the history of the
+     *                            ticket
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketHistory(
+            final Context ctx,
+            final String ticketId,
+            final int limit,
+            final String afterTxId,
+            final String from,
+            final String to) {
+
+        TicketLogger.debug("GetTicketHistory", () -> "Trying with ticketId=" + ticketId + " limit=" + limit +
+                " afterTxId=" + afterTxId + " from=" + from + " to=" + to);
+
+        // Validate the limit and the time window
+        if (limit < 0) {
+            String errorMessage = TicketError.TICKET_INVALID_PAGE_SIZE.getDescription() + ": " + limit;
+            TicketLogger.warn("GetTicketHistory", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_PAGE_SIZE.getCodeAndName());
+        }
+        final Instant fromInstant = parseDateTime(from, "GetTicketHistory");
+        final Instant toInstant = parseDateTime(to, "GetTicketHistory");
+
+        // The ticket is stored under its namespaced key, and under its bare ID
+        // before it was migrated, so the history of both keys is read in turn
+        // (the legacy history is the oldest)
+        ChaincodeStub stub = ctx.getStub();
+        List<String> historyKeys = Arrays.asList(TicketKeys.key(stub, ticketId), ticketId);
+        boolean resumed = afterTxId == null || afterTxId.isEmpty();
+        String bookmark = "";
+        int fetchedCount = 0;
+
+        QueryResultsIterator<KeyModification> resultsIterator = null;
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+
+            // Stream the records until one more than the limit is found
+            String lastTxId = null;
+            String movedTxId = null;
+            history:
+            for (String historyKey : historyKeys) {
+                // Retrieve the transaction history for the specified ticket ID
+                resultsIterator = stub.getHistoryForKey(historyKey);
+                for (KeyModification km : resultsIterator) {
+                    fetchedCount++;
+                    // The deletion of the legacy key by the migration is already
+                    // returned as the first write of the namespaced key
+                    if (km.isDeleted() && km.getTxId().equals(movedTxId)) {
+                        continue;
+                    }
+                    if (historyKey.equals(historyKeys.get(0))) {
+                        movedTxId = km.getTxId();
+                    }
+                    if (!resumed) {
+                        resumed = km.getTxId().equals(afterTxId);
+                        continue;
+                    }
+                    // The peer returns the newest records first, so the rest are older
+                    Instant timestamp = km.getTimestamp();
+                    if (fromInstant != null && timestamp.isBefore(fromInstant)) {
+                        break history;
+                    }
+                    if (toInstant != null && timestamp.isAfter(toInstant)) {
+                        continue;
+                    }
+                    if (limit > 0 && stream.getCount() == limit) {
+                        bookmark = lastTxId;
+                        break history;
+                    }
+                    stream.writeHistoryRecord(
+                            km.getTxId(),
+                            LocalDateTime.ofInstant(timestamp, ZONE).toString(),
+                            km.isDeleted(),
+                            km.getValue().length > 0
+                                    ? new String(codecs.toJson(km.getValue()), StandardCharsets.UTF_8)
+                                    : null);
+                    lastTxId = km.getTxId();
+                }
+                closeResults(resultsIterator, "GetTicketHistory");
+                resultsIterator = null;
+            }
+
+            // A bookmark that is not in the history would otherwise return an empty page
+            if (!resumed) {
+                String errorMessage = String.format("%s %s: %s",
+                        TicketError.TICKET_HISTORY_BOOKMARK_NOT_FOUND.getDescription(), ticketId, afterTxId);
+                TicketLogger.warn("GetTicketHistory", "NOK: " + errorMessage);
+                throw new ChaincodeException(errorMessage,
+                        TicketError.TICKET_HISTORY_BOOKMARK_NOT_FOUND.getCodeAndName());
+            }
+            stream.endPage(bookmark, fetchedCount);
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info("GetTicketHistory", () -> "OK: Retrieved " + stream.getCount() +
+                    " records of history for ticketId=" + ticketId);
+            return jsonResponse;
+
+        } catch (ChaincodeException e) {
+            throw e;
+        } catch (Exception e) {
+            // Handle any exceptions that occur during history retrieval
+            String errorMessage = String.format("%s %s: %s",
+                    TicketError.TICKET_HISTORY_RETRIEVAL_ERROR.getDescription(),
+                    ticketId, e.getMessage());
+            TicketLogger.warn("GetTicketHistory", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_HISTORY_RETRIEVAL_ERROR.getCodeAndName());
+        } finally {
+            closeResults(resultsIterator, "GetTicketHistory");
+        }
+    }
+
+    /**
+     * Retrieves the number of tickets and the sum of their story points by
+     * status, for one project or for all of them. Only the counters are read,
+     * never the tickets: the base counters and at most
+     * {@value TicketStats#SHARDS} shards of each project, whatever the number
+     * of tickets or of transactions that changed them, plus the deltas of
+     * earlier versions of the contract until CompactTicketStats folds them.
+     *
+     * @param ctx       the transaction context
+     * @param projectId the numeric id of the project, or empty for all projects
+     * @return the totals and the counters by status (and by project, if no
+     *         project is given)
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetTicketStats(final Context ctx, final String projectId) {
+
+        TicketLogger.debug("GetTicketStats", () -> "Trying with projectId=" + projectId);
+
+        final boolean allProjects = projectId == null || projectId.isEmpty();
+
+        // Validate the project input
+        if (!allProjects) {
+            try {
+                Integer.parseInt(projectId);
+            } catch (NumberFormatException e) {
+                String errorMessage = TicketError.TICKET_INVALID_PROJECT.getDescription() + ": " + projectId;
+                TicketLogger.warn("GetTicketStats", "NOK: " + errorMessage);
+                throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_PROJECT.getCodeAndName());
+            }
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+
+        // Sum the base counters and the shards, by project and status
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(allProjects
+                ? TicketStats.partialKey(stub)
+                : TicketStats.partialKey(stub, projectId));
+        ObjectNode total = mapper.createObjectNode();
+        Map<String, ObjectNode> byProject = new TreeMap<>();
+
+        try {
+            for (KeyValue result : results) {
+                ObjectNode shard = TicketStats.read(result.getValue());
+                TicketStats.add(total, shard);
+                TicketStats.add(byProject.computeIfAbsent(TicketStats.projectIdOf(stub, result.getKey()),
+                        project -> mapper.createObjectNode()), shard);
+            }
+        } catch (IOException e) {
+            TicketLogger.error("GetTicketStats", "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, "GetTicketStats");
+        }
+
+        // Create a JSON response with the totals and the counters by status
+        JSONObject jsonResponseObject = statsToJson(total);
+        jsonResponseObject.put("ProjectId", allProjects ? "" : projectId);
+        if (allProjects) {
+            JSONObject projects = new JSONObject();
+            for (Map.Entry<String, ObjectNode> projectStats : byProject.entrySet()) {
+                projects.put(projectStats.getKey(), statsToJson(projectStats.getValue()));
+            }
+            jsonResponseObject.put("ByProject", projects);
+        }
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info("GetTicketStats", () -> "OK: " + jsonResponse);
+        return jsonResponse;
+    }
+
+    /**
+     * Retrieves the configuration of the contract for the channel, as set by
+     * SetContractConfig, or the default one if it was never set.
+     *
+     * @param ctx the transaction context
+     * @return the settings of the contract, by name
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetContractConfig(final Context ctx) {
+
+        TicketLogger.debug("GetContractConfig", "Trying");
+
+        final String jsonResponse = config(ctx).toJson().toString();
+
+        TicketLogger.info("GetContractConfig", () -> "OK: " + jsonResponse);
+        return jsonResponse;
+    }
+
+    /**
+     * Retrieves the metrics of the transactions served by the chaincode
+     * process of the peer that evaluates it, by function, since the process
+     * started. Durations are in microseconds and sizes in bytes. Each peer has
+     * its own metrics, so it must never be submitted.
+     *
+     * @param ctx the transaction context
+     * @return whether the metrics are collected (Enabled, false unless
+     *         TICKET_METRICS is set), the start of the collection (Since) and,
+     *         by function, the histograms of the transaction duration, the time
+     *         spent in the shim and in the final flush of the writes, the shim
+     *         calls, the bytes read and written and the rows read from queries
+     *         per transaction, and the time spent in each kind of shim call per
+     *         transaction
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
-    public String GetTicketHistory(Context ctx, String ticketId) {
+    public String GetContractMetrics(final Context ctx) {
+
+        TicketLogger.debug("GetContractMetrics", "Trying");
+
+        Map<String, FunctionMetrics> byFunction = ContractMetrics.getFunctions();
+        JSONObject functions = new JSONObject();
+        for (Map.Entry<String, FunctionMetrics> function : byFunction.entrySet()) {
+            FunctionMetrics metrics = function.getValue();
+            JSONObject calls = new JSONObject();
+            for (Map.Entry<String, LatencyHistogram> call : metrics.getCalls().entrySet()) {
+                calls.put(call.getKey(), call.getValue().toJson(1000));
+            }
+
+            JSONObject functionMetrics = new JSONObject();
+            functionMetrics.put("Duration", metrics.getDuration().toJson(1000));
+            functionMetrics.put("StubTime", metrics.getStubTime().toJson(1000));
+            functionMetrics.put("FlushTime", metrics.getFlushTime().toJson(1000));
+            functionMetrics.put("ShimCalls", metrics.getShimCalls().toJson(1));
+            functionMetrics.put("BytesRead", metrics.getBytesRead().toJson(1));
+            functionMetrics.put("BytesWritten", metrics.getBytesWritten().toJson(1));
+            functionMetrics.put("RowsRead", metrics.getRowsRead().toJson(1));
+            functionMetrics.put("Calls", calls);
+            functions.put(function.getKey(), functionMetrics);
+        }
+
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("Enabled", ContractConfig.isMetricsEnabled());
+        jsonResponseObject.put("Since",
+                LocalDateTime.ofInstant(ContractMetrics.getStarted(), ZONE).toString());
+        jsonResponseObject.put("Functions", functions);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info("GetContractMetrics", () -> "OK: Retrieved metrics of " + byFunction.size() + " functions");
+        return jsonResponse;
+    }
+
+    /************************************************************************/
+    /* PRIVATE METHODS */
+    /************************************************************************/
+
+    /**
+     * Parses the operations of a bulk transaction.
+     *
+     * @param ctx  the transaction context
+     * @param json JSON array with the operations
+     * @param tag  the name of the transaction, for logging
+     * @return the array of operations
+     */
+    private JsonNode parseBulkItems(final Context ctx, final String json, final String tag) {
+        final int maxOperations = config(ctx).getMaxBulkOperations();
+        String errorMessage;
+        try {
+            JsonNode items = mapper.readTree(json);
+            if (items != null && items.isArray() && !items.isEmpty() && items.size() <= maxOperations) {
+                return items;
+            }
+            errorMessage = String.format(
+                    "%s: expected a JSON array of 1 to %d operations",
+                    TicketError.TICKET_BULK_INVALID.getDescription(), maxOperations);
+        } catch (JsonProcessingException e) {
+            errorMessage = TicketError.TICKET_BULK_INVALID.getDescription() + ": " + e.getOriginalMessage();
+        }
+        TicketLogger.warn(tag, "NOK: " + errorMessage);
+        throw new ChaincodeException(errorMessage, TicketError.TICKET_BULK_INVALID.getCodeAndName());
+    }
+
+    /**
+     * Parses a JSON array of ticket IDs, as given to the transactions on
+     * several tickets.
+     *
+     * @param ctx     the transaction context
+     * @param idsJson the JSON array of IDs
+     * @param tag     the name of the transaction, for logging
+     * @return the IDs without duplicates, in the order of their first
+     *         occurrence
+     * @throws ChaincodeException if the array is not valid or too long, or an
+     *                            ID is not a non-empty string
+     */
+    private Set<String> parseTicketIds(final Context ctx, final String idsJson, final String tag) {
+        Set<String> ticketIds = new LinkedHashSet<>();
+        for (JsonNode id : parseBulkItems(ctx, idsJson, tag)) {
+            if (!id.isTextual() || id.asText().isEmpty()) {
+                String errorMessage = TicketError.TICKET_BULK_INVALID.getDescription() +
+                        ": ticket IDs must be non-empty strings";
+                TicketLogger.warn(tag, "NOK: " + errorMessage);
+                throw new ChaincodeException(errorMessage, TicketError.TICKET_BULK_INVALID.getCodeAndName());
+            }
+            ticketIds.add(id.asText());
+        }
+        return ticketIds;
+    }
+
+    /**
+     * Builds the error of an invalid configuration of the contract.
+     *
+     * @param reason why the configuration is not valid
+     * @return the exception to throw
+     */
+    private ChaincodeException configError(final String reason) {
+        String errorMessage = TicketError.TICKET_INVALID_CONFIG.getDescription() + ": " + reason;
+        TicketLogger.warn("SetContractConfig", "NOK: " + errorMessage);
+        return new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_CONFIG.getCodeAndName());
+    }
+
+    /**
+     * Reads a text field of a bulk operation that cannot be missing nor empty.
+     */
+    private String requiredText(final JsonNode item, final String field) {
+        String value = optionalText(item, field);
+        if (value.trim().isEmpty()) {
+            String errorMessage = String.format("Field %s is required", field);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_BULK_INVALID.getCodeAndName());
+        }
+        return value;
+    }
+
+    /**
+     * Reads a number field of a bulk operation that cannot be missing and must
+     * be an integer.
+     */
+    private int requiredInt(final JsonNode item, final String field) {
+        JsonNode value = item.get(field);
+        if (value == null || !value.isIntegralNumber() || !value.canConvertToInt()) {
+            String errorMessage = String.format("Field %s must be an integer", field);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_BULK_INVALID.getCodeAndName());
+        }
+        return value.asInt();
+    }
+
+    /**
+     * Reads a text field of a bulk operation, empty if it is missing.
+     */
+    private String optionalText(final JsonNode item, final String field) {
+        JsonNode value = item.get(field);
+        return value == null || value.isNull() ? "" : value.asText();
+    }
+
+    /**
+     * Builds the result of a bulk operation that succeeded.
+     */
+    private JSONObject bulkResult(final int index, final Ticket ticket) {
+        JSONObject result = new JSONObject();
+        result.put("Index", index);
+        result.put("TicketId", ticket.getTicketId());
+        result.put("TicketStatus", ticket.getTicketStatus().name());
+        return result;
+    }
+
+    /**
+     * Builds the response of a transaction that changed a ticket: the whole
+     * ticket or, if the client set the slim response mode in the transient map,
+     * only its ID, status, last modification date and version. Proposal
+     * responses are stored in the block, so the slim mode keeps the description
+     * and the comments out of it.
+     */
+    private String ticketResponse(final Context ctx, final Ticket ticket, final String tag) {
+        byte[] responseMode = ctx.getStub().getTransient().get(RESPONSE_MODE_KEY);
+        boolean slim = responseMode != null
+                && SLIM_RESPONSE_MODE.equals(new String(responseMode, StandardCharsets.UTF_8));
+
+        try {
+            if (slim) {
+                return summaryWriter.writeValueAsString(new TicketSummary(
+                        ticket.getTicketId(),
+                        ticket.getTicketStatus(),
+                        ticket.getLastModifiedDate(),
+                        ctx.getStub().getTxId()));
+            }
+            return ticketWriter.writeValueAsString(ticket);
+        } catch (JsonProcessingException e) {
+            TicketLogger.error(tag, "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        }
+    }
+
+    /**
+     * Builds the result of a bulk operation that failed.
+     */
+    private JSONObject bulkError(final int index, final ChaincodeException e) {
+        JSONObject error = new JSONObject();
+        error.put("Index", index);
+        error.put("Error", e.getMessage());
+        return error;
+    }
+
+    /**
+     * Builds the response of a bulk transaction, or fails the whole transaction
+     * with the errors of its operations if any of them failed.
+     *
+     * @param ctx     the transaction context
+     * @param results the results of the operations that succeeded
+     * @param errors  the errors of the operations that failed
+     * @param tag     the name of the transaction, for logging
+     * @return the number of operations, their results and the timestamp
+     */
+    private String bulkResponse(final Context ctx, final JSONArray results, final JSONArray errors,
+            final String tag) {
+
+        if (errors.length() > 0) {
+            String errorMessage = TicketError.TICKET_BULK_FAILED.getDescription() + ": " + errors;
+            TicketLogger.warn(tag, "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_BULK_FAILED.getCodeAndName());
+        }
+
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+
+        // Create a JSON response with number of tickets, results and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("NumberOfTickets", results.length());
+        jsonResponseObject.put("Results", results);
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info(tag, () -> "OK: " + jsonResponse);
+        return jsonResponse;
+    }
+
+    /**
+     * Reads a ticket as stored on the ledger, without the comments stored
+     * under their own keys.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the ticket
+     * @return the stored ticket
+     */
+    private Ticket readStoredTicket(final Context ctx, final String ticketId) {
+        String storedKey = TicketKeys.storedKey(ctx.getStub(), ticketId);
+        return readStoredTicket(ctx, storedKey != null ? storedKey : TicketKeys.key(ctx.getStub(), ticketId),
+                ticketId);
+    }
+
+    /**
+     * Reads and decodes a ticket stored under the given key, such as the key
+     * of an archived ticket.
+     *
+     * @param ctx      the transaction context
+     * @param key      the key the ticket is stored under
+     * @param ticketId the ID of the ticket
+     * @return the ticket object
+     */
+    private Ticket readStoredTicket(final Context ctx, final String key, final String ticketId) {
+
+        byte[] storedTicket = ctx.getStub().getState(key);
+
+        // Check if the ticket exists
+        if (storedTicket == null || storedTicket.length == 0) {
+            String errorMessage = String.format(
+                    "Ticket %s does not exist",
+                    ticketId);
+            TicketLogger.warn("ReadTicket", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_NOT_FOUND.getCodeAndName());
+        }
+
+        try {
+            // Decode the stored value, whatever its format, to a Ticket object
+            return codecs.decode(storedTicket);
+
+        } catch (IOException e) {
+            TicketLogger.error("ReadTicket", "NOK: Error processing JSON");
+            // Handle JSON processing errors
+            return handleJsonProcessingError(e, Ticket.class);
+        }
+    }
+
+    /**
+     * Appends the comments stored under their own keys to a ticket. Adding a
+     * comment counts as a modification of the ticket.
+     *
+     * @param ctx    the transaction context
+     * @param ticket the ticket read from the ledger
+     * @param tag    the name of the transaction, for logging
+     */
+    private void mergeComments(final Context ctx, final Ticket ticket, final String tag) {
+
+        ChaincodeStub stub = ctx.getStub();
+        QueryResultsIterator<KeyValue> comments = stub.getStateByPartialCompositeKey(
+                TicketComments.partialKey(stub, ticket.getTicketId()));
+        try {
+            for (KeyValue comment : comments) {
+                ticket.getComments().add(comment.getStringValue());
+
+                LocalDateTime commentDate = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(TicketComments.epochMillisOf(stub, comment.getKey())),
+                        ZONE);
+                if (commentDate.isAfter(ticket.getLastModifiedDate())) {
+                    ticket.setLastModifiedDate(commentDate);
+                }
+            }
+        } finally {
+            closeResults(comments, tag);
+        }
+    }
+
+    /**
+     * Deletes the keys of a ticket stored under a composite key, such as its
+     * comments or its change log.
+     *
+     * @param stub       the chaincode stub
+     * @param partialKey the partial composite key that selects the keys
+     * @param tag        the name of the transaction, for logging
+     */
+    private void deleteKeys(final ChaincodeStub stub, final CompositeKey partialKey, final String tag) {
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(partialKey);
+        try {
+            for (KeyValue result : results) {
+                stub.delState(result.getKey());
+            }
+        } finally {
+            closeResults(results, tag);
+        }
+    }
+
+    /**
+     * Checks that no ticket is stored under its bare ID anymore, as left by
+     * earlier versions of the contract until MigrateTicketKeys moves it.
+     *
+     * @param stub the chaincode stub
+     * @param tag  the name of the transaction, for logging
+     * @throws ChaincodeException if some ticket has not been migrated
+     */
+    private void requireKeysMigrated(final ChaincodeStub stub, final String tag) {
+        // The range of simple keys skips the composite keys, so it only
+        // returns the tickets not migrated yet
+        if (!isEmpty(stub.getStateByRange("", ""), tag)) {
+            String errorMessage = TicketError.TICKET_KEYS_NOT_MIGRATED.getDescription();
+            TicketLogger.warn(tag, "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_KEYS_NOT_MIGRATED.getCodeAndName());
+        }
+    }
+
+    /**
+     * Checks that the indexes are not being rebuilt, as a change of a ticket
+     * between StartTicketIndexRebuild and FinishTicketIndexRebuild could be
+     * deleted by the rebuild or counted twice in the stats.
+     *
+     * @param stub the chaincode stub
+     * @throws ChaincodeException if a rebuild is in progress
+     */
+    private void requireNoIndexRebuild(final ChaincodeStub stub) {
+        if (TicketIndexes.isRebuilding(stub)) {
+            String errorMessage = TicketError.TICKET_INDEX_REBUILDING.getDescription();
+            TicketLogger.warn(stub.getFunction(), "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INDEX_REBUILDING.getCodeAndName());
+        }
+    }
+
+    /**
+     * Checks that the client is an administrator of its organization: its
+     * certificate has the admin role (OU=admin, with the NodeOUs of the MSP
+     * enabled) or the ticketing.admin=true attribute given by Fabric CA.
+     *
+     * @param ctx the transaction context
+     * @param tag the name of the transaction, for logging
+     * @throws ChaincodeException if the client is not an administrator
+     */
+    private void requireAdmin(final Context ctx, final String tag) {
+        ClientIdentity client = ctx.getClientIdentity();
+        if (!"true".equals(client.getAttributeValue(ADMIN_ATTRIBUTE)) && !hasAdminRole(client)) {
+            String errorMessage = TicketError.TICKET_NOT_ADMIN.getDescription();
+            TicketLogger.warn(tag, "NOK: " + errorMessage + " (" + client.getMSPID() + ")");
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_NOT_ADMIN.getCodeAndName());
+        }
+    }
 
-        System.out.println("[GetTicketHistory] Trying with ticketId=" + ticketId);
+    /**
+     * @return whether the certificate of the client has the admin role of the
+     *         NodeOUs of its MSP
+     */
+    private static boolean hasAdminRole(final ClientIdentity client) {
+        try {
+            for (Rdn rdn : new LdapName(client.getX509Certificate().getSubjectX500Principal().getName()).getRdns()) {
+                if ("OU".equalsIgnoreCase(rdn.getType()) && ADMIN_ROLE.equalsIgnoreCase(rdn.getValue().toString())) {
+                    return true;
+                }
+            }
+        } catch (InvalidNameException e) {
+            TicketLogger.warn("TicketingSystemContract", "NOK: Invalid subject of the client certificate");
+        }
+        return false;
+    }
 
-        // Retrieve the transaction history for the specified ticket ID
-        QueryResultsIterator<KeyModification> resultsIterator = ctx.getStub().getHistoryForKey(ticketId);
-        List<String> history = new ArrayList<>();
+    /**
+     * Tells whether the ledger holds no ticket, migrated or not.
+     *
+     * @param stub the chaincode stub
+     * @param tag  the name of the transaction, for logging
+     * @return true if there are no tickets
+     */
+    private boolean isEmptyLedger(final ChaincodeStub stub, final String tag) {
+        return isEmpty(stub.getStateByPartialCompositeKey(TicketKeys.partialKey(stub)), tag)
+                && isEmpty(stub.getStateByRange("", ""), tag);
+    }
 
+    /**
+     * Tells whether a query returns no keys, closing it.
+     *
+     * @param results the results of the query
+     * @param tag     the name of the transaction, for logging
+     * @return true if there are no results
+     */
+    private boolean isEmpty(final QueryResultsIterator<KeyValue> results, final String tag) {
         try {
-            // Iterate through the transaction history results
-            for (KeyModification km : resultsIterator) {
-                // Build a record for each transaction
-                StringBuilder record = new StringBuilder();
-                record.append("TransactionID: ").append(km.getTxId());
-                record.append(", Timestamp: ").append(km.getTimestamp());
-                record.append(", IsDeleted: ").append(km.isDeleted());
-                record.append(", Value: ").append(new String(km.getValue()));
+            return !results.iterator().hasNext();
+        } finally {
+            closeResults(results, tag);
+        }
+    }
+
+    /**
+     * Deletes the entries of the indexes and the stats, for rebuilding them.
+     * The index by last modification date is kept, as its entries of comments
+     * and removals cannot be derived from the tickets; the entries of the
+     * tickets are added again and readers skip the ones left behind. The time
+     * indexes of earlier versions are deleted.
+     *
+     * @param stub    the chaincode stub
+     * @param maxKeys the maximum number of keys to delete
+     * @return true if every key was deleted, false if some remain
+     */
+    private boolean deleteIndexKeys(final ChaincodeStub stub, final int maxKeys) {
+        List<CompositeKey> partialKeys = new ArrayList<>();
+        for (String index : TicketIndexes.ALL_INDEXES) {
+            if (!TicketIndexes.MODIFIED_INDEX.equals(index)) {
+                partialKeys.add(TicketIndexes.partialKey(stub, index));
+            }
+        }
+        for (String index : TicketIndexes.LEGACY_INDEXES) {
+            partialKeys.add(TicketIndexes.partialKey(stub, index));
+        }
+        partialKeys.add(stub.createCompositeKey(TicketTerms.TERM_INDEX));
+        partialKeys.add(TicketStats.partialKey(stub));
+        for (String bitmapKey : TicketBitmaps.ALL_KEYS) {
+            partialKeys.add(stub.createCompositeKey(bitmapKey));
+        }
+
+        int numberOfKeys = 0;
+        for (CompositeKey partialKey : partialKeys) {
+            QueryResultsIterator<KeyValue> entries = stub.getStateByPartialCompositeKey(partialKey);
+            try {
+                for (KeyValue entry : entries) {
+                    if (numberOfKeys == maxKeys) {
+                        return false;
+                    }
+                    stub.delState(entry.getKey());
+                    numberOfKeys++;
+                }
+            } finally {
+                closeResults(entries, "StartTicketIndexRebuild");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores a new comment of a ticket under its own key, without reading nor
+     * rewriting the ticket.
+     *
+     * @param ctx      the transaction context
+     * @param ticketId the ID of the ticket
+     * @param comment  the text of the comment
+     */
+    private void addComment(final Context ctx, final String ticketId, final String comment) {
+        requireNoIndexRebuild(ctx.getStub());
+
+        // Several comments of the same ticket in one transaction get their own keys
+        int sequence = nextSequence(ctx, "comment:" + ticketId);
+        TicketComments.add(ctx.getStub(), ticketId, comment,
+                ctx.getStub().getTxTimestamp().toEpochMilli(), sequence);
+
+        if (config(ctx).isChangeLogEnabled()) {
+            try {
+                TicketChangeLog.addComment(ctx.getStub(), ticketId, comment,
+                        ctx.getStub().getTxTimestamp().toEpochMilli(), nextSequence(ctx, "changelog:" + ticketId));
+            } catch (IOException e) {
+                handleJsonProcessingError(e, String.class);
+            }
+        }
+    }
+
+    /**
+     * Updates the secondary indexes, the text index and the stats after a
+     * change of a ticket, and records the change for the event of the
+     * transaction.
+     *
+     * @param ctx      the transaction context
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it was deleted
+     * @throws IOException if the stats cannot be read or written
+     */
+    private void onTicketChanged(final Context ctx, final Ticket previous, final Ticket current)
+            throws IOException {
+        TicketOperation operation = previous == null ? TicketOperation.OPEN
+                : current == null ? TicketOperation.DELETE : TicketOperation.UPDATE;
+        onTicketChanged(ctx, previous, current, operation);
+    }
+
+    /**
+     * Updates the secondary indexes, the text index, the stats and, if
+     * enabled, the bitmap index after a change of a ticket, records the change
+     * for the event of the transaction and, if enabled, in the change log of
+     * the ticket.
+     *
+     * @param ctx       the transaction context
+     * @param previous  the ticket before the change, or null if it is new
+     * @param current   the ticket after the change, or null if it left the
+     *                  active tickets
+     * @param operation the kind of operation
+     * @throws IOException if the stats cannot be read or written
+     */
+    private void onTicketChanged(final Context ctx, final Ticket previous, final Ticket current,
+            final TicketOperation operation) throws IOException {
+        ChaincodeStub stub = ctx.getStub();
+        requireNoIndexRebuild(stub);
 
-                // Add the transaction record to the history list
-                history.add(record.toString());
-            }
-        } catch (Exception e) {
-            // Handle any exceptions that occur during history retrieval
-            String errorMessage = String.format("%s %s: %s",
-                    TicketError.TICKET_HISTORY_RETRIEVAL_ERROR.getDescription(),
-                    ticketId, e.getMessage());
-            System.out.println("[GetTicketHistory] NOK: " + errorMessage);
-            throw new ChaincodeException(errorMessage, TicketError.TICKET_HISTORY_RETRIEVAL_ERROR.getCodeAndName());
-        } finally {
-            try {
-                // Close the results iterator after use
-                if (resultsIterator != null) {
-                    resultsIterator.close();
-                }
-            } catch (Exception e) {
-                // errors that occur while closing the results iterator
-                System.out.println("[GetTicketHistory] Error closing results iterator: " + e.getMessage());
-            }
+        TicketIndexes.update(stub, previous, current);
+        if (current == null) {
+            TicketIndexes.addRemoval(stub, previous.getTicketId(), operation);
+        }
+        TicketTerms.update(stub, previous, current);
+        TicketStats.addChange(((TicketContext) ctx).getStatsDeltas(), previous, current);
+        if (config(ctx).isBitmapIndexEnabled()) {
+            TicketBitmaps.update(stub, previous, current);
         }
 
-        try {
-            // Convert the history list to JSON format
-            final String jsonResponse = mapper.writeValueAsString(history);
-            System.out.println("[GetTicketHistory] OK: Retrieved history for ticketId=" + ticketId);
-            return jsonResponse;
+        if (config(ctx).isChangeLogEnabled()) {
+            String ticketId = current != null ? current.getTicketId() : previous.getTicketId();
+            TicketChangeLog.add(stub, previous, current, operation,
+                    stub.getTxTimestamp().toEpochMilli(), nextSequence(ctx, "changelog:" + ticketId));
+        }
 
-        } catch (JsonProcessingException e) {
-            // Handle any JSON processing errors
-            System.out.println("[GetTicketHistory] NOK: Error processing JSON");
-            return handleJsonProcessingError(e, String.class);
+        if (current == null) {
+            recordChange(ctx, previous.getTicketId(), null, getCurrentLocalDateTime(ctx), operation);
+        } else {
+            recordChange(ctx, current.getTicketId(), current.getTicketStatus(), current.getLastModifiedDate(),
+                    operation);
         }
     }
 
-    /************************************************************************/
-    /* PRIVATE METHODS */
-    /************************************************************************/
+    /**
+     * Records a change of a ticket, sent in the TicketChanged event once the
+     * transaction has finished.
+     *
+     * @param ctx              the transaction context
+     * @param ticketId         the ID of the changed ticket
+     * @param ticketStatus     the status of the ticket after the change
+     * @param lastModifiedDate the date and time of the change
+     * @param operation        the kind of operation
+     */
+    private void recordChange(final Context ctx, final String ticketId, final TicketStatus ticketStatus,
+            final LocalDateTime lastModifiedDate, final TicketOperation operation) {
+        ((TicketContext) ctx).addChange(new TicketChange(ticketId, ticketStatus, lastModifiedDate, operation));
+    }
 
     /**
-     * Checks the existence of the ticket on the ledger
+     * Converts the counters by status of the stats to the JSON of a response,
+     * with their totals.
      *
-     * @param ctx      the transaction context
-     * @param ticketId the ID of the ticket
-     * @return boolean indicating the existence of the ticket
+     * @param counters the counters by status
+     * @return the totals and the counters by status
      */
-    @Transaction(intent = Transaction.TYPE.EVALUATE)
-    private boolean ticketExists(final Context ctx, final String ticketId) {
-        ChaincodeStub stub = ctx.getStub();
-        String jsonTicket = stub.getStringState(ticketId);
-        return (jsonTicket != null && !jsonTicket.isEmpty());
+    private JSONObject statsToJson(final ObjectNode counters) {
+        long numberOfTickets = 0;
+        long storyPoints = 0;
+        JSONObject byStatus = new JSONObject();
+
+        for (Map.Entry<String, JsonNode> status : (Iterable<Map.Entry<String, JsonNode>>) counters::fields) {
+            long statusTickets = status.getValue().path(TicketStats.COUNT_FIELD).asLong();
+            long statusStoryPoints = status.getValue().path(TicketStats.STORY_POINTS_FIELD).asLong();
+            if (statusTickets == 0 && statusStoryPoints == 0) {
+                continue;
+            }
+            JSONObject statusStats = new JSONObject();
+            statusStats.put("NumberOfTickets", statusTickets);
+            statusStats.put("StoryPoints", statusStoryPoints);
+            byStatus.put(status.getKey(), statusStats);
+            numberOfTickets += statusTickets;
+            storyPoints += statusStoryPoints;
+        }
+
+        JSONObject stats = new JSONObject();
+        stats.put("NumberOfTickets", numberOfTickets);
+        stats.put("StoryPoints", storyPoints);
+        stats.put("ByStatus", byStatus);
+        return stats;
     }
 
     /**
@@ -725,70 +2959,698 @@ public final class TicketingSystemContract implements ContractInterface {
         ChaincodeStub stub = ctx.getStub();
 
         // Check if the ticket exists before updating
-        if (!ticketExists(ctx, ticket.getTicketId())) {
+        String storedKey = TicketKeys.storedKey(stub, ticket.getTicketId());
+        if (storedKey == null) {
             String errorMessage = String.format("Ticket %s does not exist", ticket.getTicketId());
             throw new ChaincodeException(errorMessage, TicketError.TICKET_NOT_FOUND.getCodeAndName());
         }
 
         try {
-            // Serialize the updated ticket object to JSON and update the ledger
-            String jsonTicket = mapper.writeValueAsString(ticket);
-            stub.putStringState(ticket.getTicketId(), jsonTicket);
+            // Keep the stored version of the ticket to update its index entries
+            Ticket previousTicket = codecs.decode(stub.getState(storedKey));
+
+            // Encode the updated ticket object and update the ledger, moving it
+            // out of its legacy key if it was not migrated yet
+            TicketKeys.write(stub, ticket.getTicketId(), storedKey,
+                    codecs.encode(ticket, config(ctx).getStateCodec()));
+            onTicketChanged(ctx, previousTicket, ticket);
             return ticket;
 
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             // Handle any JSON processing errors
             return handleJsonProcessingError(e, Ticket.class);
         }
     }
 
     /**
-     * Generates the ticket ID based on the channel name and the last ticket ID
-     * number.
-     * 
+     * Writes the tickets of the query results as a JSON array, closing the
+     * results once they are consumed.
+     *
+     * @param stub      the chaincode stub
+     * @param results   the query results
+     * @param indexed   whether the results are index entries or tickets
+     * @param keyFilter the condition the key of a result must meet to be returned
+     * @param rowFilter the condition the ticket must meet to be returned, or
+     *                  null to return every ticket
+     * @param tag       the name of the transaction, for logging
+     * @return array of tickets
+     */
+    private <R extends Iterable<KeyValue> & AutoCloseable> String streamTickets(
+            final ChaincodeStub stub,
+            final R results,
+            final boolean indexed,
+            final Predicate<String> keyFilter,
+            final TicketFieldFilter rowFilter,
+            final String tag) {
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startArray();
+            writeTickets(stream, stub, results, indexed, keyFilter, rowFilter);
+            stream.endArray();
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info(tag, () -> "OK: Retrieved " + stream.getCount() + " tickets");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error(tag, "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, tag);
+        }
+    }
+
+    /**
+     * Writes the tickets of one page of query results as a page object, closing
+     * the results once they are consumed.
+     *
+     * @param stub      the chaincode stub
+     * @param results   the page of query results
+     * @param indexed   whether the results are index entries or tickets
+     * @param keyFilter the condition the key of a result must meet to be returned
+     * @param rowFilter the condition the ticket must meet to be returned, or
+     *                  null to return every ticket
+     * @param tag       the name of the transaction, for logging
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    private String streamTicketsPage(
+            final ChaincodeStub stub,
+            final QueryResultsIteratorWithMetadata<KeyValue> results,
+            final boolean indexed,
+            final Predicate<String> keyFilter,
+            final TicketFieldFilter rowFilter,
+            final String tag) {
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            writeTickets(stream, stub, results, indexed, keyFilter, rowFilter);
+            // The metadata is only complete once the page has been consumed
+            stream.endPage(results.getMetadata().getBookmark(), results.getMetadata().getFetchedRecordsCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info(tag, () -> "OK: Retrieved " + stream.getCount() + " tickets");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error(tag, "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, tag);
+        }
+    }
+
+    /**
+     * Streams one page of the tickets of a time window, read from a time
+     * index. The first page starts at the key of the lower bound instead of the
+     * start of the index, and the bookmark is dropped once the next entry is
+     * past the upper bound, so only the entries of the window are read.
+     *
+     * @param stub     the chaincode stub
+     * @param index    the time index
+     * @param from     the lower bound of the window, inclusive, or null
+     * @param to       the upper bound of the window, exclusive, or null
+     * @param pageSize the maximum number of index entries to read
+     * @param bookmark the bookmark returned by the previous page, empty for the
+     *                 first page
+     * @param tag      the name of the transaction, for logging
+     * @return JSON object with the tickets (records), the bookmark of the next
+     *         page (bookmark) and the number of keys read (fetchedCount)
+     */
+    private String streamTimeRangePage(
+            final ChaincodeStub stub,
+            final String index,
+            final Instant from,
+            final Instant to,
+            final int pageSize,
+            final String bookmark,
+            final String tag) {
+
+        // The bookmark of a key range query is the key it starts at
+        String startKey = bookmark;
+        if ((startKey == null || startKey.isEmpty()) && from != null) {
+            startKey = TicketIndexes.startKey(stub, index, from);
+        }
+        final String toValue = TicketIndexes.timeValue(to);
+        final Predicate<String> inWindow = key -> toValue == null
+                || TicketIndexes.indexedValueOf(stub, key).compareTo(toValue) < 0;
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(
+                TicketIndexes.partialKey(stub, index), pageSize, startKey);
+
+        try {
+            TicketJsonStream stream = new TicketJsonStream(mapper);
+            stream.startPage();
+            if (TicketIndexes.MODIFIED_INDEX.equals(index)) {
+                writeModifiedTickets(stream, stub, results, inWindow);
+            } else {
+                writeTickets(stream, stub, results, true, inWindow, null);
+            }
+            String nextBookmark = results.getMetadata().getBookmark();
+            if (nextBookmark != null && !nextBookmark.isEmpty() && !inWindow.test(nextBookmark)) {
+                nextBookmark = "";
+            }
+            stream.endPage(nextBookmark, results.getMetadata().getFetchedRecordsCount());
+
+            final String jsonResponse = stream.toJson();
+            TicketLogger.info(tag, () -> "OK: Retrieved " + stream.getCount() + " tickets");
+            return jsonResponse;
+
+        } catch (IOException e) {
+            TicketLogger.error(tag, "NOK: Error processing JSON");
+            return handleJsonProcessingError(e, String.class);
+        } finally {
+            closeResults(results, tag);
+        }
+    }
+
+    /**
+     * Writes the tickets of the query results into the stream as raw JSON.
+     * Results whose key does not pass the key filter are skipped before reading
+     * their ticket, and the row filter only parses the filtered field, so
+     * tickets are never bound to a {@link Ticket}.
+     *
+     * @param stream    the stream to write the tickets to
+     * @param stub      the chaincode stub
+     * @param results   the query results
+     * @param indexed   whether the results are index entries or tickets
+     * @param keyFilter the condition the key of a result must meet to be written
+     * @param rowFilter the condition the ticket must meet to be written, or
+     *                  null to write every ticket
+     * @throws IOException if the JSON cannot be read or written
+     */
+    private void writeTickets(
+            final TicketJsonStream stream,
+            final ChaincodeStub stub,
+            final Iterable<KeyValue> results,
+            final boolean indexed,
+            final Predicate<String> keyFilter,
+            final TicketFieldFilter rowFilter) throws IOException {
+
+        for (KeyValue result : results) {
+            if (!keyFilter.test(result.getKey())) {
+                continue;
+            }
+            byte[] storedTicket = indexed
+                    ? TicketKeys.read(stub, TicketIndexes.ticketIdOf(stub, result.getKey()))
+                    : result.getValue();
+            // Skip stale index entries whose ticket no longer exists or no longer matches
+            if (storedTicket == null || storedTicket.length == 0) {
+                continue;
+            }
+            // JSON tickets are passed through, binary tickets are converted
+            byte[] jsonTicket = codecs.toJson(storedTicket);
+            if (rowFilter == null || rowFilter.matches(jsonTicket)) {
+                stream.writeRawTicket(new String(jsonTicket, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Writes the tickets of a page of the index by last modification date into
+     * the stream as raw JSON. A ticket has an entry for its last update and one
+     * for each comment added to it, which is left behind by the later updates.
+     * Entries older than the last modification of their ticket are skipped, as
+     * the ticket is written at its later entry, and a ticket is written once
+     * per page. A ticket deleted or archived is written as the record of its
+     * removal, at the entry of the removal.
+     *
+     * @param stream    the stream to write the tickets to
+     * @param stub      the chaincode stub
+     * @param results   the entries of the index
+     * @param keyFilter the condition the key of an entry must meet to be written
+     * @throws IOException if the JSON cannot be read or written
+     */
+    private void writeModifiedTickets(
+            final TicketJsonStream stream,
+            final ChaincodeStub stub,
+            final Iterable<KeyValue> results,
+            final Predicate<String> keyFilter) throws IOException {
+
+        Set<String> written = new HashSet<>();
+        for (KeyValue result : results) {
+            String ticketId = TicketIndexes.ticketIdOf(stub, result.getKey());
+            if (!keyFilter.test(result.getKey()) || written.contains(ticketId)) {
+                continue;
+            }
+            String entryTime = TicketIndexes.indexedValueOf(stub, result.getKey());
+            byte[] storedTicket = TicketKeys.read(stub, ticketId);
+            if (storedTicket == null || storedTicket.length == 0) {
+                // Only the entry of the removal stands for a ticket that is gone
+                TicketOperation removal = TicketIndexes.removalOf(result.getValue());
+                if (removal != null) {
+                    stream.writeRemovedTicket(ticketId,
+                            Instant.ofEpochMilli(Long.parseLong(entryTime)).toString(), removal.name());
+                    written.add(ticketId);
+                }
+                continue;
+            }
+            byte[] jsonTicket = codecs.toJson(storedTicket);
+            String lastModified = TicketFieldFilter.readFields(mapper.getFactory(), jsonTicket,
+                    List.of(TicketFieldFilter.LAST_MODIFIED_FIELD)).get(TicketFieldFilter.LAST_MODIFIED_FIELD);
+            if (lastModified != null
+                    && entryTime.compareTo(TicketIndexes.timeValue(stub, LocalDateTime.parse(lastModified))) < 0) {
+                continue;
+            }
+            stream.writeRawTicket(new String(jsonTicket, StandardCharsets.UTF_8));
+            written.add(ticketId);
+        }
+    }
+
+    /**
+     * Writes a page of the tickets matching the criteria into the stream as
+     * raw JSON, resolving the criteria on the bitmap index.
+     *
+     * @param stream   the stream to write the tickets to
+     * @param stub     the chaincode stub
+     * @param criteria the accepted values of each field
+     * @param pageSize the maximum number of tickets to write
+     * @param offset   the number of matching tickets to skip
+     * @return the number of tickets read
+     * @throws IOException if the JSON cannot be read or written
+     */
+    private int writeFilteredTickets(
+            final TicketJsonStream stream,
+            final ChaincodeStub stub,
+            final Map<String, List<String>> criteria,
+            final int pageSize,
+            final int offset) throws IOException {
+
+        int fetchedCount = 0;
+        for (String ticketId : TicketBitmaps.find(stub, criteria, offset, pageSize)) {
+            byte[] storedTicket = TicketKeys.read(stub, ticketId);
+            fetchedCount++;
+            if (storedTicket.length > 0) {
+                stream.writeRawTicket(new String(codecs.toJson(storedTicket), StandardCharsets.UTF_8));
+            }
+        }
+        return fetchedCount;
+    }
+
+    /**
+     * Writes a page of the tickets matching the criteria into the stream as
+     * raw JSON, scanning the tickets until the page is full. Only the filtered
+     * fields of each ticket are parsed.
+     *
+     * @param stream   the stream to write the tickets to
+     * @param stub     the chaincode stub
+     * @param criteria the accepted values of each field
+     * @param pageSize the maximum number of tickets to write
+     * @param offset   the number of matching tickets to skip
+     * @return the number of tickets read
+     * @throws IOException if the JSON cannot be read or written
+     */
+    private int writeScannedTickets(
+            final TicketJsonStream stream,
+            final ChaincodeStub stub,
+            final Map<String, List<String>> criteria,
+            final int pageSize,
+            final int offset) throws IOException {
+
+        int fetchedCount = 0;
+        int toSkip = offset;
+        QueryResultsIterator<KeyValue> results = stub.getStateByPartialCompositeKey(TicketKeys.partialKey(stub));
+        try {
+            for (KeyValue result : results) {
+                if (stream.getCount() == pageSize) {
+                    break;
+                }
+                fetchedCount++;
+                byte[] jsonTicket = codecs.toJson(result.getValue());
+                Map<String, String> fields = TicketFieldFilter.readFields(mapper.getFactory(), jsonTicket,
+                        criteria.keySet());
+                boolean matches = criteria.entrySet().stream()
+                        .allMatch(criterion -> criterion.getValue().contains(fields.get(criterion.getKey())));
+                if (!matches) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                stream.writeRawTicket(new String(jsonTicket, StandardCharsets.UTF_8));
+            }
+        } finally {
+            closeResults(results, "FilterTickets");
+        }
+        return fetchedCount;
+    }
+
+    /**
+     * Parses the criteria of {@link #FilterTickets}.
+     *
+     * @param criteriaJson a JSON object with a value or an array of values for
+     *                     some of the fields of the bitmap index
+     * @param tag          the name of the transaction, for logging
+     * @return the accepted values of each field given
+     */
+    private Map<String, List<String>> parseCriteria(final String criteriaJson, final String tag) {
+        String errorMessage;
+        try {
+            JsonNode criteriaNode = mapper.readTree(criteriaJson != null ? criteriaJson : "");
+            errorMessage = criteriaError(criteriaNode);
+            if (errorMessage == null) {
+                Map<String, List<String>> criteria = new TreeMap<>();
+                criteriaNode.fields().forEachRemaining(field -> {
+                    List<String> values = new ArrayList<>();
+                    (field.getValue().isArray() ? field.getValue() : List.of(field.getValue()))
+                            .forEach(value -> values.add(value.asText()));
+                    criteria.put(field.getKey(), values);
+                });
+                return criteria;
+            }
+            errorMessage = TicketError.TICKET_INVALID_FILTER.getDescription() + ": " + errorMessage;
+        } catch (JsonProcessingException e) {
+            errorMessage = TicketError.TICKET_INVALID_FILTER.getDescription() + ": " + e.getOriginalMessage();
+        }
+        TicketLogger.warn(tag, "NOK: " + errorMessage);
+        throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_FILTER.getCodeAndName());
+    }
+
+    /**
+     * Checks the criteria of {@link #FilterTickets}.
+     *
+     * @return the reason the criteria are not valid, or null if they are
+     */
+    private String criteriaError(final JsonNode criteria) {
+        if (criteria == null || !criteria.isObject() || criteria.isEmpty()) {
+            return "expected a JSON object with at least one of " + TicketBitmaps.FIELDS;
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = criteria.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!TicketBitmaps.FIELDS.contains(field.getKey())) {
+                return "unknown field " + field.getKey() + ", expected one of " + TicketBitmaps.FIELDS;
+            }
+            JsonNode values = field.getValue();
+            if (values.isArray() && values.isEmpty()) {
+                return "field " + field.getKey() + " must be a value or a non-empty array of values";
+            }
+            for (JsonNode value : values.isArray() ? values : List.of(values)) {
+                if (!value.isValueNode() || value.isNull()) {
+                    return "field " + field.getKey() + " must be a value or a non-empty array of values";
+                }
+                if (field.getKey().equals(TicketFieldFilter.STATUS_FIELD)) {
+                    try {
+                        TicketStatus.valueOf(value.asText());
+                    } catch (IllegalArgumentException e) {
+                        return TicketError.TICKET_INVALID_STATUS.getDescription() + ": " + value.asText();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the tickets found by the text index into the stream as raw JSON.
+     *
+     * @param stream    the stream to write the tickets to
+     * @param stub      the chaincode stub
+     * @param matches   the IDs of the tickets matching the tokens of the search
+     * @param limit     the maximum number of matches to consume, 0 for all
+     * @param rowFilter the condition the ticket must meet to be written, or
+     *                  null to write every ticket
+     * @return the ID of the last match consumed if the limit was reached, so
+     *         that the search can resume after it, or empty otherwise
+     * @throws IOException if the JSON cannot be read or written
+     */
+    private String writeMatchingTickets(
+            final TicketJsonStream stream,
+            final ChaincodeStub stub,
+            final TicketTerms.Intersection matches,
+            final int limit,
+            final TicketFieldFilter rowFilter) throws IOException {
+
+        int numberOfMatches = 0;
+        String ticketId;
+        while ((limit == 0 || numberOfMatches < limit) && (ticketId = matches.next()) != null) {
+            numberOfMatches++;
+            byte[] storedTicket = TicketKeys.read(stub, ticketId);
+            if (storedTicket.length == 0) {
+                continue;
+            }
+            byte[] jsonTicket = codecs.toJson(storedTicket);
+            if (rowFilter == null || rowFilter.matches(jsonTicket)) {
+                stream.writeRawTicket(new String(jsonTicket, StandardCharsets.UTF_8));
+            }
+            if (numberOfMatches == limit) {
+                return ticketId;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Creates the row filter of the tickets of a project.
+     *
+     * @param projectIdNum the numeric id of the project
+     * @return the row filter
+     */
+    private TicketFieldFilter projectFilter(final int projectIdNum) {
+        return TicketFieldFilter.equalTo(mapper.getFactory(), TicketFieldFilter.PROJECT_FIELD,
+                String.valueOf(projectIdNum));
+    }
+
+    /**
+     * Creates the row filter of the tickets with a status.
+     *
+     * @param status the status of the tickets
+     * @return the row filter
+     */
+    private TicketFieldFilter statusFilter(final String status) {
+        return TicketFieldFilter.equalTo(mapper.getFactory(), TicketFieldFilter.STATUS_FIELD, status);
+    }
+
+    /**
+     * Creates the row filter of the tickets assigned to a user.
+     *
+     * @param assigned the assigned user, or part of it
+     * @return the row filter
+     */
+    private TicketFieldFilter assignedFilter(final String assigned) {
+        return TicketFieldFilter.containing(mapper.getFactory(), TicketFieldFilter.ASSIGNED_FIELD, assigned);
+    }
+
+    /**
+     * Closes the results of a query once they have been consumed.
+     *
+     * @param results the query results
+     * @param tag     the name of the transaction, for logging
+     */
+    private void closeResults(final AutoCloseable results, final String tag) {
+        try {
+            if (results != null) {
+                results.close();
+            }
+        } catch (Exception e) {
+            // errors that occur while closing the results iterator
+            TicketLogger.warn(tag, () -> "Error closing results iterator: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks that the page size of a paginated query is valid.
+     *
+     * @param pageSize the requested page size
+     * @param tag      the name of the transaction, for logging
+     */
+    private void validatePageSize(final int pageSize, final String tag) {
+        if (pageSize <= 0) {
+            String errorMessage = TicketError.TICKET_INVALID_PAGE_SIZE.getDescription() + ": " + pageSize;
+            TicketLogger.warn(tag, "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_PAGE_SIZE.getCodeAndName());
+        }
+    }
+
+    /**
+     * Builds the CouchDB query of {@link #QueryTickets} from a selector or a
+     * full query. The selector is restricted to the keys of the tickets
+     * namespace, so archived tickets, index entries, comments and stats stored
+     * as JSON are never returned, and the options that conflict with the
+     * pagination or the ticket records are removed.
+     *
+     * @param stub         the chaincode stub
+     * @param selectorJson the selector or the full query
+     * @return the query to run
+     */
+    private String buildTicketQuery(final ChaincodeStub stub, final String selectorJson) {
+        try {
+            JsonNode parsed = mapper.readTree(selectorJson == null ? "" : selectorJson);
+            if (parsed == null || !parsed.isObject()) {
+                throw new IOException("Query must be a JSON object");
+            }
+            ObjectNode query = parsed.has("selector")
+                    ? ((ObjectNode) parsed).deepCopy()
+                    : mapper.createObjectNode().set("selector", parsed);
+            if (!query.get("selector").isObject()) {
+                throw new IOException("Selector must be a JSON object");
+            }
+            query.remove(List.of("limit", "skip", "bookmark", "fields"));
+
+            // Mango compares strings with the ICU collation, which ignores the
+            // NUL separators of the composite keys, so the namespace is matched
+            // on the raw _id with a regular expression instead of a range
+            ObjectNode isTicket = mapper.createObjectNode();
+            isTicket.putObject("_id").put("$regex",
+                    "^" + TicketKeys.partialKey(stub).toString().replace("\u0000", "\\x00"));
+            ObjectNode selector = mapper.createObjectNode();
+            selector.putArray("$and").add(query.get("selector")).add(isTicket);
+            query.set("selector", selector);
+
+            return mapper.writeValueAsString(query);
+
+        } catch (IOException e) {
+            String errorMessage = TicketError.TICKET_INVALID_QUERY.getDescription() + ": " + e.getMessage();
+            TicketLogger.warn("QueryTickets", "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_QUERY.getCodeAndName());
+        }
+    }
+
+    /**
+     * Parses the cutoff of the archive transactions.
+     *
+     * @param ctx       the transaction context
+     * @param olderThan the cutoff (yyyy-MM-ddTHH:mm:ss), or empty
+     * @param tag       the name of the transaction, for logging
+     * @return the instant of the cutoff, the transaction timestamp if it is
+     *         empty
+     */
+    private Instant parseCutoff(final Context ctx, final String olderThan, final String tag) {
+        Instant cutoff = parseDateTime(olderThan, tag);
+        return cutoff != null ? cutoff : ctx.getStub().getTxTimestamp();
+    }
+
+    /**
+     * Checks whether a ticket was last modified before a cutoff.
+     *
+     * @param ticket the ticket
+     * @param cutoff the instant of the cutoff
+     * @return true if the ticket is older than the cutoff
+     */
+    private boolean isOlderThan(final Ticket ticket, final Instant cutoff) {
+        return ticket.getLastModifiedDate().atZone(ZONE).toInstant().isBefore(cutoff);
+    }
+
+    /**
+     * Builds the response of the transactions that process tickets in bounded
+     * chunks.
+     *
+     * @param ctx             the transaction context
+     * @param numberOfTickets the number of tickets processed
+     * @param hasMore         whether more tickets remain to be processed
+     * @param tag             the name of the transaction, for logging
+     * @return the JSON response
+     */
+    private String chunkResponse(final Context ctx, final int numberOfTickets, final boolean hasMore,
+            final String tag) {
+        return chunkResponse(ctx, numberOfTickets, hasMore, null, tag);
+    }
+
+    /**
+     * Builds the response of the transactions that process tickets in bounded
+     * chunks and resume from a bookmark.
+     *
+     * @param ctx             the transaction context
+     * @param numberOfTickets the number of tickets processed
+     * @param hasMore         whether more tickets remain to be processed
+     * @param bookmark        the bookmark of the next call, or null if the
+     *                        transaction takes none
+     * @param tag             the name of the transaction, for logging
+     * @return the JSON response
+     */
+    private String chunkResponse(final Context ctx, final int numberOfTickets, final boolean hasMore,
+            final String bookmark, final String tag) {
+
+        // Get the current date and time
+        final LocalDateTime currentDateTime = getCurrentLocalDateTime(ctx);
+
+        // Create a JSON response with number of tickets and timestamp
+        JSONObject jsonResponseObject = new JSONObject();
+        jsonResponseObject.put("NumberOfTickets", numberOfTickets);
+        jsonResponseObject.put("HasMore", hasMore);
+        if (bookmark != null) {
+            jsonResponseObject.put("Bookmark", bookmark);
+        }
+        jsonResponseObject.put("TimestampOperation", currentDateTime);
+        String jsonResponse = jsonResponseObject.toString();
+
+        TicketLogger.info(tag, () -> "OK: " + jsonResponse);
+        return jsonResponse;
+    }
+
+    /**
+     * Parses a date-time parameter, either an instant with its offset or a
+     * local date-time in the time zone of the contract.
+     *
+     * @param dateTime the date-time (yyyy-MM-ddTHH:mm:ssZ, with an offset, or
+     *                 yyyy-MM-ddTHH:mm:ss), or empty
+     * @param tag      the name of the transaction, for logging
+     * @return the instant of the date-time, or null if it is empty
+     */
+    private Instant parseDateTime(final String dateTime, final String tag) {
+        if (dateTime == null || dateTime.isEmpty()) {
+            return null;
+        }
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(dateTime);
+            return parsed.isSupported(ChronoField.OFFSET_SECONDS)
+                    ? Instant.from(parsed)
+                    : LocalDateTime.from(parsed).atZone(ZONE).toInstant();
+        } catch (DateTimeParseException e) {
+            String errorMessage = TicketError.TICKET_INVALID_DATE.getDescription() + ": " + dateTime;
+            TicketLogger.warn(tag, "NOK: " + errorMessage);
+            throw new ChaincodeException(errorMessage, TicketError.TICKET_INVALID_DATE.getCodeAndName());
+        }
+    }
+
+    /**
+     * Generates the ticket ID from the channel name and the transaction data
+     * only: the transaction timestamp, which keeps the IDs sortable by creation
+     * time, and the transaction ID, which makes them unique. Tickets opened in
+     * the same transaction after the first one get a sequence number suffix.
+     *
      * @param ctx the transaction context
      * @return the next ticket ID
      */
     private String getTicketId(final Context ctx) {
         long epochMs = ctx.getStub().getTxTimestamp().toEpochMilli();
         String channelName = getChannelName(ctx);
+        String prefix;
         if (channelName.contains("dev")) {
-            long id = epochMs + ticketIdNum_dev;
-            return "dev_t" + id;
+            prefix = "dev_t";
         } else if (channelName.contains("qa")) {
-            long id = epochMs + ticketIdNum_qa;
-            return "qa_t" + id;
+            prefix = "qa_t";
         } else {
-            return "XX_t" + epochMs;
+            prefix = "XX_t";
         }
+        int sequence = nextSequence(ctx, "ticketId");
+        String ticketId = prefix + epochMs + "_" + ctx.getStub().getTxId();
+        return sequence == 0 ? ticketId : ticketId + "_" + sequence;
     }
 
     /**
-     * Increases the ticket ID number based on the channel name.
-     * 
-     * @param ctx the transaction context
+     * Gives the next number of a sequence that only lives during the
+     * transaction.
+     *
+     * @param ctx   the transaction context
+     * @param scope the name of the sequence
+     * @return the next number, starting at 0
      */
-    private void increaseTicketIdNum(final Context ctx) {
-        String channelName = getChannelName(ctx);
-        if (channelName.contains("dev")) {
-            ticketIdNum_dev++;
-        } else if (channelName.contains("qa")) {
-            ticketIdNum_qa++;
-        }
+    private int nextSequence(final Context ctx, final String scope) {
+        return ((TicketContext) ctx).nextSequence(scope);
     }
 
     /**
-     * Resets the ticket ID number based on the channel name.
-     * 
+     * Gives the configuration of the channel seen by the transaction.
+     *
      * @param ctx the transaction context
+     * @return the configuration of the channel
      */
-    private void resetTicketIdNum(final Context ctx) {
-        String channelName = getChannelName(ctx);
-        if (channelName.contains("dev")) {
-            ticketIdNum_dev = 0;
-        } else if (channelName.contains("qa")) {
-            ticketIdNum_qa = 0;
-        }
+    private ChannelConfig config(final Context ctx) {
+        return ((TicketContext) ctx).getConfig();
     }
 
     /**
@@ -828,13 +3690,13 @@ public final class TicketingSystemContract implements ContractInterface {
     private LocalDateTime getCurrentLocalDateTime(final Context ctx) {
         return LocalDateTime.ofInstant(
                 ctx.getStub().getTxTimestamp(),
-                ZoneId.of("Europe/Madrid"));
+                ZONE);
     }
 
     @SuppressWarnings("null")
-    private <T> T handleJsonProcessingError(JsonProcessingException e, Class<T> returnType) {
+    private <T> T handleJsonProcessingError(IOException e, Class<T> returnType) {
         String errorMessage = TicketError.TICKET_JSON_PROCESSING_ERROR.getDescription() + ": " + e.getMessage();
-        System.out.println(errorMessage);
+        TicketLogger.error("TicketingSystemContract", errorMessage);
 
         if (returnType == null) {
             return returnType.cast(null);
@@ -857,42 +3719,30 @@ public final class TicketingSystemContract implements ContractInterface {
         List<Ticket> devTickets = new ArrayList<>();
 
         // Create development tickets
-        devTickets.add(OpenNewTicket(ctx, "Build login page layout (Dev)",
+        devTickets.add(openNewTicket(ctx, "Build login page layout (Dev)",
                 "The login page layout needs to be adjusted for better mobile responsiveness.",
                 1, "Sofía García", TicketPriority.LOW.name(), 3));
 
-        increaseTicketIdNum(ctx);
-
-        devTickets.add(OpenNewTicket(ctx, "Add product filtering feature (Dev)",
+        devTickets.add(openNewTicket(ctx, "Add product filtering feature (Dev)",
                 "Users should be able to filter products based on various criteria.",
                 1, "Lucía Martínez", TicketPriority.HIGH.name(), 8));
 
-        increaseTicketIdNum(ctx);
-
-        devTickets.add(OpenNewTicket(ctx, "Implement user registration (Dev)",
+        devTickets.add(openNewTicket(ctx, "Implement user registration (Dev)",
                 "New users should be able to register accounts on the platform.",
                 2, "Pablo Ruiz", TicketPriority.MEDIUM.name(), 5));
 
-        increaseTicketIdNum(ctx);
-
-        devTickets.add(OpenNewTicket(ctx, "Implement OAuth2 authentication (Dev)",
+        devTickets.add(openNewTicket(ctx, "Implement OAuth2 authentication (Dev)",
                 "OAuth2 authentication needs to be integrated for better security.",
                 2, "Marta Rodríguez", TicketPriority.MEDIUM.name(), 8));
 
-        increaseTicketIdNum(ctx);
-
-        devTickets.add(OpenNewTicket(ctx, "Fix database connection issue (Dev)",
+        devTickets.add(openNewTicket(ctx, "Fix database connection issue (Dev)",
                 "There is an intermittent issue with connecting to the database.",
                 3, "Javier López", TicketPriority.HIGH.name(), 5));
 
-        increaseTicketIdNum(ctx);
-
-        devTickets.add(OpenNewTicket(ctx, "Update API documentation (Dev)",
+        devTickets.add(openNewTicket(ctx, "Update API documentation (Dev)",
                 "The API documentation needs to be updated to reflect recent changes.",
                 3, "Andrea Sánchez", TicketPriority.LOW.name(), 2));
 
-        resetTicketIdNum(ctx);
-
         return devTickets;
     }
 
@@ -906,42 +3756,30 @@ public final class TicketingSystemContract implements ContractInterface {
         List<Ticket> qaTickets = new ArrayList<>();
 
         // Create QA tickets
-        qaTickets.add(OpenNewTicket(ctx, "Perform login page layout testing (QA)",
+        qaTickets.add(openNewTicket(ctx, "Perform login page layout testing (QA)",
                 "The login page layout needs to be tested on various devices and browsers.",
                 1, "David Martínez", TicketPriority.LOW.name(), 2));
 
-        increaseTicketIdNum(ctx);
-
-        qaTickets.add(OpenNewTicket(ctx, "Test product filtering feature (QA)",
+        qaTickets.add(openNewTicket(ctx, "Test product filtering feature (QA)",
                 "The product filtering feature should be tested with different filter combinations.",
                 1, "Carlos García", TicketPriority.HIGH.name(), 3));
 
-        increaseTicketIdNum(ctx);
-
-        qaTickets.add(OpenNewTicket(ctx, "Conduct user registration testing (QA)",
+        qaTickets.add(openNewTicket(ctx, "Conduct user registration testing (QA)",
                 "Registration functionality needs to be thoroughly tested to ensure it works as expected.",
                 2, "Laura López", TicketPriority.MEDIUM.name(), 2));
 
-        increaseTicketIdNum(ctx);
-
-        qaTickets.add(OpenNewTicket(ctx, "Perform OAuth2 authentication testing (QA)",
+        qaTickets.add(openNewTicket(ctx, "Perform OAuth2 authentication testing (QA)",
                 "OAuth2 authentication flows should be tested to ensure they work correctly.",
                 2, "Elena Gómez", TicketPriority.MEDIUM.name(), 3));
 
-        increaseTicketIdNum(ctx);
-
-        qaTickets.add(OpenNewTicket(ctx, "Test database connection stability (QA)",
+        qaTickets.add(openNewTicket(ctx, "Test database connection stability (QA)",
                 "Database connections should be tested under varying load conditions for stability.",
                 3, "Ana Fernández", TicketPriority.HIGH.name(), 2));
 
-        increaseTicketIdNum(ctx);
-
-        qaTickets.add(OpenNewTicket(ctx, "Review and verify API documentation (QA)",
+        qaTickets.add(openNewTicket(ctx, "Review and verify API documentation (QA)",
                 "API documentation needs to be reviewed and verified for accuracy and completeness.",
                 3, "Diego Martín", TicketPriority.LOW.name(), 2));
 
-        resetTicketIdNum(ctx);
-
         return qaTickets;
     }
 
@@ -0,0 +1,236 @@
+package uoc.tfm.contract.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.enums.TicketPriority;
+import uoc.tfm.contract.enums.TicketStatus;
+import uoc.tfm.contract.enums.TicketType;
+
+/**
+ * Compact binary codec of the tickets (format version 1).
+ *
+ * After the header byte the fields are written in a fixed order, without
+ * names: numbers as varints, texts as their length followed by their UTF-8
+ * bytes, dates as seconds and nanoseconds and enums as the number of their
+ * code (e.g. 2 for "ST-002"). Nullable values are shifted by one so that 0
+ * stands for null.
+ */
+public final class BinaryTicketCodec implements TicketCodec {
+
+    public static final byte HEADER = (byte) 0xB1;
+
+    // Enum constants by the number of their code, for decoding
+    private static final Map<Integer, TicketPriority> PRIORITIES = byCodeNumber(
+            TicketPriority.values(), TicketPriority::getCode);
+    private static final Map<Integer, TicketType> TYPES = byCodeNumber(TicketType.values(), TicketType::getCode);
+    private static final Map<Integer, TicketStatus> STATUSES = byCodeNumber(
+            TicketStatus.values(), TicketStatus::getCode);
+
+    @Override
+    public byte header() {
+        return HEADER;
+    }
+
+    @Override
+    public byte[] encode(final Ticket ticket) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(HEADER);
+
+        writeString(out, ticket.getTicketId());
+        writeString(out, ticket.getTitle());
+        writeString(out, ticket.getDescription());
+        writeVarLong(out, zigZag(ticket.getProjectIdNum()));
+        writeString(out, ticket.getCreator());
+        writeEnum(out, ticket.getTicketPriority() != null ? ticket.getTicketPriority().getCode() : null);
+        writeEnum(out, ticket.getTicketType() != null ? ticket.getTicketType().getCode() : null);
+        writeDate(out, ticket.getCreationDate());
+        writeDate(out, ticket.getLastModifiedDate());
+        writeString(out, ticket.getAssigned());
+        writeString(out, ticket.getRelatedProductVersion());
+
+        List<String> comments = ticket.getComments();
+        writeVarLong(out, comments != null ? comments.size() + 1 : 0);
+        if (comments != null) {
+            for (String comment : comments) {
+                writeString(out, comment);
+            }
+        }
+
+        writeVarLong(out, zigZag(ticket.getStoryPoints()));
+        writeEnum(out, ticket.getTicketStatus() != null ? ticket.getTicketStatus().getCode() : null);
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public Ticket decode(final byte[] value) throws IOException {
+        if (value.length == 0 || value[0] != HEADER) {
+            throw new IOException("Value is not a binary ticket");
+        }
+        Reader in = new Reader(value);
+
+        try {
+            Ticket ticket = new Ticket();
+            ticket.setTicketId(in.readString());
+            ticket.setTitle(in.readString());
+            ticket.setDescription(in.readString());
+            ticket.setProjectIdNum((int) unZigZag(in.readVarLong()));
+            ticket.setCreator(in.readString());
+            ticket.setTicketPriority(fromCode(PRIORITIES, in.readVarLong()));
+            ticket.setTicketType(fromCode(TYPES, in.readVarLong()));
+            ticket.setCreationDate(in.readDate());
+            ticket.setLastModifiedDate(in.readDate());
+            ticket.setAssigned(in.readString());
+            ticket.setRelatedProductVersion(in.readString());
+
+            long numberOfComments = in.readVarLong();
+            if (numberOfComments > 0) {
+                List<String> comments = new ArrayList<>((int) numberOfComments - 1);
+                for (long i = 1; i < numberOfComments; i++) {
+                    comments.add(in.readString());
+                }
+                ticket.setComments(comments);
+            }
+
+            ticket.setStoryPoints((int) unZigZag(in.readVarLong()));
+            ticket.setTicketStatus(fromCode(STATUSES, in.readVarLong()));
+            return ticket;
+
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Binary ticket is truncated", e);
+        }
+    }
+
+    /**
+     * Extracts the number of an enum code, e.g. 2 for "ST-002".
+     */
+    private static int codeNumber(final String code) {
+        return Integer.parseInt(code.substring(code.lastIndexOf('-') + 1));
+    }
+
+    /**
+     * Maps the constants of an enum by the number of their code.
+     */
+    private static <E extends Enum<E>> Map<Integer, E> byCodeNumber(final E[] values,
+            final Function<E, String> codeOf) {
+        Map<Integer, E> byCodeNumber = new HashMap<>();
+        for (E value : values) {
+            byCodeNumber.put(codeNumber(codeOf.apply(value)), value);
+        }
+        return byCodeNumber;
+    }
+
+    /**
+     * Finds the enum constant whose code has the given number.
+     */
+    private static <E extends Enum<E>> E fromCode(final Map<Integer, E> byCodeNumber, final long encoded)
+            throws IOException {
+        if (encoded == 0) {
+            return null;
+        }
+        E value = encoded - 1 <= Integer.MAX_VALUE ? byCodeNumber.get((int) (encoded - 1)) : null;
+        if (value == null) {
+            throw new IOException("Unknown enum code number: " + (encoded - 1));
+        }
+        return value;
+    }
+
+    private static void writeEnum(final ByteArrayOutputStream out, final String code) {
+        writeVarLong(out, code != null ? codeNumber(code) + 1 : 0);
+    }
+
+    private static void writeDate(final ByteArrayOutputStream out, final LocalDateTime date) {
+        if (date == null) {
+            out.write(0);
+            return;
+        }
+        out.write(1);
+        writeVarLong(out, zigZag(date.toEpochSecond(ZoneOffset.UTC)));
+        writeVarLong(out, date.getNano());
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarLong(final ByteArrayOutputStream out, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Cursor over an encoded ticket, positioned after the header.
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private int position = 1;
+
+        Reader(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in binary ticket");
+        }
+
+        String readString() throws IOException {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            int size = (int) length - 1;
+            if (size > bytes.length - position) {
+                throw new IOException("Binary ticket is truncated");
+            }
+            String value = new String(bytes, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        LocalDateTime readDate() throws IOException {
+            if (bytes[position++] == 0) {
+                return null;
+            }
+            long seconds = unZigZag(readVarLong());
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    }
+}
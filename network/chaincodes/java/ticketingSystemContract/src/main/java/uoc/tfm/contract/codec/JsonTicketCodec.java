@@ -0,0 +1,48 @@
+package uoc.tfm.contract.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import uoc.tfm.contract.Ticket;
+
+/**
+ * Codec of the tickets as Jackson JSON, the format of the earlier versions of
+ * the contract. Its header is the opening brace of the JSON object, so every
+ * legacy value is a valid value of this codec.
+ */
+public final class JsonTicketCodec implements TicketCodec {
+
+    public static final byte HEADER = '{';
+
+    // Bound to the ticket type once, instead of resolving it on every call
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    /**
+     * Creates the codec.
+     *
+     * @param mapper the mapper used by the contract
+     */
+    public JsonTicketCodec(final ObjectMapper mapper) {
+        this.reader = mapper.readerFor(Ticket.class);
+        this.writer = mapper.writerFor(Ticket.class);
+    }
+
+    @Override
+    public byte header() {
+        return HEADER;
+    }
+
+    @Override
+    public byte[] encode(final Ticket ticket) throws IOException {
+        return writer.writeValueAsBytes(ticket);
+    }
+
+    @Override
+    public Ticket decode(final byte[] value) throws IOException {
+        return reader.readValue(value);
+    }
+}
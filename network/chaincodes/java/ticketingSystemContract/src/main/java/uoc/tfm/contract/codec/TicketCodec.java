@@ -0,0 +1,38 @@
+package uoc.tfm.contract.codec;
+
+import java.io.IOException;
+
+import uoc.tfm.contract.Ticket;
+
+/**
+ * Encoding of the tickets stored on the ledger.
+ *
+ * Every encoded value starts with the header byte of its codec, so values
+ * written by different codecs can coexist on the ledger and be told apart
+ * when they are read.
+ */
+public interface TicketCodec {
+
+    /**
+     * @return the first byte of every value written by the codec
+     */
+    byte header();
+
+    /**
+     * Encodes a ticket, header included.
+     *
+     * @param ticket the ticket to encode
+     * @return the value to store on the ledger
+     * @throws IOException if the ticket cannot be encoded
+     */
+    byte[] encode(Ticket ticket) throws IOException;
+
+    /**
+     * Decodes a ticket written by the codec, header included.
+     *
+     * @param value the value stored on the ledger
+     * @return the ticket
+     * @throws IOException if the value cannot be decoded
+     */
+    Ticket decode(byte[] value) throws IOException;
+}
@@ -0,0 +1,104 @@
+package uoc.tfm.contract.codec;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uoc.tfm.contract.Ticket;
+
+/**
+ * Codecs of the tickets known by the contract.
+ *
+ * Tickets are written with the codec configured for the channel, while any
+ * value on the ledger is decoded with the codec its header byte belongs to, so
+ * legacy JSON values and binary values can coexist.
+ */
+public final class TicketCodecs {
+
+    private final JsonTicketCodec json;
+    private final BinaryTicketCodec binary;
+
+    /**
+     * Creates the codecs of the contract.
+     *
+     * @param mapper the mapper used by the contract
+     */
+    public TicketCodecs(final ObjectMapper mapper) {
+        this.json = new JsonTicketCodec(mapper);
+        this.binary = new BinaryTicketCodec();
+    }
+
+    /**
+     * @param codecName the name of a codec
+     * @return true if it is "json" or "binary"
+     */
+    public static boolean isKnown(final String codecName) {
+        return "json".equalsIgnoreCase(codecName) || "binary".equalsIgnoreCase(codecName);
+    }
+
+    /**
+     * Encodes a ticket with the given codec.
+     *
+     * @param ticket    the ticket to encode
+     * @param codecName the name of the codec: "json" or "binary"
+     * @return the value to store on the ledger
+     * @throws IOException if the ticket cannot be encoded
+     */
+    public byte[] encode(final Ticket ticket, final String codecName) throws IOException {
+        switch (codecName.toLowerCase()) {
+            case "json":
+                return json.encode(ticket);
+            case "binary":
+                return binary.encode(ticket);
+            default:
+                throw new IllegalArgumentException("Unknown ticket state codec: " + codecName);
+        }
+    }
+
+    /**
+     * Decodes a ticket with the codec of its header byte.
+     *
+     * @param value the value stored on the ledger
+     * @return the ticket
+     * @throws IOException if the value cannot be decoded
+     */
+    public Ticket decode(final byte[] value) throws IOException {
+        return codecOf(value).decode(value);
+    }
+
+    /**
+     * Gives a value stored on the ledger as JSON. JSON values are returned as
+     * they are, without decoding them.
+     *
+     * @param value the value stored on the ledger
+     * @return the ticket as JSON
+     * @throws IOException if the value cannot be decoded
+     */
+    public byte[] toJson(final byte[] value) throws IOException {
+        if (isJson(value)) {
+            return value;
+        }
+        return json.encode(decode(value));
+    }
+
+    /**
+     * @param value the value stored on the ledger
+     * @return true if the value is a JSON ticket
+     */
+    public static boolean isJson(final byte[] value) {
+        return value.length > 0 && value[0] == JsonTicketCodec.HEADER;
+    }
+
+    private TicketCodec codecOf(final byte[] value) throws IOException {
+        if (value.length == 0) {
+            throw new IOException("Empty ticket value");
+        }
+        if (value[0] == json.header()) {
+            return json;
+        }
+        if (value[0] == binary.header()) {
+            return binary;
+        }
+        throw new IOException(String.format("Unknown ticket format header: 0x%02X", value[0]));
+    }
+}
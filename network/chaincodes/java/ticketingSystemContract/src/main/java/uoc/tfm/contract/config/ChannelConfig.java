@@ -0,0 +1,217 @@
+package uoc.tfm.contract.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import uoc.tfm.contract.codec.TicketCodecs;
+
+/**
+ * Configuration of the contract shared by every peer of the channel, stored
+ * on the ledger and only changed by the SetContractConfig transaction.
+ *
+ * The settings that change what a transaction writes or rejects are kept here
+ * instead of in the environment of the chaincode container, so every peer
+ * that endorses a transaction applies the same ones and produces the same
+ * write set.
+ *
+ * Each setting has its own key (contractConfig~setting) and is only read the
+ * first time a transaction asks for it. A transaction therefore only depends
+ * on the settings it uses, and a change of one setting only conflicts with
+ * the transactions that read that setting.
+ */
+public final class ChannelConfig {
+
+    // Settings of the contract (contractConfig~setting)
+    public static final String CONFIG_KEY = "contractConfig";
+
+    // Codec used to write the tickets: "json" (default) or "binary"
+    public static final String STATE_CODEC_FIELD = "StateCodec";
+
+    // Maximum number of operations of a bulk transaction (default 100)
+    public static final String MAX_BULK_OPERATIONS_FIELD = "MaxBulkOperations";
+
+    // Whether each change of a ticket also writes a field diff record (default false)
+    public static final String CHANGELOG_FIELD = "ChangeLog";
+
+    // Whether the bitmap index of the tickets is maintained (default false),
+    // enabling it on a ledger with tickets requires rebuilding the indexes
+    public static final String BITMAP_INDEX_FIELD = "BitmapIndex";
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            STATE_CODEC_FIELD, "json",
+            MAX_BULK_OPERATIONS_FIELD, "100",
+            CHANGELOG_FIELD, "false",
+            BITMAP_INDEX_FIELD, "false");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Stub the settings are read from, or null if they are not on the ledger
+    private final ChaincodeStub stub;
+
+    // Settings read or changed so far, by field name
+    private final Map<String, String> settings;
+
+    // Settings changed by with() and not yet written, by field name
+    private final Map<String, String> changed;
+
+    private ChannelConfig(final ChaincodeStub stub, final Map<String, String> settings,
+            final Map<String, String> changed) {
+        this.stub = stub;
+        this.settings = settings;
+        this.changed = changed;
+    }
+
+    /**
+     * @return the configuration of a channel where it was never set
+     */
+    public static ChannelConfig defaults() {
+        return new ChannelConfig(null, new LinkedHashMap<>(DEFAULTS), new LinkedHashMap<>());
+    }
+
+    /**
+     * Gives the configuration of the channel stored on the ledger. Nothing is
+     * read until a setting is asked for.
+     *
+     * @param stub the chaincode stub
+     * @return the stored configuration, with the default value of the
+     *         settings that were never set
+     */
+    public static ChannelConfig read(final ChaincodeStub stub) {
+        return new ChannelConfig(stub, new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    /**
+     * Stores the settings changed by {@link #with(JsonNode)} on the ledger.
+     * The other settings are neither read nor written.
+     *
+     * @param stub the chaincode stub
+     */
+    public void write(final ChaincodeStub stub) {
+        for (Map.Entry<String, String> setting : changed.entrySet()) {
+            stub.putState(key(stub, setting.getKey()), setting.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+        changed.clear();
+    }
+
+    /**
+     * Gives a copy of the configuration with some settings changed. Only the
+     * changed settings are read, to tell whether they really change.
+     *
+     * @param changes JSON object with the settings to change, by field name
+     * @return the new configuration
+     * @throws IllegalArgumentException if a setting is unknown or its value is
+     *                                  not valid
+     */
+    public ChannelConfig with(final JsonNode changes) {
+        if (changes == null || !changes.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object of settings");
+        }
+        ChannelConfig config = new ChannelConfig(stub, new LinkedHashMap<>(settings), new LinkedHashMap<>(changed));
+
+        Iterator<Map.Entry<String, JsonNode>> fields = changes.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> setting = fields.next();
+            JsonNode value = setting.getValue();
+            String text;
+            switch (setting.getKey()) {
+                case STATE_CODEC_FIELD:
+                    if (!value.isTextual() || !TicketCodecs.isKnown(value.asText())) {
+                        throw new IllegalArgumentException(STATE_CODEC_FIELD + " must be \"json\" or \"binary\"");
+                    }
+                    text = value.asText().toLowerCase();
+                    break;
+                case MAX_BULK_OPERATIONS_FIELD:
+                    if (!value.canConvertToInt() || !value.isIntegralNumber() || value.asInt() <= 0) {
+                        throw new IllegalArgumentException(MAX_BULK_OPERATIONS_FIELD + " must be a positive number");
+                    }
+                    text = Integer.toString(value.asInt());
+                    break;
+                case CHANGELOG_FIELD:
+                case BITMAP_INDEX_FIELD:
+                    text = Boolean.toString(booleanOf(setting.getKey(), value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown setting " + setting.getKey());
+            }
+            if (!text.equals(config.setting(setting.getKey()))) {
+                config.settings.put(setting.getKey(), text);
+                config.changed.put(setting.getKey(), text);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @return the configuration as a JSON object, by field name, which reads
+     *         every setting
+     */
+    public ObjectNode toJson() {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put(STATE_CODEC_FIELD, getStateCodec());
+        json.put(MAX_BULK_OPERATIONS_FIELD, getMaxBulkOperations());
+        json.put(CHANGELOG_FIELD, isChangeLogEnabled());
+        json.put(BITMAP_INDEX_FIELD, isBitmapIndexEnabled());
+        return json;
+    }
+
+    /**
+     * @return the name of the codec used to write the tickets
+     */
+    public String getStateCodec() {
+        return setting(STATE_CODEC_FIELD);
+    }
+
+    /**
+     * @return the maximum number of operations of a bulk transaction
+     */
+    public int getMaxBulkOperations() {
+        return Integer.parseInt(setting(MAX_BULK_OPERATIONS_FIELD));
+    }
+
+    /**
+     * @return whether each change of a ticket also writes a field diff record
+     */
+    public boolean isChangeLogEnabled() {
+        return Boolean.parseBoolean(setting(CHANGELOG_FIELD));
+    }
+
+    /**
+     * @return whether the bitmap index of the tickets is maintained
+     */
+    public boolean isBitmapIndexEnabled() {
+        return Boolean.parseBoolean(setting(BITMAP_INDEX_FIELD));
+    }
+
+    /**
+     * Gives the value of a setting, read from the ledger the first time.
+     */
+    private String setting(final String field) {
+        String value = settings.get(field);
+        if (value == null) {
+            byte[] stored = stub != null ? stub.getState(key(stub, field)) : null;
+            value = stored == null || stored.length == 0 ? DEFAULTS.get(field)
+                    : new String(stored, StandardCharsets.UTF_8);
+            settings.put(field, value);
+        }
+        return value;
+    }
+
+    private static String key(final ChaincodeStub stub, final String field) {
+        return stub.createCompositeKey(CONFIG_KEY, field).toString();
+    }
+
+    private static boolean booleanOf(final String field, final JsonNode value) {
+        if (!value.isBoolean()) {
+            throw new IllegalArgumentException(field + " must be true or false");
+        }
+        return value.asBoolean();
+    }
+}
@@ -0,0 +1,55 @@
+package uoc.tfm.contract.config;
+
+/**
+ * Configuration of the chaincode process, read from the environment of the
+ * chaincode container when the contract is loaded.
+ *
+ * Only the settings that never change what a transaction writes or rejects
+ * are read here, since each peer has its own environment. The rest are
+ * settings of the channel, kept on the ledger by {@link ChannelConfig}.
+ */
+public final class ContractConfig {
+
+    // Whether the calls to the shim are measured: "true" or "false" (default)
+    public static final String METRICS_ENV = "TICKET_METRICS";
+
+    // Seconds between summary lines of the metrics in the log, 0 (default) for
+    // none
+    public static final String METRICS_SUMMARY_SECONDS_ENV = "TICKET_METRICS_SUMMARY_SECONDS";
+
+    // Level of the log: "error", "warn", "info" (default) or "debug"
+    public static final String LOG_LEVEL_ENV = "TICKET_LOG_LEVEL";
+
+    private ContractConfig() {
+    }
+
+    /**
+     * @return whether the calls to the shim are measured
+     */
+    public static boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(getEnv(METRICS_ENV, "false"));
+    }
+
+    /**
+     * @return the seconds between summary lines of the metrics, 0 for none
+     */
+    public static long getMetricsSummarySeconds() {
+        return Long.parseLong(getEnv(METRICS_SUMMARY_SECONDS_ENV, "0"));
+    }
+
+    /**
+     * @return the level of the log
+     */
+    public static String getLogLevel() {
+        return getEnv(LOG_LEVEL_ENV, "info");
+    }
+
+    /**
+     * Reads an environment variable, falling back to a default value when it
+     * is not set or empty.
+     */
+    private static String getEnv(final String name, final String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+}
@@ -8,9 +8,6 @@ public enum TicketError {
     // Error code when a ticket is not found
     TICKET_NOT_FOUND("ERR-001", "Ticket not found"),
 
-    // Error code when a ticket already exists
-    TICKET_ALREADY_EXISTS("ERR-002", "Ticket already exists"),
-
     // Error code for JSON processing errors related to tickets
     TICKET_JSON_PROCESSING_ERROR("ERR-003", "Error processing JSON for ticket"),
 
@@ -24,7 +21,49 @@ public enum TicketError {
     TICKET_ASSIGNED_EMPTY("ERR-006", "Assigned user parameter cannot be empty"),
 
     // Error code while retrieving history for ticket
-    TICKET_HISTORY_RETRIEVAL_ERROR("ERR-007", "Error retrieving history for ticket");
+    TICKET_HISTORY_RETRIEVAL_ERROR("ERR-007", "Error retrieving history for ticket"),
+
+    // Error code for an invalid page size in a paginated query
+    TICKET_INVALID_PAGE_SIZE("ERR-008", "Page size must be a positive number"),
+
+    // Error code for a malformed or too large bulk request
+    TICKET_BULK_INVALID("ERR-009", "Invalid bulk request"),
+
+    // Error code when an operation of a bulk request fails
+    TICKET_BULK_FAILED("ERR-010", "Bulk operation failed, no ticket was changed"),
+
+    // Error code for a project ID that is not a number
+    TICKET_INVALID_PROJECT("ERR-011", "Project ID must be a number"),
+
+    // Error code for a date that is not in ISO-8601 format
+    TICKET_INVALID_DATE("ERR-012", "Date must be in ISO-8601 format (yyyy-MM-ddTHH:mm:ss, with an optional offset)"),
+
+    // Error code for a malformed rich query or a state database without rich queries
+    TICKET_INVALID_QUERY("ERR-013", "Invalid rich query"),
+
+    // Error code for a text search without any searchable term
+    TICKET_INVALID_SEARCH("ERR-014", "Invalid search query"),
+
+    // Error code for malformed filter criteria
+    TICKET_INVALID_FILTER("ERR-015", "Invalid filter criteria"),
+
+    // Error code when the transaction to resume the history after is not in the history of the ticket
+    TICKET_HISTORY_BOOKMARK_NOT_FOUND("ERR-016", "Transaction to resume after not found in the history of ticket"),
+
+    // Error code for a malformed or invalid configuration of the contract
+    TICKET_INVALID_CONFIG("ERR-017", "Invalid contract configuration"),
+
+    // Error code when tickets stored under their bare ID must be migrated before the operation
+    TICKET_KEYS_NOT_MIGRATED("ERR-018", "Tickets must be migrated with MigrateTicketKeys first"),
+
+    // Error code when an index does not hold the tickets written before it existed yet
+    TICKET_INDEX_NOT_REBUILT("ERR-019", "Index must be rebuilt up to FinishTicketIndexRebuild first"),
+
+    // Error code when a ticket is changed while the indexes are being rebuilt
+    TICKET_INDEX_REBUILDING("ERR-020", "Tickets cannot be changed until FinishTicketIndexRebuild"),
+
+    // Error code when a transaction of the administrators is invoked by another client
+    TICKET_NOT_ADMIN("ERR-021", "Only an administrator of the organization can invoke this transaction");
 
     private final String code; // Ticket Error code
     private final String description; // Ticket Description of the error
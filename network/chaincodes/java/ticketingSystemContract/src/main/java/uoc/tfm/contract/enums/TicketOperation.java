@@ -0,0 +1,40 @@
+package uoc.tfm.contract.enums;
+
+import lombok.AllArgsConstructor;
+
+@AllArgsConstructor
+public enum TicketOperation {
+
+    // A new ticket was opened
+    OPEN("OP-001", "Ticket opened"),
+
+    // The status or the fields of a ticket were updated
+    UPDATE("OP-002", "Ticket updated"),
+
+    // A comment was added to a ticket
+    COMMENT("OP-003", "Comment added to the ticket"),
+
+    // A ticket was deleted
+    DELETE("OP-004", "Ticket deleted"),
+
+    // A closed ticket was moved to the archive
+    ARCHIVE("OP-005", "Ticket archived");
+
+    private final String code; // Ticket operation code
+    private final String description; // Ticket operation description
+
+    // Method to get all values of the enum
+    public static TicketOperation[] getAllTicketOperations() {
+        return TicketOperation.values();
+    }
+
+    // Getter for ticket operation code
+    public String getCode() {
+        return code;
+    }
+
+    // Getter for ticket operation description
+    public String getDescription() {
+        return description;
+    }
+}
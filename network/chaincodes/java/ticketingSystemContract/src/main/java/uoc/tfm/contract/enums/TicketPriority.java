@@ -1,5 +1,9 @@
 package uoc.tfm.contract.enums;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
@@ -20,6 +24,15 @@ public enum TicketPriority {
     private final String code; // Ticket priority code
     private final String description; // Ticket priority description
 
+    // Constants by name, for fromString
+    private static final Map<String, TicketPriority> BY_NAME = new HashMap<>();
+
+    static {
+        for (TicketPriority tp : values()) {
+            BY_NAME.put(tp.name(), tp);
+        }
+    }
+
     // Method to get all values of the enum
     public static TicketPriority[] getAllTicketPriorities() {
         return TicketPriority.values();
@@ -33,14 +46,10 @@ public enum TicketPriority {
      * @return the enum constant with the specified name.
      */
     public static TicketPriority fromString(String priority) {
-        if (priority != null) {
-            for (TicketPriority tp : TicketPriority.values()) {
-                if (priority.equalsIgnoreCase(tp.name())) {
-                    return tp;
-                }
-            }
+        if (priority == null) {
+            return UNKNOWN;
         }
-        return UNKNOWN;
+        return BY_NAME.getOrDefault(priority.toUpperCase(Locale.ROOT), UNKNOWN);
     }
 
     // Getter for ticket priority code
@@ -1,5 +1,9 @@
 package uoc.tfm.contract.enums;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
@@ -23,6 +27,15 @@ public enum TicketStatus {
     private final String code; // Ticket status code
     private final String description; // Ticket status description
 
+    // Constants by name, for fromString
+    private static final Map<String, TicketStatus> BY_NAME = new HashMap<>();
+
+    static {
+        for (TicketStatus ts : values()) {
+            BY_NAME.put(ts.name(), ts);
+        }
+    }
+
     // Method to get all values of the enum
     public static TicketStatus[] getAllTicketStatus() {
         return TicketStatus.values();
@@ -36,14 +49,10 @@ public enum TicketStatus {
      * @return the enum constant with the specified name.
      */
     public static TicketStatus fromString(String status) {
-        if (status != null) {
-            for (TicketStatus ts : TicketStatus.values()) {
-                if (status.equalsIgnoreCase(ts.name())) {
-                    return ts;
-                }
-            }
+        if (status == null) {
+            return UNKNOWN;
         }
-        return UNKNOWN;
+        return BY_NAME.getOrDefault(status.toUpperCase(Locale.ROOT), UNKNOWN);
     }
 
     // Getter for ticket status code
@@ -0,0 +1,136 @@
+package uoc.tfm.contract.ledger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+/**
+ * Per-transaction cache in front of the chaincode stub.
+ *
+ * State reads are memoized, so reading the same key twice in a transaction
+ * costs a single round trip to the peer. Writes and deletes are buffered and
+ * coalesced by key, and are only sent to the peer when {@link #flush()} is
+ * called at the end of the transaction. Reads see the buffered writes of the
+ * transaction. Every other call, including range and composite key queries,
+ * goes straight to the peer.
+ */
+public final class CachingStub implements InvocationHandler {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ChaincodeStub delegate;
+    private final ChaincodeStub proxy;
+
+    // Values read or written during the transaction
+    private final Map<String, byte[]> values = new HashMap<>();
+
+    // Pending writes by key in write order, a null value is a delete
+    private final Map<String, byte[]> writes = new LinkedHashMap<>();
+
+    private CachingStub(final ChaincodeStub delegate) {
+        this.delegate = delegate;
+        this.proxy = (ChaincodeStub) Proxy.newProxyInstance(
+                ChaincodeStub.class.getClassLoader(), new Class<?>[] {ChaincodeStub.class}, this);
+    }
+
+    /**
+     * Creates a cache in front of the stub of a transaction.
+     *
+     * @param delegate the stub of the transaction
+     * @return the cache
+     */
+    public static CachingStub over(final ChaincodeStub delegate) {
+        return new CachingStub(delegate);
+    }
+
+    /**
+     * @return the stub that goes through the cache
+     */
+    public ChaincodeStub getStub() {
+        return proxy;
+    }
+
+    /**
+     * @return the number of writes and deletes waiting to be sent to the peer
+     */
+    public int getPendingWrites() {
+        return writes.size();
+    }
+
+    /**
+     * Sends the buffered writes and deletes to the peer, one per key.
+     */
+    public void flush() {
+        for (Map.Entry<String, byte[]> write : writes.entrySet()) {
+            if (write.getValue() == null) {
+                delegate.delState(write.getKey());
+            } else {
+                delegate.putState(write.getKey(), write.getValue());
+            }
+        }
+        writes.clear();
+    }
+
+    @Override
+    public Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "getState":
+                return getState((String) args[0]);
+            case "getStringState":
+                return new String(getState((String) args[0]), StandardCharsets.UTF_8);
+            case "putState":
+                putState((String) args[0], (byte[]) args[1]);
+                return null;
+            case "putStringState":
+                putState((String) args[0], ((String) args[1]).getBytes(StandardCharsets.UTF_8));
+                return null;
+            case "delState":
+                delState((String) args[0]);
+                return null;
+            default:
+                try {
+                    return method.invoke(delegate, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+        }
+    }
+
+    private byte[] getState(final String key) {
+        byte[] value = values.get(key);
+        if (value == null) {
+            value = delegate.getState(key);
+            values.put(key, value != null ? value : EMPTY);
+        }
+        return value != null ? value : EMPTY;
+    }
+
+    private void putState(final String key, final byte[] value) {
+        validateKey(key);
+        values.put(key, value);
+        writes.put(key, value);
+    }
+
+    private void delState(final String key) {
+        validateKey(key);
+        values.put(key, EMPTY);
+        writes.put(key, null);
+    }
+
+    /**
+     * Rejects invalid keys when they are written instead of at the end of the
+     * transaction.
+     */
+    private static void validateKey(final String key) {
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key cannot be null or empty");
+        }
+    }
+}
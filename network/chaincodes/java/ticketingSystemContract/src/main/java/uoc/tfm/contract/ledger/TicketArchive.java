@@ -0,0 +1,52 @@
+package uoc.tfm.contract.ledger;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+/**
+ * Keys of the archived tickets.
+ *
+ * Archived tickets are stored under a composite key instead of their ID, so
+ * they are left out of the range scans of the active tickets and of their
+ * indexes, but they can still be read, listed and purged.
+ */
+public final class TicketArchive {
+
+    // Archived tickets (archive~ticketId)
+    public static final String ARCHIVE_KEY = "archive~ticketId";
+
+    private TicketArchive() {
+    }
+
+    /**
+     * Builds the key of an archived ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the composite key of the archived ticket
+     */
+    public static String key(final ChaincodeStub stub, final String ticketId) {
+        return stub.createCompositeKey(ARCHIVE_KEY, ticketId).toString();
+    }
+
+    /**
+     * Builds the partial composite key that selects all the archived tickets.
+     *
+     * @param stub the chaincode stub
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub) {
+        return stub.createCompositeKey(ARCHIVE_KEY);
+    }
+
+    /**
+     * Extracts the ticket ID from the key of an archived ticket.
+     *
+     * @param stub       the chaincode stub
+     * @param archiveKey the composite key of the archived ticket
+     * @return the ID of the ticket
+     */
+    public static String ticketIdOf(final ChaincodeStub stub, final String archiveKey) {
+        return stub.splitCompositeKey(archiveKey).getAttributes().get(0);
+    }
+}
@@ -0,0 +1,402 @@
+package uoc.tfm.contract.ledger;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.util.TicketFieldFilter;
+
+/**
+ * Maintains the optional bitmap index of the tickets, used to combine filters
+ * on the project, the status and the assigned user before reading any ticket.
+ *
+ * Each ticket gets a dense ordinal when it is opened. For every value of the
+ * filtered fields, the ordinals of the tickets holding it are kept in a
+ * bitmap split in chunks of {@value #CHUNK_SIZE} ordinals, each stored under
+ * its own key. Like the containers of a Roaring bitmap, a chunk is stored as
+ * the sorted list of its ordinals while that is smaller than the plain
+ * bitmap, so no chunk takes more than 513 bytes and a change only rewrites
+ * one chunk per field.
+ *
+ * The index adds its keys to the read and write sets of the transactions
+ * that open tickets or change their filtered fields, so it makes them
+ * conflict with each other in MVCC validation. Every new ticket reads and
+ * writes the single counter of the ordinals, so of the tickets opened in the
+ * same block only the first one is committed. Every change of a filtered
+ * field reads and rewrites the chunks of its old and new values, so two
+ * changes of tickets whose ordinals share a chunk conflict when they touch a
+ * value in common, e.g. two tickets of the same project moving to
+ * IN_PROGRESS. It is meant for channels where tickets change at a low rate
+ * and filters are frequent, and is disabled by default.
+ *
+ * The bitmaps are not kept while the index is disabled, so they only hold
+ * every ticket on the ledger when it was enabled before any ticket was
+ * opened, or after the indexes are rebuilt up to FinishTicketIndexRebuild.
+ * Until then the index is marked as not complete and the filters scan the
+ * tickets.
+ */
+public final class TicketBitmaps {
+
+    // Chunks of the bitmaps (bitmap~field~value~chunk)
+    public static final String BITMAP_KEY = "bitmap~field~value~chunk";
+
+    // Ordinal of each ticket (ordinal~ticketId)
+    public static final String ORDINAL_KEY = "ordinal~ticketId";
+
+    // Ticket of each ordinal (ordinalTicket~ordinal)
+    public static final String ORDINAL_TICKET_KEY = "ordinalTicket~ordinal";
+
+    // Next ordinal to give to a ticket
+    public static final String NEXT_ORDINAL_KEY = "nextOrdinal";
+
+    // Marker of an index that holds every ticket on the ledger (bitmapIndexComplete)
+    public static final String COMPLETE_KEY = "bitmapIndexComplete";
+
+    // All the keys of the index, for rebuilding it
+    public static final List<String> ALL_KEYS = List.of(BITMAP_KEY, ORDINAL_KEY, ORDINAL_TICKET_KEY,
+            NEXT_ORDINAL_KEY);
+
+    // JSON fields of the ticket with a bitmap per value
+    public static final List<String> FIELDS = List.of(TicketFieldFilter.PROJECT_FIELD,
+            TicketFieldFilter.STATUS_FIELD, TicketFieldFilter.ASSIGNED_FIELD);
+
+    // Number of ordinals of each chunk
+    private static final int CHUNK_SIZE = 4096;
+
+    // Encodings of a chunk, given by its first byte
+    private static final byte ARRAY_CHUNK = 0;
+    private static final byte BITMAP_CHUNK = 1;
+
+    // Most ordinals a chunk is stored as a list for, two bytes each
+    private static final int MAX_ARRAY_CARDINALITY = CHUNK_SIZE / 16;
+
+    private TicketBitmaps() {
+    }
+
+    /**
+     * Updates the bitmaps of a ticket after a change on the ledger. A new
+     * ticket gets the next ordinal, and the ordinal of a deleted ticket is
+     * left unused. Tickets opened before the index was enabled are skipped
+     * until the index is rebuilt.
+     *
+     * @param stub     the chaincode stub
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it was deleted
+     */
+    public static void update(final ChaincodeStub stub, final Ticket previous, final Ticket current) {
+        String ticketId = current != null ? current.getTicketId() : previous.getTicketId();
+        Integer ordinal = previous == null ? allocate(stub, ticketId) : ordinalOf(stub, ticketId);
+        if (ordinal == null) {
+            return;
+        }
+
+        for (String field : FIELDS) {
+            String previousValue = previous != null ? valueOf(previous, field) : null;
+            String currentValue = current != null ? valueOf(current, field) : null;
+
+            if (Objects.equals(previousValue, currentValue)) {
+                continue;
+            }
+            if (previousValue != null) {
+                setBit(stub, field, previousValue, ordinal, false);
+            }
+            if (currentValue != null) {
+                setBit(stub, field, currentValue, ordinal, true);
+            }
+        }
+
+        if (current == null) {
+            stub.delState(stub.createCompositeKey(ORDINAL_KEY, ticketId).toString());
+            stub.delState(stub.createCompositeKey(ORDINAL_TICKET_KEY, String.valueOf(ordinal)).toString());
+        }
+    }
+
+    /**
+     * Tells whether the index holds every ticket on the ledger.
+     *
+     * @param stub the chaincode stub
+     * @return true if the index is complete
+     */
+    public static boolean isComplete(final ChaincodeStub stub) {
+        byte[] value = stub.getState(stub.createCompositeKey(COMPLETE_KEY).toString());
+        return value != null && value.length > 0;
+    }
+
+    /**
+     * Marks the index as holding every ticket on the ledger or not.
+     *
+     * @param stub     the chaincode stub
+     * @param complete whether the index is complete
+     */
+    public static void setComplete(final ChaincodeStub stub, final boolean complete) {
+        String key = stub.createCompositeKey(COMPLETE_KEY).toString();
+        if (complete) {
+            stub.putState(key, toBytes(Boolean.TRUE.toString()));
+        } else {
+            stub.delState(key);
+        }
+    }
+
+    /**
+     * Tells whether no ticket was ever given an ordinal, so the index holds
+     * no bitmaps.
+     *
+     * @param stub the chaincode stub
+     * @return true if the index is empty
+     */
+    public static boolean isEmpty(final ChaincodeStub stub) {
+        return nextOrdinal(stub) == 0;
+    }
+
+    /**
+     * Finds the tickets matching some criteria, in the order they were
+     * opened. The bitmaps of the values of each field are ORed and the fields
+     * are ANDed, one chunk at a time, and the search stops as soon as enough
+     * tickets are found.
+     *
+     * @param stub     the chaincode stub
+     * @param criteria the accepted values of each field, at least one field
+     * @param offset   the number of matching tickets to skip
+     * @param limit    the maximum number of tickets to return
+     * @return the IDs of the matching tickets
+     */
+    public static List<String> find(final ChaincodeStub stub, final Map<String, List<String>> criteria,
+            final long offset, final int limit) {
+
+        int numberOfOrdinals = nextOrdinal(stub);
+        long toSkip = offset;
+        List<String> ticketIds = new ArrayList<>();
+
+        for (int chunk = 0; chunk * CHUNK_SIZE < numberOfOrdinals && ticketIds.size() < limit; chunk++) {
+            BitSet matches = matchChunk(stub, criteria, chunk);
+            int cardinality = matches.cardinality();
+            if (toSkip >= cardinality) {
+                toSkip -= cardinality;
+                continue;
+            }
+            for (int bit = matches.nextSetBit(0); bit >= 0 && ticketIds.size() < limit;
+                    bit = matches.nextSetBit(bit + 1)) {
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                ticketIds.add(ticketIdOf(stub, chunk * CHUNK_SIZE + bit));
+            }
+        }
+        return ticketIds;
+    }
+
+    /**
+     * Adds tickets to the index in bulk, giving them consecutive ordinals
+     * after the last one given and writing each chunk they change once,
+     * merged with its stored bits. Used by the rebuild of the index, one
+     * chunk of tickets per transaction, after its previous keys are deleted.
+     */
+    public static final class Builder {
+
+        private final ChaincodeStub stub;
+        private final Map<String, BitSet> chunks = new TreeMap<>();
+        private int nextOrdinal;
+
+        public Builder(final ChaincodeStub stub) {
+            this.stub = stub;
+            this.nextOrdinal = nextOrdinal(stub);
+        }
+
+        /**
+         * Adds a ticket from the raw values of its fields, as read by
+         * {@link TicketFieldFilter#readFields}, unless it already has an
+         * ordinal.
+         *
+         * @param ticketId the ID of the ticket
+         * @param fields   the text of the fields, keyed by JSON field name
+         */
+        public void add(final String ticketId, final Map<String, String> fields) {
+            // A ticket added by a previous call keeps its ordinal and bits
+            if (ordinalOf(stub, ticketId) != null) {
+                return;
+            }
+            int ordinal = nextOrdinal++;
+            putOrdinal(stub, ticketId, ordinal);
+            for (String field : FIELDS) {
+                String value = fields.get(field);
+                if (value != null && !value.isEmpty()) {
+                    chunks.computeIfAbsent(chunkKey(stub, field, value, ordinal / CHUNK_SIZE),
+                            key -> new BitSet(CHUNK_SIZE)).set(ordinal % CHUNK_SIZE);
+                }
+            }
+        }
+
+        /**
+         * Writes the chunks and the counter of the ordinals.
+         */
+        public void write() {
+            for (Map.Entry<String, BitSet> chunk : chunks.entrySet()) {
+                // A chunk may hold tickets added by the previous transactions
+                BitSet bits = decode(stub.getState(chunk.getKey()));
+                bits.or(chunk.getValue());
+                stub.putState(chunk.getKey(), encode(bits));
+            }
+            putNextOrdinal(stub, nextOrdinal);
+        }
+    }
+
+    /**
+     * Gives a new ticket the next ordinal.
+     */
+    private static int allocate(final ChaincodeStub stub, final String ticketId) {
+        int ordinal = nextOrdinal(stub);
+        putNextOrdinal(stub, ordinal + 1);
+        putOrdinal(stub, ticketId, ordinal);
+        return ordinal;
+    }
+
+    private static void putOrdinal(final ChaincodeStub stub, final String ticketId, final int ordinal) {
+        stub.putState(stub.createCompositeKey(ORDINAL_KEY, ticketId).toString(), toBytes(String.valueOf(ordinal)));
+        stub.putState(stub.createCompositeKey(ORDINAL_TICKET_KEY, String.valueOf(ordinal)).toString(),
+                toBytes(ticketId));
+    }
+
+    private static void putNextOrdinal(final ChaincodeStub stub, final int nextOrdinal) {
+        stub.putState(stub.createCompositeKey(NEXT_ORDINAL_KEY).toString(), toBytes(String.valueOf(nextOrdinal)));
+    }
+
+    private static int nextOrdinal(final ChaincodeStub stub) {
+        String nextOrdinal = fromBytes(stub.getState(stub.createCompositeKey(NEXT_ORDINAL_KEY).toString()));
+        return nextOrdinal != null ? Integer.parseInt(nextOrdinal) : 0;
+    }
+
+    private static Integer ordinalOf(final ChaincodeStub stub, final String ticketId) {
+        String ordinal = fromBytes(stub.getState(stub.createCompositeKey(ORDINAL_KEY, ticketId).toString()));
+        return ordinal != null ? Integer.valueOf(ordinal) : null;
+    }
+
+    private static String ticketIdOf(final ChaincodeStub stub, final int ordinal) {
+        return fromBytes(stub.getState(
+                stub.createCompositeKey(ORDINAL_TICKET_KEY, String.valueOf(ordinal)).toString()));
+    }
+
+    /**
+     * Computes the ordinals of a chunk that match the criteria.
+     */
+    private static BitSet matchChunk(final ChaincodeStub stub, final Map<String, List<String>> criteria,
+            final int chunk) {
+        BitSet matches = null;
+        for (Map.Entry<String, List<String>> criterion : criteria.entrySet()) {
+            BitSet union = new BitSet(CHUNK_SIZE);
+            for (String value : criterion.getValue()) {
+                union.or(decode(stub.getState(chunkKey(stub, criterion.getKey(), value, chunk))));
+            }
+            if (matches == null) {
+                matches = union;
+            } else {
+                matches.and(union);
+            }
+            // The chunks of the remaining fields are not read if nothing matches
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return matches != null ? matches : new BitSet();
+    }
+
+    /**
+     * Sets or clears the bit of a ticket in the bitmap of a value, deleting
+     * the chunk when it becomes empty.
+     */
+    private static void setBit(final ChaincodeStub stub, final String field, final String value,
+            final int ordinal, final boolean set) {
+        String key = chunkKey(stub, field, value, ordinal / CHUNK_SIZE);
+        BitSet bits = decode(stub.getState(key));
+        bits.set(ordinal % CHUNK_SIZE, set);
+        if (bits.isEmpty()) {
+            stub.delState(key);
+        } else {
+            stub.putState(key, encode(bits));
+        }
+    }
+
+    private static String chunkKey(final ChaincodeStub stub, final String field, final String value,
+            final int chunk) {
+        return stub.createCompositeKey(BITMAP_KEY, field, value, String.valueOf(chunk)).toString();
+    }
+
+    /**
+     * Gives the value of a field of a ticket in the bitmaps.
+     *
+     * @return the value, or null if the ticket has none
+     */
+    private static String valueOf(final Ticket ticket, final String field) {
+        String value;
+        switch (field) {
+            case TicketFieldFilter.PROJECT_FIELD:
+                value = String.valueOf(ticket.getProjectIdNum());
+                break;
+            case TicketFieldFilter.STATUS_FIELD:
+                value = ticket.getTicketStatus() != null ? ticket.getTicketStatus().name() : null;
+                break;
+            case TicketFieldFilter.ASSIGNED_FIELD:
+                value = ticket.getAssigned();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown bitmap field: " + field);
+        }
+        return value != null && !value.isEmpty() ? value : null;
+    }
+
+    /**
+     * Encodes a chunk as the list of its ordinals or as a plain bitmap,
+     * whichever is smaller.
+     */
+    private static byte[] encode(final BitSet bits) {
+        int cardinality = bits.cardinality();
+        if (cardinality <= MAX_ARRAY_CARDINALITY) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 * cardinality).put(ARRAY_CHUNK);
+            for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+                buffer.putShort((short) bit);
+            }
+            return buffer.array();
+        }
+        long[] words = bits.toLongArray();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 * words.length).put(BITMAP_CHUNK);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return buffer.array();
+    }
+
+    private static BitSet decode(final byte[] chunk) {
+        BitSet bits = new BitSet(CHUNK_SIZE);
+        if (chunk == null || chunk.length == 0) {
+            return bits;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        if (buffer.get() == ARRAY_CHUNK) {
+            while (buffer.hasRemaining()) {
+                bits.set(Short.toUnsignedInt(buffer.getShort()));
+            }
+            return bits;
+        }
+        long[] words = new long[buffer.remaining() / 8];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    private static byte[] toBytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String fromBytes(final byte[] bytes) {
+        return bytes != null && bytes.length > 0 ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+}
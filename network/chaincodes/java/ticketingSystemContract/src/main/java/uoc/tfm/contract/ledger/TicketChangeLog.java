@@ -0,0 +1,217 @@
+package uoc.tfm.contract.ledger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.enums.TicketOperation;
+
+/**
+ * Stores the changes of the tickets as append-only field diffs.
+ *
+ * Each mutation of a ticket adds a record under its own composite key with
+ * only the fields it changed (all of them when the ticket is opened) and
+ * their previous values, so the timeline of a ticket can be rebuilt from a
+ * few small records instead of decoding a full snapshot of the ticket per
+ * update from its key history. Like the comments, the transaction attribute of
+ * the key is prefixed with the transaction timestamp and suffixed with a
+ * sequence number, so the records of a ticket are listed in the order they
+ * were made.
+ *
+ * The records are written on top of the ticket itself, whose key still holds
+ * its full current state and so gets a full snapshot per change in the blocks
+ * and the history database. The change log makes the ledger larger, not
+ * smaller: what it saves is the cost of reading the timeline.
+ */
+public final class TicketChangeLog {
+
+    // Changes of the tickets (changelog~ticketId~txId)
+    public static final String CHANGELOG_KEY = "changelog~ticketId~txId";
+
+    // JSON fields of a record
+    public static final String TICKET_ID_FIELD = "ticketId";
+    public static final String OPERATION_FIELD = "operation";
+    public static final String CHANGES_FIELD = "changes";
+    public static final String PREVIOUS_FIELD = "previous";
+    public static final String COMMENT_FIELD = "comment";
+
+    // Fields of the ticket left out of the diffs: the ID is in the key, the
+    // modification date is the time of the record and comments have their own
+    // records
+    private static final Set<String> SKIPPED_FIELDS = Set.of("ticketId", "lastModifiedDate", "comments");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private TicketChangeLog() {
+    }
+
+    /**
+     * Stores the diff of a change of a ticket, with the previous value of the
+     * changed fields unless the ticket is new, so a record is complete even
+     * when the earlier changes of the ticket were made before the change log
+     * was enabled. Nothing is written for an update that does not change any
+     * field.
+     *
+     * @param stub        the chaincode stub
+     * @param previous    the ticket before the change, or null if it is new
+     * @param current     the ticket after the change, or null if it left the
+     *                    active tickets
+     * @param operation   the kind of operation
+     * @param epochMillis the time of the change, in milliseconds since the epoch
+     * @param sequence    the number of records already added to the ticket in
+     *                    the same transaction
+     * @throws IOException if the record cannot be written
+     */
+    public static void add(
+            final ChaincodeStub stub,
+            final Ticket previous,
+            final Ticket current,
+            final TicketOperation operation,
+            final long epochMillis,
+            final int sequence) throws IOException {
+
+        ObjectNode changes = diff(previous, current);
+        if (changes.isEmpty() && operation == TicketOperation.UPDATE) {
+            return;
+        }
+        String ticketId = current != null ? current.getTicketId() : previous.getTicketId();
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put(TICKET_ID_FIELD, ticketId);
+        record.put(OPERATION_FIELD, operation.name());
+        record.set(CHANGES_FIELD, changes);
+        if (previous != null && !changes.isEmpty()) {
+            JsonNode before = MAPPER.valueToTree(previous);
+            ObjectNode previousValues = record.putObject(PREVIOUS_FIELD);
+            changes.fieldNames().forEachRemaining(field -> previousValues.set(field, before.get(field)));
+        }
+
+        stub.putState(key(stub, ticketId, epochMillis, sequence), MAPPER.writeValueAsBytes(record));
+    }
+
+    /**
+     * Stores a record for a new comment of a ticket.
+     *
+     * @param stub        the chaincode stub
+     * @param ticketId    the ID of the ticket
+     * @param comment     the text of the comment
+     * @param epochMillis the time of the comment, in milliseconds since the epoch
+     * @param sequence    the number of records already added to the ticket in
+     *                    the same transaction
+     * @throws IOException if the record cannot be written
+     */
+    public static void addComment(
+            final ChaincodeStub stub,
+            final String ticketId,
+            final String comment,
+            final long epochMillis,
+            final int sequence) throws IOException {
+
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put(TICKET_ID_FIELD, ticketId);
+        record.put(OPERATION_FIELD, TicketOperation.COMMENT.name());
+        record.put(COMMENT_FIELD, comment);
+        stub.putState(key(stub, ticketId, epochMillis, sequence), MAPPER.writeValueAsBytes(record));
+    }
+
+    /**
+     * Gives the fields whose value differs between two versions of a ticket,
+     * with their new value.
+     *
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it left the
+     *                 active tickets
+     * @return the changed fields, empty if the ticket left the active tickets
+     */
+    public static ObjectNode diff(final Ticket previous, final Ticket current) {
+        ObjectNode changes = MAPPER.createObjectNode();
+        if (current == null) {
+            return changes;
+        }
+        JsonNode before = previous != null ? MAPPER.valueToTree(previous) : MAPPER.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = MAPPER.<ObjectNode>valueToTree(current).fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (SKIPPED_FIELDS.contains(field.getKey())) {
+                continue;
+            }
+            JsonNode value = field.getValue();
+            JsonNode previousValue = before.get(field.getKey());
+            if (previousValue == null && value.isNull()) {
+                continue;
+            }
+            if (!Objects.equals(previousValue, value)) {
+                changes.set(field.getKey(), value);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Builds the partial composite key that selects the records of a ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub, final String ticketId) {
+        return stub.createCompositeKey(CHANGELOG_KEY, ticketId);
+    }
+
+    /**
+     * Extracts the time of a record from its key.
+     *
+     * @param stub         the chaincode stub
+     * @param changeLogKey the composite key of the record
+     * @return the time of the record, in milliseconds since the epoch
+     */
+    public static long epochMillisOf(final ChaincodeStub stub, final String changeLogKey) {
+        String txAttribute = txAttributeOf(stub, changeLogKey);
+        return Long.parseLong(txAttribute.substring(0, txAttribute.indexOf('-')));
+    }
+
+    /**
+     * Extracts the ID of the transaction that made a record from its key.
+     *
+     * @param stub         the chaincode stub
+     * @param changeLogKey the composite key of the record
+     * @return the transaction ID
+     */
+    public static String txIdOf(final ChaincodeStub stub, final String changeLogKey) {
+        String txAttribute = txAttributeOf(stub, changeLogKey);
+        return txAttribute.substring(txAttribute.indexOf('-') + 1, txAttribute.lastIndexOf('-'));
+    }
+
+    /**
+     * Parses a stored record.
+     *
+     * @param value the value of the record
+     * @return the record
+     * @throws IOException if the value is not valid JSON
+     */
+    public static ObjectNode read(final byte[] value) throws IOException {
+        return (ObjectNode) MAPPER.readTree(value);
+    }
+
+    private static String key(final ChaincodeStub stub, final String ticketId, final long epochMillis,
+            final int sequence) {
+        String txAttribute = String.format("%013d-%s-%03d", epochMillis, stub.getTxId(), sequence);
+        return stub.createCompositeKey(CHANGELOG_KEY, ticketId, txAttribute).toString();
+    }
+
+    private static String txAttributeOf(final ChaincodeStub stub, final String changeLogKey) {
+        List<String> attributes = stub.splitCompositeKey(changeLogKey).getAttributes();
+        return attributes.get(attributes.size() - 1);
+    }
+}
@@ -0,0 +1,73 @@
+package uoc.tfm.contract.ledger;
+
+import java.util.List;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+/**
+ * Stores the comments of the tickets as append-only child keys.
+ *
+ * Each comment is stored under its own composite key, whose attributes are the
+ * ticket ID and the transaction that added it, so adding a comment is a blind
+ * write that never reads nor rewrites the ticket, and comments on the same
+ * ticket do not conflict with each other. The transaction attribute is
+ * prefixed with the transaction timestamp and suffixed with a sequence number,
+ * so the comments of a ticket are listed in the order they were added.
+ */
+public final class TicketComments {
+
+    // Comments of the tickets (comment~ticketId~txId)
+    public static final String COMMENT_KEY = "comment~ticketId~txId";
+
+    private TicketComments() {
+    }
+
+    /**
+     * Stores a new comment of a ticket.
+     *
+     * @param stub        the chaincode stub
+     * @param ticketId    the ID of the ticket
+     * @param comment     the text of the comment
+     * @param epochMillis the time of the comment, in milliseconds since the epoch
+     * @param sequence    the number of comments already added to the ticket in
+     *                    the same transaction
+     * @return the key of the comment
+     */
+    public static String add(
+            final ChaincodeStub stub,
+            final String ticketId,
+            final String comment,
+            final long epochMillis,
+            final int sequence) {
+
+        String txAttribute = String.format("%013d-%s-%03d", epochMillis, stub.getTxId(), sequence);
+        String key = stub.createCompositeKey(COMMENT_KEY, ticketId, txAttribute).toString();
+        stub.putStringState(key, comment);
+        return key;
+    }
+
+    /**
+     * Builds the partial composite key that selects the comments of a ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub, final String ticketId) {
+        return stub.createCompositeKey(COMMENT_KEY, ticketId);
+    }
+
+    /**
+     * Extracts the time a comment was added from its key.
+     *
+     * @param stub       the chaincode stub
+     * @param commentKey the composite key of the comment
+     * @return the time of the comment, in milliseconds since the epoch
+     */
+    public static long epochMillisOf(final ChaincodeStub stub, final String commentKey) {
+        List<String> attributes = stub.splitCompositeKey(commentKey).getAttributes();
+        String txAttribute = attributes.get(attributes.size() - 1);
+        return Long.parseLong(txAttribute.substring(0, txAttribute.indexOf('-')));
+    }
+}
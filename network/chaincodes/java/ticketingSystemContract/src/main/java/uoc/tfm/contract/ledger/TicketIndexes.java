@@ -0,0 +1,413 @@
+package uoc.tfm.contract.ledger;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.enums.TicketOperation;
+import uoc.tfm.contract.enums.TicketPriority;
+import uoc.tfm.contract.util.TicketFieldFilter;
+
+/**
+ * Maintains the composite-key secondary indexes of the tickets.
+ *
+ * Each index entry is a composite key whose last attribute is the ticket ID,
+ * so a query only has to read the entries matching its filter and then the
+ * tickets they point to, instead of scanning the whole ledger.
+ *
+ * The time indexes hold the dates as zero-padded milliseconds since the epoch,
+ * so their entries are sorted by instant, also across the changes of the
+ * daylight saving time of the local dates of the tickets, and a time window
+ * is a single key range.
+ *
+ * The index by last modification date is also the log read by the clients
+ * that keep in sync: a ticket that leaves the active tickets, deleted or
+ * archived, leaves a removal entry there, and the entries of comments and of
+ * removals are never derived from the tickets, so the index is kept when the
+ * others are rebuilt.
+ */
+public final class TicketIndexes {
+
+    // Index of tickets by status (status~ticketId)
+    public static final String STATUS_INDEX = "status~ticketId";
+
+    // Index of tickets by project (project~ticketId)
+    public static final String PROJECT_INDEX = "project~ticketId";
+
+    // Index of tickets by assigned user (assigned~ticketId)
+    public static final String ASSIGNED_INDEX = "assigned~ticketId";
+
+    // Index of tickets by last modification, and of their removals
+    // (modified~epochMillis~ticketId)
+    public static final String MODIFIED_INDEX = "modified~epochMillis~ticketId";
+
+    // Index of tickets by creation date (created~epochMillis~ticketId)
+    public static final String CREATED_INDEX = "created~epochMillis~ticketId";
+
+    // Index of tickets for triage, by project and status, the most urgent
+    // and then the oldest first (triage~project~status~priorityRank~creationMillis~ticketId)
+    public static final String TRIAGE_INDEX = "triage~project~status~priorityRank~creationMillis~ticketId";
+
+    // All the indexes maintained for every ticket
+    public static final List<String> ALL_INDEXES = List.of(STATUS_INDEX, PROJECT_INDEX, ASSIGNED_INDEX,
+            MODIFIED_INDEX, CREATED_INDEX, TRIAGE_INDEX);
+
+    // Time indexes of earlier versions, keyed on the local dates as text,
+    // deleted when the indexes are rebuilt
+    public static final List<String> LEGACY_INDEXES = List.of("modified~lastModifiedDate~ticketId",
+            "created~creationDate~ticketId", "triage~project~status~priorityRank~creationDate~ticketId");
+
+    // Marker of a rebuild of the indexes in progress (indexRebuildInProgress)
+    public static final String REBUILD_KEY = "indexRebuildInProgress";
+
+    // Fixed-width format of the instants in the time indexes, sorted as text
+    private static final String TIME_FORMAT = "%013d";
+
+    // Zone of the local dates stored in the tickets
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+
+    // Value stored for index entries, all the information is in the key
+    private static final byte[] INDEX_VALUE = new byte[] {0x00};
+
+    private TicketIndexes() {
+    }
+
+    /**
+     * Updates the index entries of a ticket after a change on the ledger.
+     * Entries are only rewritten for the indexed fields that actually changed.
+     *
+     * @param stub     the chaincode stub
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it was deleted
+     */
+    public static void update(final ChaincodeStub stub, final Ticket previous, final Ticket current) {
+        for (String index : ALL_INDEXES) {
+            String previousKey = previous != null ? indexKey(stub, index, previous) : null;
+            String currentKey = current != null ? indexKey(stub, index, current) : null;
+
+            if (Objects.equals(previousKey, currentKey)) {
+                continue;
+            }
+            if (previousKey != null) {
+                stub.delState(previousKey);
+            }
+            if (currentKey != null) {
+                stub.putState(currentKey, INDEX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Adds an entry of a ticket to the index by last modification date, at the
+     * time of the transaction, for a change that does not rewrite the ticket,
+     * such as a comment. The entry is a blind write, so concurrent changes of
+     * the ticket do not conflict. It is left behind by later updates of the
+     * ticket, so readers of the index skip the entries older than the last
+     * modification of the ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     */
+    public static void touch(final ChaincodeStub stub, final String ticketId) {
+        stub.putState(entryKey(stub, MODIFIED_INDEX, ticketId, timeValue(stub.getTxTimestamp())), INDEX_VALUE);
+    }
+
+    /**
+     * Adds the removal of a ticket from the active tickets to the index by
+     * last modification date, at the time of the transaction, so the clients
+     * in sync learn that it is gone. The entry holds the kind of removal.
+     *
+     * @param stub      the chaincode stub
+     * @param ticketId  the ID of the ticket
+     * @param operation the kind of removal, DELETE or ARCHIVE
+     */
+    public static void addRemoval(final ChaincodeStub stub, final String ticketId,
+            final TicketOperation operation) {
+        stub.putState(entryKey(stub, MODIFIED_INDEX, ticketId, timeValue(stub.getTxTimestamp())),
+                operation.name().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gives the kind of removal an entry of the index by last modification
+     * date records.
+     *
+     * @param entry the value of the entry
+     * @return the kind of removal, or null if the entry is a modification
+     */
+    public static TicketOperation removalOf(final byte[] entry) {
+        if (entry == null || entry.length == 0 || Arrays.equals(entry, INDEX_VALUE)) {
+            return null;
+        }
+        return TicketOperation.valueOf(new String(entry, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds the partial composite key that selects the entries of an index
+     * with the given value.
+     *
+     * @param stub  the chaincode stub
+     * @param index the index name
+     * @param value the indexed value, or none to select the whole index
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub, final String index, final String... value) {
+        return stub.createCompositeKey(index, value);
+    }
+
+    /**
+     * Builds the key of the first possible entry of a time index at or after
+     * an instant, to start a query of the index there.
+     *
+     * @param stub  the chaincode stub
+     * @param index the time index name
+     * @param from  the earliest instant of the entries
+     * @return the composite key to start the query at
+     */
+    public static String startKey(final ChaincodeStub stub, final String index, final Instant from) {
+        return stub.createCompositeKey(index, timeValue(from)).toString();
+    }
+
+    /**
+     * Gives the value of an instant in the time indexes.
+     *
+     * @param instant the instant
+     * @return the fixed-width text of the instant, or null if there is none
+     */
+    public static String timeValue(final Instant instant) {
+        return instant != null ? String.format(TIME_FORMAT, instant.toEpochMilli()) : null;
+    }
+
+    /**
+     * Gives the value of a local date of a ticket in the time indexes. The
+     * date of a change made by the current transaction is its timestamp; any
+     * other date is resolved in the zone of the tickets, the earlier instant
+     * when it falls twice as the clocks go back.
+     *
+     * @param stub     the chaincode stub
+     * @param dateTime the local date
+     * @return the fixed-width text of its instant, or null if there is no date
+     */
+    public static String timeValue(final ChaincodeStub stub, final LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        Instant txTimestamp = stub.getTxTimestamp();
+        if (txTimestamp != null && dateTime.equals(LocalDateTime.ofInstant(txTimestamp, ZONE))) {
+            return timeValue(txTimestamp);
+        }
+        return timeValue(dateTime.atZone(ZONE).toInstant());
+    }
+
+    /**
+     * Extracts the ticket ID from an index entry key.
+     *
+     * @param stub     the chaincode stub
+     * @param indexKey the composite key of the index entry
+     * @return the ticket ID the entry points to
+     */
+    public static String ticketIdOf(final ChaincodeStub stub, final String indexKey) {
+        List<String> attributes = stub.splitCompositeKey(indexKey).getAttributes();
+        return attributes.get(attributes.size() - 1);
+    }
+
+    /**
+     * Extracts the indexed value from an index entry key.
+     *
+     * @param stub     the chaincode stub
+     * @param indexKey the composite key of the index entry
+     * @return the indexed value of the entry
+     */
+    public static String indexedValueOf(final ChaincodeStub stub, final String indexKey) {
+        return stub.splitCompositeKey(indexKey).getAttributes().get(0);
+    }
+
+    /**
+     * Checks whether an index holds an entry for a ticket with the given value,
+     * reading a single index key instead of the ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param index    the index name
+     * @param value    the indexed value
+     * @param ticketId the ID of the ticket
+     * @return true if the entry exists
+     */
+    public static boolean hasEntry(final ChaincodeStub stub, final String index, final String value,
+            final String ticketId) {
+        String key = entryKey(stub, index, ticketId, value);
+        if (key == null) {
+            return false;
+        }
+        byte[] entry = stub.getState(key);
+        return entry != null && entry.length > 0;
+    }
+
+    /**
+     * Tells whether a rebuild of the indexes is in progress, from
+     * StartTicketIndexRebuild up to FinishTicketIndexRebuild.
+     *
+     * @param stub the chaincode stub
+     * @return true if the indexes are being rebuilt
+     */
+    public static boolean isRebuilding(final ChaincodeStub stub) {
+        byte[] value = stub.getState(stub.createCompositeKey(REBUILD_KEY).toString());
+        return value != null && value.length > 0;
+    }
+
+    /**
+     * Marks a rebuild of the indexes as in progress or finished.
+     *
+     * @param stub       the chaincode stub
+     * @param rebuilding whether the indexes are being rebuilt
+     */
+    public static void setRebuilding(final ChaincodeStub stub, final boolean rebuilding) {
+        String key = stub.createCompositeKey(REBUILD_KEY).toString();
+        if (rebuilding) {
+            stub.putState(key, INDEX_VALUE);
+        } else {
+            stub.delState(key);
+        }
+    }
+
+    /**
+     * Adds the index entries of a ticket from the raw values of its indexed
+     * fields, as read by {@link TicketFieldFilter#readFields}, without binding
+     * the ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @param fields   the text of the indexed fields, keyed by JSON field name,
+     *                 with the dates in ISO format
+     */
+    public static void add(final ChaincodeStub stub, final String ticketId, final Map<String, String> fields) {
+        for (String index : ALL_INDEXES) {
+            List<String> indexedFields = fieldsOf(index);
+            String[] values = new String[indexedFields.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = fieldValue(stub, indexedFields.get(i), fields.get(indexedFields.get(i)));
+            }
+            String key = entryKey(stub, index, ticketId, values);
+            if (key != null) {
+                stub.putState(key, INDEX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Gives the JSON fields of the ticket an index is built on, in the order
+     * of the attributes of its entries.
+     *
+     * @param index the index name
+     * @return the names of the indexed fields
+     */
+    public static List<String> fieldsOf(final String index) {
+        switch (index) {
+            case STATUS_INDEX:
+                return List.of(TicketFieldFilter.STATUS_FIELD);
+            case PROJECT_INDEX:
+                return List.of(TicketFieldFilter.PROJECT_FIELD);
+            case ASSIGNED_INDEX:
+                return List.of(TicketFieldFilter.ASSIGNED_FIELD);
+            case MODIFIED_INDEX:
+                return List.of(TicketFieldFilter.LAST_MODIFIED_FIELD);
+            case CREATED_INDEX:
+                return List.of(TicketFieldFilter.CREATION_DATE_FIELD);
+            case TRIAGE_INDEX:
+                return List.of(TicketFieldFilter.PROJECT_FIELD, TicketFieldFilter.STATUS_FIELD,
+                        TicketFieldFilter.PRIORITY_FIELD, TicketFieldFilter.CREATION_DATE_FIELD);
+            default:
+                throw new IllegalArgumentException("Unknown ticket index: " + index);
+        }
+    }
+
+    /**
+     * Gives the rank of a priority in the triage index, the most urgent first.
+     *
+     * @param priority the priority of the ticket
+     * @return the rank, or null if there is no priority
+     */
+    public static String priorityRank(final TicketPriority priority) {
+        if (priority == null) {
+            return null;
+        }
+        switch (priority) {
+            case HIGH:
+                return "0";
+            case MEDIUM:
+                return "1";
+            case LOW:
+                return "2";
+            default:
+                return "3";
+        }
+    }
+
+    /**
+     * Converts the raw text of an indexed field into its value in the indexes.
+     */
+    private static String fieldValue(final ChaincodeStub stub, final String field, final String text) {
+        if (text == null) {
+            return null;
+        }
+        switch (field) {
+            case TicketFieldFilter.LAST_MODIFIED_FIELD:
+            case TicketFieldFilter.CREATION_DATE_FIELD:
+                return timeValue(stub, LocalDateTime.parse(text));
+            case TicketFieldFilter.PRIORITY_FIELD:
+                return priorityRank(TicketPriority.fromString(text));
+            default:
+                return text;
+        }
+    }
+
+    /**
+     * Builds the key of the entry of a ticket in an index.
+     *
+     * @return the composite key, or null if the ticket has no value to index
+     */
+    private static String indexKey(final ChaincodeStub stub, final String index, final Ticket ticket) {
+        String status = ticket.getTicketStatus() != null ? ticket.getTicketStatus().name() : null;
+        switch (index) {
+            case STATUS_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), status);
+            case PROJECT_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), String.valueOf(ticket.getProjectIdNum()));
+            case ASSIGNED_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), ticket.getAssigned());
+            case MODIFIED_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), timeValue(stub, ticket.getLastModifiedDate()));
+            case CREATED_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), timeValue(stub, ticket.getCreationDate()));
+            case TRIAGE_INDEX:
+                return entryKey(stub, index, ticket.getTicketId(), String.valueOf(ticket.getProjectIdNum()), status,
+                        priorityRank(ticket.getTicketPriority()), timeValue(stub, ticket.getCreationDate()));
+            default:
+                throw new IllegalArgumentException("Unknown ticket index: " + index);
+        }
+    }
+
+    /**
+     * Builds the key of an index entry.
+     *
+     * @return the composite key, or null if any of the values is missing
+     */
+    private static String entryKey(final ChaincodeStub stub, final String index, final String ticketId,
+            final String... values) {
+        for (String value : values) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+        }
+        String[] attributes = Arrays.copyOf(values, values.length + 1);
+        attributes[values.length] = ticketId;
+        return stub.createCompositeKey(index, attributes).toString();
+    }
+}
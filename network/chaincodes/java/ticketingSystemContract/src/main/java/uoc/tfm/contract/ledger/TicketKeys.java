@@ -0,0 +1,107 @@
+package uoc.tfm.contract.ledger;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+/**
+ * Keys of the active tickets.
+ *
+ * Tickets are stored under a composite key of their own object type, so the
+ * scans of the tickets are bounded to them and never read the index entries,
+ * comments, stats or any other key of the contract. Earlier versions stored
+ * the tickets at their bare ID; those legacy keys are still read until they
+ * are moved by the key migration.
+ */
+public final class TicketKeys {
+
+    // Active tickets (ticket~ticketId)
+    public static final String TICKET_KEY = "ticket~ticketId";
+
+    private TicketKeys() {
+    }
+
+    /**
+     * Builds the key of a ticket.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the composite key of the ticket
+     */
+    public static String key(final ChaincodeStub stub, final String ticketId) {
+        return stub.createCompositeKey(TICKET_KEY, ticketId).toString();
+    }
+
+    /**
+     * Builds the partial composite key that selects all the tickets.
+     *
+     * @param stub the chaincode stub
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub) {
+        return stub.createCompositeKey(TICKET_KEY);
+    }
+
+    /**
+     * Extracts the ticket ID from the key of a ticket.
+     *
+     * @param stub      the chaincode stub
+     * @param ticketKey the composite key of the ticket
+     * @return the ID of the ticket
+     */
+    public static String ticketIdOf(final ChaincodeStub stub, final String ticketKey) {
+        return stub.splitCompositeKey(ticketKey).getAttributes().get(0);
+    }
+
+    /**
+     * Finds the key a ticket is stored under: its composite key or, if it has
+     * not been migrated yet, its legacy bare key. The keys are read through the
+     * stub, so with the caching stub of the contract the value of the returned
+     * key can be read again without another call to the peer.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the key of the ticket, or null if it does not exist
+     */
+    public static String storedKey(final ChaincodeStub stub, final String ticketId) {
+        String key = key(stub, ticketId);
+        if (exists(stub.getState(key))) {
+            return key;
+        }
+        return exists(stub.getState(ticketId)) ? ticketId : null;
+    }
+
+    /**
+     * Reads a ticket, falling back to its legacy bare key.
+     *
+     * @param stub     the chaincode stub
+     * @param ticketId the ID of the ticket
+     * @return the stored value of the ticket, empty if it does not exist
+     */
+    public static byte[] read(final ChaincodeStub stub, final String ticketId) {
+        String key = storedKey(stub, ticketId);
+        return key != null ? stub.getState(key) : new byte[0];
+    }
+
+    /**
+     * Writes a ticket under its composite key, removing its legacy bare key if
+     * the ticket was stored there.
+     *
+     * @param stub      the chaincode stub
+     * @param ticketId  the ID of the ticket
+     * @param storedKey the key the ticket was stored under, as given by
+     *                  {@link #storedKey}, or null if it is new
+     * @param value     the encoded ticket
+     */
+    public static void write(final ChaincodeStub stub, final String ticketId, final String storedKey,
+            final byte[] value) {
+        String key = key(stub, ticketId);
+        stub.putState(key, value);
+        if (storedKey != null && !storedKey.equals(key)) {
+            stub.delState(storedKey);
+        }
+    }
+
+    private static boolean exists(final byte[] value) {
+        return value != null && value.length > 0;
+    }
+}
@@ -0,0 +1,233 @@
+package uoc.tfm.contract.ledger;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import uoc.tfm.contract.Ticket;
+
+/**
+ * Maintains the number of tickets and the sum of their story points by project
+ * and status.
+ *
+ * The counters of each project are split in {@value #SHARDS} shards. Each
+ * transaction that changes tickets adds what it changed in the counters of a
+ * project to the one shard its transaction ID hashes to, once for all its
+ * changes, so two concurrent transactions only conflict on the stats when
+ * they change tickets of the same project and hash to the same shard. The
+ * counters of a project are the sum of its shards and of its base key, so
+ * reading them costs at most {@value #SHARDS} + 1 reads, whatever the number
+ * of tickets or transactions. CompactTicketStats can fold the shards into the
+ * base key to bring that down to one read, but the stats are correct without
+ * it.
+ */
+public final class TicketStats {
+
+    // Counters of the tickets (stats~projectId~shard), where the shard is the
+    // number of a shard or BASE_SHARD. The deltas written under the ID of their
+    // transaction by earlier versions are summed as shards too, until they are
+    // compacted
+    public static final String STATS_KEY = "stats~projectId~shard";
+
+    // Number of shards of the counters of each project
+    public static final int SHARDS = 64;
+
+    // Shard of the compacted counters of each project
+    public static final String BASE_SHARD = "base";
+
+    // JSON fields of the counters of each status
+    public static final String COUNT_FIELD = "count";
+    public static final String STORY_POINTS_FIELD = "storyPoints";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TicketStats() {
+    }
+
+    /**
+     * Adds a change of a ticket to the deltas of the counters of a
+     * transaction, by project.
+     *
+     * @param deltas   the deltas of the transaction, by project
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it was deleted
+     */
+    public static void addChange(final Map<String, ObjectNode> deltas, final Ticket previous,
+            final Ticket current) {
+        if (previous != null) {
+            addDelta(deltas, previous, -1);
+        }
+        if (current != null) {
+            addDelta(deltas, current, 1);
+        }
+    }
+
+    /**
+     * Adds the deltas of the counters of a transaction to the shard of each
+     * project its transaction ID hashes to. Nothing is read nor written for
+     * the projects whose counters did not change.
+     *
+     * @param stub   the chaincode stub
+     * @param deltas the deltas of the transaction, by project
+     * @throws IOException if the shards cannot be read or written
+     */
+    public static void write(final ChaincodeStub stub, final Map<String, ObjectNode> deltas) throws IOException {
+        String shard = shardOf(stub.getTxId());
+        for (Map.Entry<String, ObjectNode> delta : deltas.entrySet()) {
+            removeZeros(delta.getValue());
+            if (delta.getValue().isEmpty()) {
+                continue;
+            }
+            String key = stub.createCompositeKey(STATS_KEY, delta.getKey(), shard).toString();
+            ObjectNode counters = read(stub.getState(key));
+            add(counters, delta.getValue());
+            removeZeros(counters);
+            if (counters.isEmpty()) {
+                stub.delState(key);
+            } else {
+                stub.putState(key, MAPPER.writeValueAsBytes(counters));
+            }
+        }
+    }
+
+    /**
+     * Writes the counters of a project into its base key, replacing it.
+     *
+     * @param stub      the chaincode stub
+     * @param projectId the project of the counters
+     * @param counters  the counters by status
+     * @throws IOException if the counters cannot be written
+     */
+    public static void put(final ChaincodeStub stub, final String projectId, final ObjectNode counters)
+            throws IOException {
+        removeZeros(counters);
+        stub.putState(baseKey(stub, projectId), MAPPER.writeValueAsBytes(counters));
+    }
+
+    /**
+     * Builds the partial composite key that selects the shards of a project,
+     * or of all the projects.
+     *
+     * @param stub      the chaincode stub
+     * @param projectId the project, or none to select all the projects
+     * @return the partial composite key
+     */
+    public static CompositeKey partialKey(final ChaincodeStub stub, final String... projectId) {
+        return stub.createCompositeKey(STATS_KEY, projectId);
+    }
+
+    /**
+     * Builds the base key of the counters of a project.
+     *
+     * @param stub      the chaincode stub
+     * @param projectId the project
+     * @return the composite key of the compacted counters
+     */
+    public static String baseKey(final ChaincodeStub stub, final String projectId) {
+        return stub.createCompositeKey(STATS_KEY, projectId, BASE_SHARD).toString();
+    }
+
+    /**
+     * Tells whether the key of a shard holds the compacted counters of its
+     * project, rather than a shard the transactions add to.
+     *
+     * @param stub     the chaincode stub
+     * @param statsKey the composite key of the shard
+     * @return true if it is the base key of its project
+     */
+    public static boolean isBase(final ChaincodeStub stub, final String statsKey) {
+        return BASE_SHARD.equals(stub.splitCompositeKey(statsKey).getAttributes().get(1));
+    }
+
+    /**
+     * Extracts the project from the key of a shard.
+     *
+     * @param stub     the chaincode stub
+     * @param statsKey the composite key of the shard
+     * @return the project of the shard
+     */
+    public static String projectIdOf(final ChaincodeStub stub, final String statsKey) {
+        return stub.splitCompositeKey(statsKey).getAttributes().get(0);
+    }
+
+    /**
+     * Parses the counters stored in a shard.
+     *
+     * @param value the value of the shard, empty if it does not exist
+     * @return the counters by status
+     * @throws IOException if the value is not valid JSON
+     */
+    public static ObjectNode read(final byte[] value) throws IOException {
+        if (value == null || value.length == 0) {
+            return MAPPER.createObjectNode();
+        }
+        return (ObjectNode) MAPPER.readTree(value);
+    }
+
+    /**
+     * Adds some counters by status to others.
+     *
+     * @param counters the counters to add to
+     * @param delta    the counters to add
+     */
+    public static void add(final ObjectNode counters, final ObjectNode delta) {
+        Iterator<Map.Entry<String, JsonNode>> statuses = delta.fields();
+        while (statuses.hasNext()) {
+            Map.Entry<String, JsonNode> status = statuses.next();
+            increment(counters, status.getKey(),
+                    status.getValue().path(COUNT_FIELD).asLong(),
+                    status.getValue().path(STORY_POINTS_FIELD).asLong());
+        }
+    }
+
+    /**
+     * Adds one ticket to the counters of its status.
+     *
+     * @param counters    the counters by status
+     * @param status      the status of the ticket
+     * @param storyPoints the story points of the ticket
+     */
+    public static void addTicket(final ObjectNode counters, final String status, final long storyPoints) {
+        increment(counters, status, 1, storyPoints);
+    }
+
+    /**
+     * Gives the shard of a transaction, the same on every peer.
+     */
+    private static String shardOf(final String txId) {
+        return String.format("%02d", Math.floorMod(txId.hashCode(), SHARDS));
+    }
+
+    private static void addDelta(final Map<String, ObjectNode> deltas, final Ticket ticket, final int sign) {
+        if (ticket.getTicketStatus() == null) {
+            return;
+        }
+        ObjectNode delta = deltas.computeIfAbsent(
+                String.valueOf(ticket.getProjectIdNum()), project -> MAPPER.createObjectNode());
+        increment(delta, ticket.getTicketStatus().name(), sign, (long) sign * ticket.getStoryPoints());
+    }
+
+    private static void increment(final ObjectNode counters, final String status, final long count,
+            final long storyPoints) {
+        ObjectNode counter = counters.has(status) ? (ObjectNode) counters.get(status) : counters.putObject(status);
+        counter.put(COUNT_FIELD, counter.path(COUNT_FIELD).asLong() + count);
+        counter.put(STORY_POINTS_FIELD, counter.path(STORY_POINTS_FIELD).asLong() + storyPoints);
+    }
+
+    private static void removeZeros(final ObjectNode counters) {
+        Iterator<Map.Entry<String, JsonNode>> statuses = counters.fields();
+        while (statuses.hasNext()) {
+            JsonNode counter = statuses.next().getValue();
+            if (counter.path(COUNT_FIELD).asLong() == 0 && counter.path(STORY_POINTS_FIELD).asLong() == 0) {
+                statuses.remove();
+            }
+        }
+    }
+}
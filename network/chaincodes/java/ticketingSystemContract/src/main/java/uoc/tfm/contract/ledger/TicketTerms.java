@@ -0,0 +1,351 @@
+package uoc.tfm.contract.ledger;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import uoc.tfm.contract.Ticket;
+import uoc.tfm.contract.util.TicketLogger;
+
+/**
+ * Maintains the inverted text index of the tickets.
+ *
+ * The words of the title and the description are indexed as terms, and the
+ * assigned user as its n-grams, so both keyword and substring searches only
+ * read the posting lists of their tokens instead of the tickets. Each entry is
+ * a composite key (term~token~ticketId), so the posting list of a token is
+ * sorted by ticket ID and several of them can be intersected by walking them
+ * side by side.
+ */
+public final class TicketTerms {
+
+    // Inverted index of the tickets (term~token~ticketId)
+    public static final String TERM_INDEX = "term~token~ticketId";
+
+    // Marker of an index that holds every ticket on the ledger (termIndexComplete)
+    public static final String COMPLETE_KEY = "termIndexComplete";
+
+    // Length of the n-grams of the assigned user
+    public static final int GRAM_LENGTH = 3;
+
+    // Shortest word indexed as a term
+    public static final int MIN_TERM_LENGTH = 2;
+
+    // Prefix of the n-grams of the assigned user, never part of a word
+    private static final String GRAM_PREFIX = "@";
+
+    // Number of entries read by each query of a posting list
+    private static final int POSTING_PAGE_SIZE = 100;
+
+    // Value stored for index entries, all the information is in the key
+    private static final byte[] INDEX_VALUE = new byte[] {0x00};
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private TicketTerms() {
+    }
+
+    /**
+     * Updates the index entries of a ticket after a change on the ledger.
+     * Only the entries of the tokens that were added or removed are written.
+     *
+     * @param stub     the chaincode stub
+     * @param previous the ticket before the change, or null if it is new
+     * @param current  the ticket after the change, or null if it was deleted
+     */
+    public static void update(final ChaincodeStub stub, final Ticket previous, final Ticket current) {
+        Set<String> previousTokens = previous != null ? tokensOf(previous) : new TreeSet<>();
+        Set<String> currentTokens = current != null ? tokensOf(current) : new TreeSet<>();
+
+        for (String token : previousTokens) {
+            if (!currentTokens.contains(token)) {
+                stub.delState(entryKey(stub, token, previous.getTicketId()));
+            }
+        }
+        for (String token : currentTokens) {
+            if (!previousTokens.contains(token)) {
+                stub.putState(entryKey(stub, token, current.getTicketId()), INDEX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Adds the index entries of a ticket from the raw values of its fields,
+     * without binding the ticket.
+     *
+     * @param stub        the chaincode stub
+     * @param ticketId    the ID of the ticket
+     * @param title       the title of the ticket
+     * @param description the description of the ticket
+     * @param assigned    the assigned user of the ticket
+     */
+    public static void add(final ChaincodeStub stub, final String ticketId, final String title,
+            final String description, final String assigned) {
+        for (String token : tokensOf(title, description, assigned)) {
+            stub.putState(entryKey(stub, token, ticketId), INDEX_VALUE);
+        }
+    }
+
+    /**
+     * Tells whether the index holds every ticket on the ledger, because it
+     * was rebuilt or the ledger had no tickets when it was initialized. The
+     * tickets written by earlier versions of the contract are missing from it
+     * until it is rebuilt.
+     *
+     * @param stub the chaincode stub
+     * @return true if the index is complete
+     */
+    public static boolean isComplete(final ChaincodeStub stub) {
+        byte[] value = stub.getState(stub.createCompositeKey(COMPLETE_KEY).toString());
+        return value != null && value.length > 0;
+    }
+
+    /**
+     * Marks the index as holding every ticket on the ledger or not.
+     *
+     * @param stub     the chaincode stub
+     * @param complete whether the index is complete
+     */
+    public static void setComplete(final ChaincodeStub stub, final boolean complete) {
+        String key = stub.createCompositeKey(COMPLETE_KEY).toString();
+        if (complete) {
+            stub.putState(key, INDEX_VALUE);
+        } else {
+            stub.delState(key);
+        }
+    }
+
+    /**
+     * Gives the terms of a text: its words, normalized.
+     *
+     * @param text the text, may be null
+     * @return the terms of the text
+     */
+    public static Set<String> terms(final String text) {
+        Set<String> terms = new TreeSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String word : WORD_SEPARATORS.split(normalize(text))) {
+            if (word.length() >= MIN_TERM_LENGTH) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Gives the n-gram tokens of an assigned user, or of a substring of it.
+     *
+     * @param assigned the assigned user, may be null
+     * @return the n-gram tokens, empty if the text is shorter than an n-gram
+     */
+    public static Set<String> grams(final String assigned) {
+        Set<String> grams = new TreeSet<>();
+        if (assigned == null) {
+            return grams;
+        }
+        String text = normalize(assigned);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(GRAM_PREFIX + text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Normalizes a text the way it is indexed: lower case and without
+     * diacritics, so "Álvaro" and "alvaro" give the same tokens.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    public static String normalize(final String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Starts the intersection of the posting lists of some tokens.
+     *
+     * @param stub          the chaincode stub
+     * @param tokens        the tokens, as given by {@link #terms} and
+     *                      {@link #grams}
+     * @param afterTicketId the ticket ID to resume after, or empty to start
+     *                      from the first one
+     * @return the intersection, to be closed once consumed
+     */
+    public static Intersection intersect(final ChaincodeStub stub, final Collection<String> tokens,
+            final String afterTicketId) {
+        return new Intersection(stub, tokens, afterTicketId);
+    }
+
+    private static Set<String> tokensOf(final Ticket ticket) {
+        return tokensOf(ticket.getTitle(), ticket.getDescription(), ticket.getAssigned());
+    }
+
+    private static Set<String> tokensOf(final String title, final String description, final String assigned) {
+        Set<String> tokens = terms(title);
+        tokens.addAll(terms(description));
+        tokens.addAll(grams(assigned));
+        return tokens;
+    }
+
+    private static String entryKey(final ChaincodeStub stub, final String token, final String ticketId) {
+        return stub.createCompositeKey(TERM_INDEX, token, ticketId).toString();
+    }
+
+    /**
+     * Ticket IDs present in the posting lists of all the tokens, in order.
+     *
+     * The lists are walked side by side: whenever one of them is behind the
+     * furthest ticket ID seen, it is repositioned there with a new query that
+     * starts at that entry, so the entries between them are never read.
+     */
+    public static final class Intersection implements AutoCloseable {
+
+        private final List<Posting> postings = new ArrayList<>();
+        private boolean exhausted;
+
+        private Intersection(final ChaincodeStub stub, final Collection<String> tokens,
+                final String afterTicketId) {
+            boolean resume = afterTicketId != null && !afterTicketId.isEmpty();
+            for (String token : tokens) {
+                Posting posting = new Posting(stub, token);
+                posting.seek(resume ? afterTicketId : "");
+                if (resume && afterTicketId.equals(posting.current)) {
+                    posting.advance();
+                }
+                postings.add(posting);
+            }
+            exhausted = postings.isEmpty();
+        }
+
+        /**
+         * Finds the next ticket ID present in all the posting lists.
+         *
+         * @return the ticket ID, or null if there are no more
+         */
+        public String next() {
+            while (!exhausted) {
+                String furthest = null;
+                for (Posting posting : postings) {
+                    if (posting.current == null) {
+                        exhausted = true;
+                        return null;
+                    }
+                    if (furthest == null || posting.current.compareTo(furthest) > 0) {
+                        furthest = posting.current;
+                    }
+                }
+
+                boolean aligned = true;
+                for (Posting posting : postings) {
+                    if (!posting.current.equals(furthest)) {
+                        posting.seek(furthest);
+                        aligned = false;
+                    }
+                }
+                if (aligned) {
+                    for (Posting posting : postings) {
+                        posting.advance();
+                    }
+                    return furthest;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the number of index entries read so far
+         */
+        public int getFetchedCount() {
+            int fetchedCount = 0;
+            for (Posting posting : postings) {
+                fetchedCount += posting.fetchedCount;
+            }
+            return fetchedCount;
+        }
+
+        @Override
+        public void close() {
+            for (Posting posting : postings) {
+                posting.close();
+            }
+        }
+    }
+
+    /**
+     * Cursor over the posting list of one token, read in pages.
+     */
+    private static final class Posting {
+
+        private final ChaincodeStub stub;
+        private final String token;
+        private QueryResultsIteratorWithMetadata<KeyValue> results;
+        private Iterator<KeyValue> entries;
+        private String current;
+        private int fetchedCount;
+
+        Posting(final ChaincodeStub stub, final String token) {
+            this.stub = stub;
+            this.token = token;
+        }
+
+        /**
+         * Moves to the first entry whose ticket ID is not lower than the given one.
+         */
+        void seek(final String ticketId) {
+            open(ticketId.isEmpty() ? "" : entryKey(stub, token, ticketId));
+            advance();
+        }
+
+        /**
+         * Moves to the next entry, reading the next page if needed.
+         */
+        void advance() {
+            while (!entries.hasNext()) {
+                String bookmark = results.getMetadata().getBookmark();
+                if (bookmark == null || bookmark.isEmpty()) {
+                    current = null;
+                    return;
+                }
+                open(bookmark);
+            }
+            List<String> attributes = stub.splitCompositeKey(entries.next().getKey()).getAttributes();
+            current = attributes.get(attributes.size() - 1);
+            fetchedCount++;
+        }
+
+        private void open(final String startKey) {
+            close();
+            // The bookmark of a key range query is the key it starts at
+            results = stub.getStateByPartialCompositeKeyWithPagination(
+                    stub.createCompositeKey(TERM_INDEX, token), POSTING_PAGE_SIZE, startKey);
+            entries = results.iterator();
+        }
+
+        void close() {
+            if (results == null) {
+                return;
+            }
+            try {
+                results.close();
+            } catch (Exception e) {
+                // The entries already read are still valid
+                TicketLogger.warn("TicketTerms", () -> "Error closing posting list of " + token + ": " + e.getMessage());
+            }
+            results = null;
+        }
+    }
+}
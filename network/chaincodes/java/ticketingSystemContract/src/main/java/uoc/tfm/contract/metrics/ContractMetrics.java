@@ -0,0 +1,91 @@
+package uoc.tfm.contract.metrics;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uoc.tfm.contract.util.TicketLogger;
+
+/**
+ * Metrics of the transactions served by this chaincode process, by function.
+ *
+ * They are kept in memory since the process started, so each peer has its own
+ * and they are lost when the chaincode container restarts.
+ */
+public final class ContractMetrics {
+
+    // Name used when the stub does not tell the function
+    private static final String UNKNOWN_FUNCTION = "unknown";
+
+    private static final Instant STARTED = Instant.now();
+    private static final ConcurrentMap<String, FunctionMetrics> FUNCTIONS = new ConcurrentHashMap<>();
+
+    // Time of the last summary line, in System.nanoTime() units
+    private static final AtomicLong LAST_SUMMARY = new AtomicLong(System.nanoTime());
+
+    private ContractMetrics() {
+    }
+
+    /**
+     * Gives the metrics of a transaction function, creating them on first use.
+     *
+     * @param function the function as given by the stub, with or without the
+     *                 contract name, may be null
+     * @return the metrics of the function
+     */
+    public static FunctionMetrics forFunction(final String function) {
+        String name = function == null || function.isEmpty() ? UNKNOWN_FUNCTION
+                : function.substring(function.indexOf(':') + 1);
+        return FUNCTIONS.computeIfAbsent(name, key -> new FunctionMetrics());
+    }
+
+    /**
+     * @return the metrics of every function called so far, sorted by name
+     */
+    public static Map<String, FunctionMetrics> getFunctions() {
+        return new TreeMap<>(FUNCTIONS);
+    }
+
+    /**
+     * @return when this chaincode process started collecting metrics
+     */
+    public static Instant getStarted() {
+        return STARTED;
+    }
+
+    /**
+     * Logs a summary line of every function if at least the given interval
+     * has passed since the last one. Only one of the concurrent transactions
+     * that find it due logs it.
+     *
+     * @param intervalSeconds the interval between lines, 0 or less to never
+     *                        log them
+     */
+    public static void logSummaryIfDue(final long intervalSeconds) {
+        if (intervalSeconds <= 0 || !TicketLogger.isEnabled(TicketLogger.Level.INFO)) {
+            return;
+        }
+        long now = System.nanoTime();
+        long last = LAST_SUMMARY.get();
+        if (now - last < intervalSeconds * 1_000_000_000L || !LAST_SUMMARY.compareAndSet(last, now)) {
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, FunctionMetrics> function : getFunctions().entrySet()) {
+            FunctionMetrics metrics = function.getValue();
+            long totalNanos = metrics.getDuration().getSum();
+            long stubPercent = totalNanos == 0 ? 0 : 100 * metrics.getStubTime().getSum() / totalNanos;
+            summary.append(function.getKey())
+                    .append(" n=").append(metrics.getDuration().getCount())
+                    .append(" p50=").append(metrics.getDuration().getValueAtPercentile(50) / 1000).append("us")
+                    .append(" p99=").append(metrics.getDuration().getValueAtPercentile(99) / 1000).append("us")
+                    .append(" stub=").append(stubPercent).append('%')
+                    .append("; ");
+        }
+        TicketLogger.info("ContractMetrics", summary.toString().trim());
+    }
+}
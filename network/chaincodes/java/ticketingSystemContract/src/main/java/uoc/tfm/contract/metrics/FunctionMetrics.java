@@ -0,0 +1,97 @@
+package uoc.tfm.contract.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cumulative metrics of one transaction function of the contract.
+ *
+ * Durations are recorded in nanoseconds and sizes in bytes. Every histogram
+ * gets one value per finished transaction, the shim call histograms the time
+ * the transaction spent in each kind of call.
+ */
+public final class FunctionMetrics {
+
+    // Whole transaction, from the creation of its context to its last write
+    private final LatencyHistogram duration = new LatencyHistogram();
+
+    // Time spent waiting for the shim, by transaction
+    private final LatencyHistogram stubTime = new LatencyHistogram();
+
+    // Time spent sending the buffered writes at the end, by transaction
+    private final LatencyHistogram flushTime = new LatencyHistogram();
+
+    // Calls to the shim, values read and values written, by transaction
+    private final LatencyHistogram shimCalls = new LatencyHistogram();
+    private final LatencyHistogram bytesRead = new LatencyHistogram();
+    private final LatencyHistogram bytesWritten = new LatencyHistogram();
+
+    // Rows read from the iterators of queries, by transaction
+    private final LatencyHistogram rowsRead = new LatencyHistogram();
+
+    // Time spent in each kind of shim call, by transaction and method name
+    private final ConcurrentMap<String, LatencyHistogram> calls = new ConcurrentHashMap<>();
+
+    FunctionMetrics() {
+    }
+
+    /**
+     * Records a finished transaction.
+     *
+     * @param durationNanos the time of the whole transaction
+     * @param stub          the stub that served the transaction
+     * @param callNanos     the time spent in each kind of shim call, by method
+     *                      name
+     */
+    public void recordTransaction(final long durationNanos, final InstrumentingStub stub,
+            final Map<String, Long> callNanos) {
+        duration.record(durationNanos);
+        stubTime.record(stub.getStubNanos());
+        flushTime.record(stub.getFlushNanos());
+        shimCalls.record(stub.getShimCalls());
+        bytesRead.record(stub.getBytesRead());
+        bytesWritten.record(stub.getBytesWritten());
+        rowsRead.record(stub.getRowsRead());
+        for (Map.Entry<String, Long> call : callNanos.entrySet()) {
+            calls.computeIfAbsent(call.getKey(), name -> new LatencyHistogram()).record(call.getValue());
+        }
+    }
+
+    public LatencyHistogram getDuration() {
+        return duration;
+    }
+
+    public LatencyHistogram getStubTime() {
+        return stubTime;
+    }
+
+    public LatencyHistogram getFlushTime() {
+        return flushTime;
+    }
+
+    public LatencyHistogram getShimCalls() {
+        return shimCalls;
+    }
+
+    public LatencyHistogram getBytesRead() {
+        return bytesRead;
+    }
+
+    public LatencyHistogram getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public LatencyHistogram getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * @return the time spent in each kind of shim call per transaction, sorted
+     *         by method name
+     */
+    public Map<String, LatencyHistogram> getCalls() {
+        return new TreeMap<>(calls);
+    }
+}
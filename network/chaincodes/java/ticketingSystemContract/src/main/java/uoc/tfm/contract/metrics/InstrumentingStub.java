@@ -0,0 +1,199 @@
+package uoc.tfm.contract.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+
+/**
+ * Measuring decorator of the chaincode stub of one transaction.
+ *
+ * Every call that goes to the peer (state reads and writes, range, composite
+ * key, rich and history queries) is timed, and the time is added to the
+ * totals of its kind of call. The rows read from the iterator of a query are
+ * only counted, with their bytes, so reading them costs no clock reads. The
+ * totals of the transaction are kept in plain fields of this stub, which only
+ * serves one transaction, until {@link #finish()} records them in the metrics
+ * of the transaction function at once. Calls that the stub answers by itself,
+ * such as building composite keys, are not measured.
+ */
+public final class InstrumentingStub implements InvocationHandler {
+
+    private final ChaincodeStub delegate;
+    private final ChaincodeStub proxy;
+    private final FunctionMetrics metrics;
+    private final long startNanos = System.nanoTime();
+
+    private long stubNanos;
+    private long flushNanos;
+    private long shimCalls;
+    private long bytesRead;
+    private long bytesWritten;
+    private long rowsRead;
+
+    // Time spent in each kind of shim call, by method name
+    private final Map<String, Long> callNanos = new HashMap<>();
+
+    private InstrumentingStub(final ChaincodeStub delegate, final FunctionMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.proxy = (ChaincodeStub) Proxy.newProxyInstance(
+                ChaincodeStub.class.getClassLoader(), new Class<?>[] {ChaincodeStub.class}, this);
+    }
+
+    /**
+     * Starts measuring the stub of a transaction.
+     *
+     * @param delegate the stub of the transaction
+     * @return the instrumenting stub
+     */
+    public static InstrumentingStub over(final ChaincodeStub delegate) {
+        return new InstrumentingStub(delegate, ContractMetrics.forFunction(delegate.getFunction()));
+    }
+
+    /**
+     * @return the stub that goes through the instrumentation
+     */
+    public ChaincodeStub getStub() {
+        return proxy;
+    }
+
+    /**
+     * Runs the flush of the buffered writes of the transaction, measuring it
+     * apart from the rest of the shim calls.
+     *
+     * @param flush the flush of the writes
+     */
+    public void measureFlush(final Runnable flush) {
+        long start = System.nanoTime();
+        long stubBefore = stubNanos;
+        flush.run();
+        flushNanos += System.nanoTime() - start;
+        stubNanos = stubBefore;
+    }
+
+    /**
+     * Records the totals of the transaction in the metrics of its function.
+     */
+    public void finish() {
+        metrics.recordTransaction(System.nanoTime() - startNanos, this, callNanos);
+    }
+
+    public long getStubNanos() {
+        return stubNanos;
+    }
+
+    public long getFlushNanos() {
+        return flushNanos;
+    }
+
+    public long getShimCalls() {
+        return shimCalls;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    @Override
+    public Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        if (!isShimCall(method.getName())) {
+            return invokeOn(delegate, method, args);
+        }
+
+        long start = System.nanoTime();
+        Object result = invokeOn(delegate, method, args);
+        long nanos = System.nanoTime() - start;
+        stubNanos += nanos;
+        shimCalls++;
+        callNanos.merge(method.getName(), nanos, Long::sum);
+
+        if (args != null && args.length > 1 && args[args.length - 1] instanceof byte[]) {
+            bytesWritten += ((byte[]) args[args.length - 1]).length;
+        } else if (args != null && args.length > 1 && method.getName().equals("putStringState")) {
+            bytesWritten += ((String) args[1]).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (result instanceof byte[]) {
+            bytesRead += ((byte[]) result).length;
+        } else if (result instanceof String) {
+            bytesRead += ((String) result).getBytes(StandardCharsets.UTF_8).length;
+        } else if (result instanceof QueryResultsIterator && method.getReturnType().isInterface()) {
+            return Proxy.newProxyInstance(ChaincodeStub.class.getClassLoader(),
+                    new Class<?>[] {method.getReturnType()}, new Results(result));
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether a stub method goes to the peer. The rest are answered by
+     * the stub with the data of the transaction.
+     */
+    private static boolean isShimCall(final String name) {
+        return name.contains("State") || name.contains("PrivateData") || name.startsWith("getQueryResult")
+                || name.equals("getHistoryForKey") || name.startsWith("invokeChaincode");
+    }
+
+    private static Object invokeOn(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts the rows read from the iterator of a query, and their bytes.
+     */
+    private final class Results implements InvocationHandler {
+
+        private final Object results;
+
+        Results(final Object results) {
+            this.results = results;
+        }
+
+        @Override
+        public Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+            if (!method.getName().equals("iterator")) {
+                return invokeOn(results, method, args);
+            }
+            Iterator<?> rows = (Iterator<?>) invokeOn(results, method, args);
+            return new Iterator<Object>() {
+
+                @Override
+                public boolean hasNext() {
+                    return rows.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    Object row = rows.next();
+                    rowsRead++;
+                    if (row instanceof KeyValue) {
+                        bytesRead += ((KeyValue) row).getValue().length;
+                    } else if (row instanceof KeyModification) {
+                        bytesRead += ((KeyModification) row).getValue().length;
+                    }
+                    return row;
+                }
+            };
+        }
+    }
+}
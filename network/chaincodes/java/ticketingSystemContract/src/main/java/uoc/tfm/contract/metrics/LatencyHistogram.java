@@ -0,0 +1,112 @@
+package uoc.tfm.contract.metrics;
+
+import org.json.JSONObject;
+
+/**
+ * Cumulative histogram of non-negative values, such as durations in
+ * nanoseconds or sizes in bytes.
+ *
+ * Like an HDR histogram, the values are counted in buckets whose width grows
+ * with their magnitude: each power of two is split in 16 sub-buckets, so any
+ * percentile is known within 1/16 (about 6%) of its value with a fixed array
+ * of counters, whatever the number of values recorded.
+ */
+public final class LatencyHistogram {
+
+    // Sub-buckets of each power of two, as a number of bits
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Highest value counted on its own bucket (about 18 minutes in nanoseconds)
+    private static final long HIGHEST_VALUE = (1L << 40) - 1;
+
+    private final long[] counts = new long[bucketOf(HIGHEST_VALUE) + 1];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * Records a value, higher values are counted on the last bucket.
+     *
+     * @param value the value, negative values are counted as 0
+     */
+    public synchronized void record(final long value) {
+        long bounded = Math.max(0, value);
+        counts[bucketOf(Math.min(bounded, HIGHEST_VALUE))]++;
+        count++;
+        sum += bounded;
+        max = Math.max(max, bounded);
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sum of the values recorded
+     */
+    public synchronized long getSum() {
+        return sum;
+    }
+
+    /**
+     * Gives the value below which a percentage of the recorded values are,
+     * rounded up to the highest value of its bucket.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the value, or 0 if no value was recorded
+     */
+    public synchronized long getValueAtPercentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Summarizes the histogram for a response.
+     *
+     * @param unit the number of recorded units per reported unit, such as 1000
+     *             to report nanoseconds as microseconds
+     * @return JSON object with the number of values and their mean, median, 90th
+     *         and 99th percentiles and maximum
+     */
+    public synchronized JSONObject toJson(final long unit) {
+        JSONObject json = new JSONObject();
+        json.put("Count", count);
+        json.put("Mean", count == 0 ? 0 : sum / count / unit);
+        json.put("P50", getValueAtPercentile(50) / unit);
+        json.put("P90", getValueAtPercentile(90) / unit);
+        json.put("P99", getValueAtPercentile(99) / unit);
+        json.put("Max", max / unit);
+        return json;
+    }
+
+    private static int bucketOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
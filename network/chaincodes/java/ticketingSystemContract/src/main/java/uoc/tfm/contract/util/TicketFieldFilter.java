@@ -0,0 +1,165 @@
+package uoc.tfm.contract.util;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Scan-time filter on a single field of a ticket stored as JSON.
+ *
+ * The field is read with a token-level parser straight from the raw bytes of
+ * the ticket, skipping every other field, so the rows of a scan can be
+ * filtered without binding them to a {@code Ticket} (dates, enums and
+ * comments are never built). Matching rows are passed through as raw JSON.
+ */
+public final class TicketFieldFilter {
+
+    // JSON fields of the ticket that can be filtered on
+    public static final String TICKET_ID_FIELD = "ticketId";
+    public static final String TITLE_FIELD = "title";
+    public static final String DESCRIPTION_FIELD = "description";
+    public static final String STATUS_FIELD = "ticketStatus";
+    public static final String PROJECT_FIELD = "projectIdNum";
+    public static final String ASSIGNED_FIELD = "assigned";
+    public static final String STORY_POINTS_FIELD = "storyPoints";
+    public static final String PRIORITY_FIELD = "ticketPriority";
+    public static final String CREATION_DATE_FIELD = "creationDate";
+    public static final String LAST_MODIFIED_FIELD = "lastModifiedDate";
+
+    private final JsonFactory factory;
+    private final String field;
+    private final Predicate<String> condition;
+
+    private TicketFieldFilter(final JsonFactory factory, final String field, final Predicate<String> condition) {
+        this.factory = factory;
+        this.field = field;
+        this.condition = condition;
+    }
+
+    /**
+     * Creates a filter that matches the tickets whose field equals a value.
+     *
+     * @param factory the JSON factory used to create the parsers
+     * @param field   the name of the field
+     * @param value   the expected value, as text
+     * @return the filter
+     */
+    public static TicketFieldFilter equalTo(final JsonFactory factory, final String field, final String value) {
+        return new TicketFieldFilter(factory, field, value::equals);
+    }
+
+    /**
+     * Creates a filter that matches the tickets whose field contains a value.
+     *
+     * @param factory the JSON factory used to create the parsers
+     * @param field   the name of the field
+     * @param value   the text the field must contain
+     * @return the filter
+     */
+    public static TicketFieldFilter containing(final JsonFactory factory, final String field, final String value) {
+        return new TicketFieldFilter(factory, field, fieldValue -> fieldValue.contains(value));
+    }
+
+    /**
+     * Creates a filter that matches the tickets whose field meets a condition.
+     *
+     * @param factory   the JSON factory used to create the parsers
+     * @param field     the name of the field
+     * @param condition the condition on the text of the field
+     * @return the filter
+     */
+    public static TicketFieldFilter matching(final JsonFactory factory, final String field,
+            final Predicate<String> condition) {
+        return new TicketFieldFilter(factory, field, condition);
+    }
+
+    /**
+     * Checks whether a ticket matches the filter.
+     *
+     * @param jsonTicket the raw JSON of the ticket
+     * @return true if the field of the ticket matches
+     * @throws IOException if the ticket is not valid JSON
+     */
+    public boolean matches(final byte[] jsonTicket) throws IOException {
+        String fieldValue = readFields(factory, jsonTicket, List.of(field)).get(field);
+        if (fieldValue == null) {
+            return false;
+        }
+        return condition.test(fieldValue);
+    }
+
+    /**
+     * Reads some top-level scalar fields of a ticket as text, without binding
+     * it. Dates written as arrays are read as their ISO text. Parsing stops as
+     * soon as all the fields have been found.
+     *
+     * @param factory    the JSON factory used to create the parser
+     * @param jsonTicket the raw JSON of the ticket
+     * @param fields     the names of the fields to read
+     * @return the text of each field found, null and other nested values are
+     *         left out
+     * @throws IOException if the ticket is not valid JSON
+     */
+    public static Map<String, String> readFields(
+            final JsonFactory factory,
+            final byte[] jsonTicket,
+            final Collection<String> fields) throws IOException {
+
+        Map<String, String> values = new HashMap<>();
+
+        try (JsonParser parser = factory.createParser(jsonTicket)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Ticket is not a JSON object");
+            }
+            while (values.size() < fields.size() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY && fields.contains(name)) {
+                    values.put(name, readDate(parser));
+                } else if (token.isStructStart()) {
+                    // Comments and other nested values are skipped whole
+                    parser.skipChildren();
+                } else if (token != JsonToken.VALUE_NULL && fields.contains(name)) {
+                    values.put(name, parser.getText());
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads a date written as an array of numbers, from the year down to the
+     * nanoseconds, where the trailing zero fields may be left out.
+     *
+     * @param parser the parser, positioned at the start of the array
+     * @return the ISO text of the date
+     * @throws IOException if the array is not a date
+     */
+    private static String readDate(final JsonParser parser) throws IOException {
+        int[] parts = new int[7];
+        int numberOfParts = 0;
+        while (parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+            if (numberOfParts == parts.length) {
+                throw new IOException("Date has too many fields");
+            }
+            parts[numberOfParts++] = parser.getIntValue();
+        }
+        if (numberOfParts < 5 || parser.currentToken() != JsonToken.END_ARRAY) {
+            throw new IOException("Field is not a date");
+        }
+        try {
+            return LocalDateTime.of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]).toString();
+        } catch (DateTimeException e) {
+            throw new IOException("Field is not a valid date", e);
+        }
+    }
+}
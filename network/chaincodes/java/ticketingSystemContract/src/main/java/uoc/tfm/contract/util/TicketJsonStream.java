@@ -0,0 +1,181 @@
+package uoc.tfm.contract.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Streaming writer for the JSON responses of the ticket queries.
+ *
+ * Tickets are written one by one into a single growing buffer while the
+ * query results are consumed, so a query never holds the tickets as objects
+ * nor as a list. Tickets read from the ledger are copied as raw JSON, without
+ * binding them to a {@code Ticket}.
+ */
+public final class TicketJsonStream {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final JsonGenerator generator;
+    private int count;
+
+    /**
+     * Creates a new stream that uses the given mapper to write objects.
+     *
+     * @param mapper the mapper used by the contract
+     * @throws IOException if the generator cannot be created
+     */
+    public TicketJsonStream(final ObjectMapper mapper) throws IOException {
+        this.generator = mapper.getFactory().createGenerator(buffer);
+    }
+
+    /**
+     * Starts a JSON array of tickets.
+     *
+     * @throws IOException if the JSON cannot be written
+     */
+    public void startArray() throws IOException {
+        generator.writeStartArray();
+    }
+
+    /**
+     * Ends a JSON array of tickets.
+     *
+     * @throws IOException if the JSON cannot be written
+     */
+    public void endArray() throws IOException {
+        generator.writeEndArray();
+    }
+
+    /**
+     * Starts a page object and its array of tickets (records).
+     *
+     * @throws IOException if the JSON cannot be written
+     */
+    public void startPage() throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("records");
+        generator.writeStartArray();
+    }
+
+    /**
+     * Ends the array of tickets and the page object, adding the page metadata.
+     *
+     * @param bookmark     the bookmark of the next page
+     * @param fetchedCount the number of keys read to build the page
+     * @throws IOException if the JSON cannot be written
+     */
+    public void endPage(final String bookmark, final int fetchedCount) throws IOException {
+        generator.writeEndArray();
+        generator.writeStringField("bookmark", bookmark);
+        generator.writeNumberField("fetchedCount", fetchedCount);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes a ticket stored as JSON on the ledger, as is.
+     *
+     * @param jsonTicket the JSON of the ticket
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeRawTicket(final String jsonTicket) throws IOException {
+        generator.writeRawValue(jsonTicket);
+        count++;
+    }
+
+    /**
+     * Writes a record of the history of a ticket, embedding the ticket stored
+     * by the transaction as raw JSON.
+     *
+     * @param txId       the ID of the transaction
+     * @param timestamp  the timestamp of the transaction
+     * @param isDeleted  whether the transaction deleted the ticket
+     * @param jsonTicket the JSON of the ticket, or null if it was deleted
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeHistoryRecord(final String txId, final String timestamp, final boolean isDeleted,
+            final String jsonTicket) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("txId", txId);
+        generator.writeStringField("timestamp", timestamp);
+        generator.writeBooleanField("isDeleted", isDeleted);
+        generator.writeFieldName("ticket");
+        if (jsonTicket != null) {
+            generator.writeRawValue(jsonTicket);
+        } else {
+            generator.writeNull();
+        }
+        generator.writeEndObject();
+        count++;
+    }
+
+    /**
+     * Writes the record of a ticket removed from the active tickets, in place
+     * of the ticket.
+     *
+     * @param ticketId    the ID of the ticket
+     * @param removedDate the instant of the removal, in ISO format
+     * @param operation   the kind of removal, DELETE or ARCHIVE
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeRemovedTicket(final String ticketId, final String removedDate, final String operation)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("ticketId", ticketId);
+        generator.writeStringField("removedDate", removedDate);
+        generator.writeStringField("operation", operation);
+        generator.writeEndObject();
+        count++;
+    }
+
+    /**
+     * Writes a text record, such as a comment of a ticket.
+     *
+     * @param text the text to write
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeString(final String text) throws IOException {
+        generator.writeString(text);
+        count++;
+    }
+
+    /**
+     * Writes any object with the mapper of the stream.
+     *
+     * @param value the object to write
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeObject(final Object value) throws IOException {
+        generator.writeObject(value);
+    }
+
+    /**
+     * Gives access to the underlying generator for responses with their own
+     * structure.
+     *
+     * @return the JSON generator of the stream
+     */
+    public JsonGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * @return the number of tickets written so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Flushes the generator and returns the JSON written.
+     *
+     * @return the JSON response
+     * @throws IOException if the JSON cannot be flushed
+     */
+    public String toJson() throws IOException {
+        generator.close();
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package uoc.tfm.contract.util;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import uoc.tfm.contract.config.ContractConfig;
+
+/**
+ * Leveled logger of the contract, writing to the standard output of the
+ * chaincode container.
+ *
+ * The level is read from the environment once, when the contract is loaded.
+ * Messages that need building are given as suppliers, so they are only built
+ * when their level is enabled. Each line starts with the level and the name
+ * of the transaction or component that logs it: {@code INFO [ReadTicket] OK}.
+ */
+public final class TicketLogger {
+
+    /**
+     * Levels of the messages, from the most to the least severe.
+     */
+    public enum Level {
+        ERROR, WARN, INFO, DEBUG
+    }
+
+    private static final Level LEVEL = parseLevel(ContractConfig.getLogLevel());
+
+    private TicketLogger() {
+    }
+
+    /**
+     * @param level the level of a message
+     * @return whether messages of that level are written
+     */
+    public static boolean isEnabled(final Level level) {
+        return level.ordinal() <= LEVEL.ordinal();
+    }
+
+    public static void error(final String tag, final String message) {
+        log(Level.ERROR, tag, message);
+    }
+
+    public static void warn(final String tag, final String message) {
+        log(Level.WARN, tag, message);
+    }
+
+    public static void warn(final String tag, final Supplier<String> message) {
+        log(Level.WARN, tag, message);
+    }
+
+    public static void info(final String tag, final String message) {
+        log(Level.INFO, tag, message);
+    }
+
+    public static void info(final String tag, final Supplier<String> message) {
+        log(Level.INFO, tag, message);
+    }
+
+    public static void debug(final String tag, final String message) {
+        log(Level.DEBUG, tag, message);
+    }
+
+    public static void debug(final String tag, final Supplier<String> message) {
+        log(Level.DEBUG, tag, message);
+    }
+
+    private static void log(final Level level, final String tag, final Supplier<String> message) {
+        if (isEnabled(level)) {
+            write(level, tag, message.get());
+        }
+    }
+
+    private static void log(final Level level, final String tag, final String message) {
+        if (isEnabled(level)) {
+            write(level, tag, message);
+        }
+    }
+
+    private static void write(final Level level, final String tag, final String message) {
+        System.out.println(level + " [" + tag + "] " + message);
+    }
+
+    private static Level parseLevel(final String level) {
+        try {
+            return Level.valueOf(level.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level: " + level, e);
+        }
+    }
+}
@@ -0,0 +1,620 @@
+package uoc.tfm.contract;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeEvent;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
+import org.hyperledger.fabric.protos.peer.SignedProposal;
+import org.hyperledger.fabric.shim.Chaincode.Response;
+import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
+import org.hyperledger.fabric.shim.ledger.KeyModification;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * In-memory stand-in for the peer side of {@link ChaincodeStub}.
+ *
+ * World state is kept in a sorted map, and each transaction collects its
+ * writes in a simulated write set that is only applied on {@link #commit()},
+ * so reads inside a transaction see the committed state exactly as on a peer.
+ * Every committed write is also recorded in a per-key history. Transactions
+ * are submitted by an administrator of Org1MSP, or by a client of it after
+ * {@link #setCreatorAdmin(boolean)}, with a self-signed certificate, so the
+ * contract context can build its client identity. Rich queries are not
+ * evaluated: they are recorded and answered with the committed documents of
+ * the keys given by the test, see {@link #answerQueries(List, String)}.
+ */
+public final class InMemoryChaincodeStub implements ChaincodeStub {
+
+    // Identity of the submitter of every transaction, an administrator
+    // (OU=admin) or a client (OU=client) of the organization
+    public static final String MSP_ID = "Org1MSP";
+    private static final String ADMIN_CERTIFICATE =
+            "-----BEGIN CERTIFICATE-----\n"
+            + "MIIBzTCCAXOgAwIBAgIUWedr34717cqINaLwCanc1wFpnlYwCgYIKoZIzj0EAwIw\n"
+            + "OzELMAkGA1UEBhMCRVMxDDAKBgNVBAoMA3VvYzEOMAwGA1UECwwFYWRtaW4xDjAM\n"
+            + "BgNVBAMMBWFkbWluMCAXDTI2MTAxNzAwMTgxNVoYDzIxMjYwOTIzMDAxODE1WjA7\n"
+            + "MQswCQYDVQQGEwJFUzEMMAoGA1UECgwDdW9jMQ4wDAYDVQQLDAVhZG1pbjEOMAwG\n"
+            + "A1UEAwwFYWRtaW4wWTATBgcqhkjOPQIBBggqhkjOPQMBBwNCAAT9zkntgFvbX14o\n"
+            + "kKmxZreQ1RBHZGxFOHNCR9A10dRCM8KFRLNJ3tUDHVDZC2aMfbS/yx9HAqqj6888\n"
+            + "+q0F8Ejuo1MwUTAdBgNVHQ4EFgQUvt7jy6IU2PzR3z/rTpMN1/s6fkswHwYDVR0j\n"
+            + "BBgwFoAUvt7jy6IU2PzR3z/rTpMN1/s6fkswDwYDVR0TAQH/BAUwAwEB/zAKBggq\n"
+            + "hkjOPQQDAgNIADBFAiBrd9BobZa9+BP2nKK1L82QpqZQkXUHk5A5wrJl3YNtTgIh\n"
+            + "ALwBlDekZ9xCqM42TlWOzC1WHBU7UPKFkL2J1E38cYLR\n"
+            + "-----END CERTIFICATE-----\n";
+    private static final String CLIENT_CERTIFICATE =
+            "-----BEGIN CERTIFICATE-----\n"
+            + "MIIB0DCCAXWgAwIBAgIUCCEG8ZmtUCEjhQ2BtnF01e5nd2AwCgYIKoZIzj0EAwIw\n"
+            + "PDELMAkGA1UEBhMCRVMxDDAKBgNVBAoMA3VvYzEPMA0GA1UECwwGY2xpZW50MQ4w\n"
+            + "DAYDVQQDDAV1c2VyMTAgFw0yNjEwMTcwMDUxNTZaGA8yMTI2MDkyMzAwNTE1Nlow\n"
+            + "PDELMAkGA1UEBhMCRVMxDDAKBgNVBAoMA3VvYzEPMA0GA1UECwwGY2xpZW50MQ4w\n"
+            + "DAYDVQQDDAV1c2VyMTBZMBMGByqGSM49AgEGCCqGSM49AwEHA0IABCvzSi9i+xsT\n"
+            + "3a+XXcl2mChJNI0amkUPHPCdGYdTchxcHa8K+DZeNdM1bn7LaJOJAN7OaBQf3G7y\n"
+            + "dZ1PQZAfG2OjUzBRMB0GA1UdDgQWBBSOrm9qliJW3hSz+Oy8di5nBnMFnjAfBgNV\n"
+            + "HSMEGDAWgBSOrm9qliJW3hSz+Oy8di5nBnMFnjAPBgNVHRMBAf8EBTADAQH/MAoG\n"
+            + "CCqGSM49BAMCA0kAMEYCIQCG0vZmjt5mPtZKwWfk5K6vyGse2KEgulpzr5qgRPuD\n"
+            + "mgIhAJ/7+ziSgechsCmtv1qaH1V9aQhUFaP5Pp5f0LxMPukP\n"
+            + "-----END CERTIFICATE-----\n";
+
+    private static final String UNSPECIFIED_KEY = new String(Character.toChars(0x01));
+    private static final String MAX_UNICODE_RUNE = new String(Character.toChars(Character.MAX_CODE_POINT));
+
+    private final String channelId;
+    private final NavigableMap<String, byte[]> worldState = new TreeMap<>();
+    private final Map<String, List<KeyModification>> history = new HashMap<>();
+
+    private final Map<String, byte[]> writeSet = new TreeMap<>();
+    private final Map<String, byte[]> readSet = new HashMap<>();
+    private Map<String, byte[]> transientMap = new HashMap<>();
+    private String txId = "";
+    private Instant txTimestamp = Instant.EPOCH;
+    private String eventName;
+    private byte[] eventPayload;
+    private long shimCalls;
+    private boolean creatorAdmin = true;
+
+    // Last rich query received, and the answer given to every rich query
+    private String lastQuery;
+    private int lastQueryPageSize;
+    private String lastQueryBookmark;
+    private List<String> queryAnswerKeys = Collections.emptyList();
+    private String queryAnswerBookmark = "";
+    private RuntimeException queryFailure;
+
+    public InMemoryChaincodeStub(final String channelId) {
+        this.channelId = channelId;
+    }
+
+    /**
+     * Starts a new simulated transaction, discarding any uncommitted writes.
+     *
+     * @param newTxId      the transaction ID
+     * @param newTimestamp the transaction timestamp
+     */
+    public void beginTransaction(final String newTxId, final Instant newTimestamp) {
+        this.txId = newTxId;
+        this.txTimestamp = newTimestamp;
+        this.writeSet.clear();
+        this.readSet.clear();
+        this.transientMap = new HashMap<>();
+        this.eventName = null;
+        this.eventPayload = null;
+    }
+
+    /**
+     * Applies the write set of the current transaction to the world state and
+     * records every written key in its history.
+     */
+    public void commit() {
+        for (Map.Entry<String, byte[]> write : writeSet.entrySet()) {
+            String key = write.getKey();
+            byte[] value = write.getValue();
+            if (value == null) {
+                worldState.remove(key);
+            } else {
+                worldState.put(key, value);
+            }
+            history.computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(new Modification(txId, txTimestamp, value));
+        }
+        writeSet.clear();
+    }
+
+    /** @return the keys written by the current transaction (null value = deletion) */
+    public Map<String, byte[]> getWriteSet() {
+        return Collections.unmodifiableMap(writeSet);
+    }
+
+    /**
+     * Chooses the submitter of the next transactions.
+     *
+     * @param admin true for an administrator of the organization (OU=admin),
+     *              false for a client (OU=client)
+     */
+    public void setCreatorAdmin(final boolean admin) {
+        this.creatorAdmin = admin;
+    }
+
+    /**
+     * Sets the answer of the next rich queries.
+     *
+     * @param keys         the keys of the committed documents returned
+     * @param nextBookmark the bookmark returned, empty for the last page
+     */
+    public void answerQueries(final List<String> keys, final String nextBookmark) {
+        this.queryAnswerKeys = new ArrayList<>(keys);
+        this.queryAnswerBookmark = nextBookmark;
+        this.queryFailure = null;
+    }
+
+    /**
+     * Makes the next rich queries fail, as the peer does when CouchDB rejects
+     * a query.
+     *
+     * @param failure the error thrown to the chaincode
+     */
+    public void failQueries(final RuntimeException failure) {
+        this.queryFailure = failure;
+    }
+
+    /** @return the last rich query received, as sent to CouchDB */
+    public String getLastQuery() {
+        return lastQuery;
+    }
+
+    /** @return the page size of the last rich query */
+    public int getLastQueryPageSize() {
+        return lastQueryPageSize;
+    }
+
+    /** @return the bookmark of the last rich query */
+    public String getLastQueryBookmark() {
+        return lastQueryBookmark;
+    }
+
+    /** @return the keys read by the current transaction */
+    public Map<String, byte[]> getReadSet() {
+        return Collections.unmodifiableMap(readSet);
+    }
+
+    /** @return the number of keys in the committed world state */
+    public int size() {
+        return worldState.size();
+    }
+
+    /** @return the number of shim calls served since creation */
+    public long getShimCalls() {
+        return shimCalls;
+    }
+
+    /** @return the name of the event set by the current transaction, or null */
+    public String getEventName() {
+        return eventName;
+    }
+
+    /** @return the payload of the event set by the current transaction, or null */
+    public byte[] getEventPayload() {
+        return eventPayload;
+    }
+
+    /**
+     * Sets an entry of the transient map of the current transaction.
+     *
+     * @param key   the transient key
+     * @param value the transient value
+     */
+    public void putTransient(final String key, final byte[] value) {
+        transientMap.put(key, value);
+    }
+
+    @Override
+    public List<byte[]> getArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getStringArgs() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getFunction() {
+        return null;
+    }
+
+    @Override
+    public List<String> getParameters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getTxId() {
+        return txId;
+    }
+
+    @Override
+    public String getChannelId() {
+        return channelId;
+    }
+
+    @Override
+    public Response invokeChaincode(final String chaincodeName, final List<byte[]> args, final String channel) {
+        throw new UnsupportedOperationException("invokeChaincode is not supported in memory");
+    }
+
+    @Override
+    public byte[] getState(final String key) {
+        shimCalls++;
+        byte[] value = worldState.get(key);
+        readSet.put(key, value);
+        return value == null ? new byte[0] : value;
+    }
+
+    @Override
+    public byte[] getStateValidationParameter(final String key) {
+        return null;
+    }
+
+    @Override
+    public void putState(final String key, final byte[] value) {
+        shimCalls++;
+        if (key == null || key.isEmpty()) {
+            throw new IllegalArgumentException("key must not be empty");
+        }
+        writeSet.put(key, value);
+    }
+
+    @Override
+    public void setStateValidationParameter(final String key, final byte[] value) {
+        throw new UnsupportedOperationException("Validation parameters are not supported in memory");
+    }
+
+    @Override
+    public void delState(final String key) {
+        shimCalls++;
+        writeSet.put(key, null);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByRange(final String startKey, final String endKey) {
+        String start = (startKey == null || startKey.isEmpty()) ? UNSPECIFIED_KEY : startKey;
+        CompositeKey.validateSimpleKeys(start, endKey);
+        // An empty end key leaves the range open, but still before the composite keys
+        String end = (endKey == null || endKey.isEmpty()) ? MAX_UNICODE_RUNE : endKey;
+        return range(start, end, 0, "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByRangeWithPagination(final String startKey,
+            final String endKey, final int pageSize, final String bookmark) {
+        String start = (startKey == null || startKey.isEmpty()) ? UNSPECIFIED_KEY : startKey;
+        CompositeKey.validateSimpleKeys(start, endKey);
+        // An empty end key leaves the range open, but still before the composite keys
+        String end = (endKey == null || endKey.isEmpty()) ? MAX_UNICODE_RUNE : endKey;
+        return range(start, end, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String compositeKey) {
+        String prefix = (compositeKey == null || compositeKey.isEmpty()) ? CompositeKey.NAMESPACE : compositeKey;
+        return range(prefix, prefix + MAX_UNICODE_RUNE, 0, "");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final String objectType,
+            final String... attributes) {
+        return getStateByPartialCompositeKey(new CompositeKey(objectType, attributes));
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getStateByPartialCompositeKey(final CompositeKey compositeKey) {
+        return getStateByPartialCompositeKey(compositeKey == null ? "" : compositeKey.toString());
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getStateByPartialCompositeKeyWithPagination(
+            final CompositeKey compositeKey, final int pageSize, final String bookmark) {
+        String prefix = compositeKey == null ? CompositeKey.NAMESPACE : compositeKey.toString();
+        return range(prefix, prefix + MAX_UNICODE_RUNE, pageSize, bookmark);
+    }
+
+    @Override
+    public CompositeKey createCompositeKey(final String objectType, final String... attributes) {
+        return new CompositeKey(objectType, attributes);
+    }
+
+    @Override
+    public CompositeKey splitCompositeKey(final String compositeKey) {
+        return CompositeKey.parseCompositeKey(compositeKey);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getQueryResult(final String query) {
+        return query(query, 0, "");
+    }
+
+    @Override
+    public QueryResultsIteratorWithMetadata<KeyValue> getQueryResultWithPagination(final String query,
+            final int pageSize, final String bookmark) {
+        return query(query, pageSize, bookmark);
+    }
+
+    @Override
+    public QueryResultsIterator<KeyModification> getHistoryForKey(final String key) {
+        shimCalls++;
+        List<KeyModification> modifications = new ArrayList<>(history.getOrDefault(key, Collections.emptyList()));
+        // The peer returns the most recent modification first
+        Collections.reverse(modifications);
+        return new ListIterator<>(modifications, null);
+    }
+
+    @Override
+    public byte[] getPrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public byte[] getPrivateDataHash(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public byte[] getPrivateDataValidationParameter(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public void putPrivateData(final String collection, final String key, final byte[] value) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public void setPrivateDataValidationParameter(final String collection, final String key, final byte[] value) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public void delPrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    public void purgePrivateData(final String collection, final String key) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByRange(final String collection, final String startKey,
+            final String endKey) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String compositeKey) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final CompositeKey compositeKey) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataByPartialCompositeKey(final String collection,
+            final String objectType, final String... attributes) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public QueryResultsIterator<KeyValue> getPrivateDataQueryResult(final String collection, final String query) {
+        throw new UnsupportedOperationException("Private data is not supported in memory");
+    }
+
+    @Override
+    public void setEvent(final String name, final byte[] payload) {
+        this.eventName = name;
+        this.eventPayload = payload;
+    }
+
+    @Override
+    public String getMspId() {
+        return "OrgClientMSP";
+    }
+
+    @Override
+    public ChaincodeEvent getEvent() {
+        return null;
+    }
+
+    @Override
+    public SignedProposal getSignedProposal() {
+        return null;
+    }
+
+    @Override
+    public Instant getTxTimestamp() {
+        return txTimestamp;
+    }
+
+    @Override
+    public byte[] getCreator() {
+        return SerializedIdentity.newBuilder()
+                .setMspid(MSP_ID)
+                .setIdBytes(ByteString.copyFromUtf8(creatorAdmin ? ADMIN_CERTIFICATE : CLIENT_CERTIFICATE))
+                .build()
+                .toByteArray();
+    }
+
+    @Override
+    public Map<String, byte[]> getTransient() {
+        return transientMap;
+    }
+
+    @Override
+    public byte[] getBinding() {
+        return new byte[0];
+    }
+
+    /**
+     * Builds a range iterator over the committed world state, emulating the
+     * peer bookmark semantics when a page size is given.
+     */
+    private ListIterator<KeyValue> range(final String startKey, final String endKey, final int pageSize,
+            final String bookmark) {
+        shimCalls++;
+        String from = (bookmark == null || bookmark.isEmpty()) ? startKey : bookmark;
+        List<KeyValue> page = new ArrayList<>();
+        String nextBookmark = "";
+        for (Map.Entry<String, byte[]> entry : worldState.subMap(from, true, endKey, false).entrySet()) {
+            if (pageSize > 0 && page.size() == pageSize) {
+                nextBookmark = entry.getKey();
+                break;
+            }
+            readSet.put(entry.getKey(), entry.getValue());
+            page.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        QueryResponseMetadata metadata = QueryResponseMetadata.newBuilder()
+                .setFetchedRecordsCount(page.size())
+                .setBookmark(nextBookmark)
+                .build();
+        return new ListIterator<>(page, metadata);
+    }
+
+    /**
+     * Answers a CouchDB query with the page set by
+     * {@link #answerQueries(List, String)}, recording the query. The query is
+     * not evaluated, as only CouchDB knows its exact semantics. Rich queries
+     * are not re-executed at validation, so they are not recorded in the read
+     * set.
+     */
+    private ListIterator<KeyValue> query(final String query, final int pageSize, final String bookmark) {
+        shimCalls++;
+        lastQuery = query;
+        lastQueryPageSize = pageSize;
+        lastQueryBookmark = bookmark;
+        if (queryFailure != null) {
+            throw queryFailure;
+        }
+        List<KeyValue> page = new ArrayList<>();
+        for (String key : queryAnswerKeys) {
+            page.add(new Entry(key, worldState.get(key)));
+        }
+        QueryResponseMetadata metadata = QueryResponseMetadata.newBuilder()
+                .setFetchedRecordsCount(page.size())
+                .setBookmark(queryAnswerBookmark)
+                .build();
+        return new ListIterator<>(page, metadata);
+    }
+
+    /** Committed key/value pair. */
+    private static final class Entry implements KeyValue {
+        private final String key;
+        private final byte[] value;
+
+        Entry(final String key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Committed modification of a key. */
+    private static final class Modification implements KeyModification {
+        private final String txId;
+        private final Instant timestamp;
+        private final byte[] value;
+
+        Modification(final String txId, final Instant timestamp, final byte[] value) {
+            this.txId = txId;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        @Override
+        public String getTxId() {
+            return txId;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value == null ? new byte[0] : value;
+        }
+
+        @Override
+        public String getStringValue() {
+            return new String(getValue(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public boolean isDeleted() {
+            return value == null;
+        }
+
+        @Override
+        public String toString() {
+            return txId + "@" + timestamp + (value == null ? " (deleted)" : " " + Arrays.toString(value));
+        }
+    }
+
+    /** Query iterator over a materialized list of results. */
+    private static final class ListIterator<T>
+            implements QueryResultsIterator<T>, QueryResultsIteratorWithMetadata<T> {
+        private final List<T> results;
+        private final QueryResponseMetadata metadata;
+
+        ListIterator(final List<T> results, final QueryResponseMetadata metadata) {
+            this.results = results;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return results.iterator();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release for an in-memory result list
+        }
+    }
+}
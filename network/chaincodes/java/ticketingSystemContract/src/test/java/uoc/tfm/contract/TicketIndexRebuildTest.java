@@ -0,0 +1,201 @@
+package uoc.tfm.contract;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uoc.tfm.contract.enums.TicketError;
+import uoc.tfm.contract.ledger.TicketBitmaps;
+import uoc.tfm.contract.ledger.TicketKeys;
+import uoc.tfm.contract.util.TicketFieldFilter;
+
+/**
+ * Rebuild of the indexes and the stats, driven page by page as a client does,
+ * on a small ledger of the {@link TicketLedgerFixture}.
+ */
+class TicketIndexRebuildTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int PAGE_SIZE = 15;
+
+    private TicketLedgerFixture ledger;
+    private TicketingSystemContract contract;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new TicketLedgerFixture(40);
+        contract = ledger.getContract();
+    }
+
+    @Test
+    void rebuildRestoresQueriesAndStats() throws IOException {
+        JsonNode stats = MAPPER.readTree(contract.GetTicketStats(ledger.begin(), ""));
+        String inProgress = contract.GetAllTicketsByStatus(ledger.begin(), "IN_PROGRESS");
+
+        start();
+        for (List<String> page : ticketIdPages()) {
+            rebuild(page);
+        }
+        finish();
+
+        assertEquals(stats, MAPPER.readTree(contract.GetTicketStats(ledger.begin(), "")));
+        assertEquals(inProgress, contract.GetAllTicketsByStatus(ledger.begin(), "IN_PROGRESS"));
+    }
+
+    @Test
+    void pageSubmittedTwiceIsCountedOnce() throws IOException {
+        JsonNode stats = MAPPER.readTree(contract.GetTicketStats(ledger.begin(), ""));
+
+        start();
+        List<List<String>> pages = ticketIdPages();
+        for (List<String> page : pages) {
+            rebuild(page);
+        }
+        JsonNode again = rebuild(pages.get(0));
+        finish();
+
+        assertEquals(0, again.get("NumberOfTickets").asInt());
+        assertEquals(pages.get(0).size(), again.get("NumberOfSkipped").asInt());
+        assertEquals(stats, MAPPER.readTree(contract.GetTicketStats(ledger.begin(), "")));
+    }
+
+    @Test
+    void pageOnlyReadsItsOwnTickets() throws IOException {
+        start();
+        List<String> page = ticketIdPages().get(1);
+
+        Context ctx = ledger.begin();
+        contract.RebuildTicketIndexes(ctx, MAPPER.writeValueAsString(page));
+        contract.afterTransaction(ctx, null);
+
+        String ticketsNamespace = TicketKeys.partialKey(ledger.getStub()).toString();
+        List<String> ticketsRead = new ArrayList<>();
+        for (String key : ledger.getStub().getReadSet().keySet()) {
+            if (key.startsWith(ticketsNamespace)) {
+                ticketsRead.add(TicketKeys.ticketIdOf(ledger.getStub(), key));
+            }
+        }
+        ledger.getStub().commit();
+
+        assertEquals(page.size(), ticketsRead.size());
+        assertEquals(new HashSet<>(page), new HashSet<>(ticketsRead));
+    }
+
+    @Test
+    void rebuildKeepsRemovalsModifiedSince() throws IOException {
+        String ticketId = ledger.getTicketIds().get(1);
+        Context ctx = ledger.begin();
+        String since = ctx.getStub().getTxTimestamp().toString();
+        contract.DeleteTicket(ctx, ticketId);
+        ledger.commit(ctx);
+
+        start();
+        for (List<String> page : ticketIdPages()) {
+            rebuild(page);
+        }
+        finish();
+
+        JsonNode page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), since, PAGE_SIZE, ""));
+        assertEquals(1, page.get("records").size());
+        assertEquals(ticketId, page.get("records").get(0).get("ticketId").asText());
+        assertEquals("DELETE", page.get("records").get(0).get("operation").asText());
+    }
+
+    @Test
+    void ticketsCannotChangeDuringRebuild() throws IOException {
+        start();
+
+        // The first ticket of the fixture is in progress
+        Context ctx = ledger.begin();
+        String rebuilding = TicketError.TICKET_INDEX_REBUILDING.getDescription();
+        assertEquals(rebuilding, assertThrows(ChaincodeException.class,
+                () -> contract.OpenNewTicket(ctx, "Title", "Description", 1, "user1", "HIGH", 3)).getMessage());
+        assertEquals(rebuilding, assertThrows(ChaincodeException.class,
+                () -> contract.AddCommentForTicketInProgress(ctx, ledger.getTicketIds().get(0), "Comment"))
+                .getMessage());
+
+        for (List<String> page : ticketIdPages()) {
+            rebuild(page);
+        }
+        finish();
+
+        Context after = ledger.begin();
+        contract.OpenNewTicket(after, "Title", "Description", 1, "user1", "HIGH", 3);
+        ledger.commit(after);
+    }
+
+    @Test
+    void bitmapBuilderSkipsTicketsWithOrdinal() throws IOException {
+        ledger = new TicketLedgerFixture(40, "{\"BitmapIndex\":true}");
+        contract = ledger.getContract();
+        String ticketId = ledger.getTicketIds().get(0);
+
+        // Added again with another status, it must keep its bits
+        Context ctx = ledger.begin();
+        TicketBitmaps.Builder bitmaps = new TicketBitmaps.Builder(ctx.getStub());
+        bitmaps.add(ticketId, Map.of(TicketFieldFilter.PROJECT_FIELD, "1",
+                TicketFieldFilter.STATUS_FIELD, "RESOLVED"));
+        bitmaps.write();
+        ledger.commit(ctx);
+
+        JsonNode resolved = MAPPER.readTree(contract.FilterTickets(ledger.begin(),
+                "{\"ticketStatus\":\"RESOLVED\"}", PAGE_SIZE, 0));
+        assertEquals(0, resolved.get("records").size());
+    }
+
+    private void start() throws IOException {
+        JsonNode response;
+        do {
+            Context ctx = ledger.begin();
+            response = MAPPER.readTree(contract.StartTicketIndexRebuild(ctx, 100));
+            ledger.commit(ctx);
+        } while (response.get("HasMore").asBoolean());
+    }
+
+    private JsonNode rebuild(final List<String> page) throws IOException {
+        Context ctx = ledger.begin();
+        JsonNode response = MAPPER.readTree(contract.RebuildTicketIndexes(ctx, MAPPER.writeValueAsString(page)));
+        ledger.commit(ctx);
+        return response;
+    }
+
+    private void finish() {
+        Context ctx = ledger.begin();
+        contract.FinishTicketIndexRebuild(ctx);
+        ledger.commit(ctx);
+    }
+
+    /**
+     * @return the pages of ticket IDs listed by GetTicketIdsWithPagination
+     */
+    private List<List<String>> ticketIdPages() throws IOException {
+        List<List<String>> pages = new ArrayList<>();
+        String bookmark = "";
+        do {
+            JsonNode response = MAPPER.readTree(contract.GetTicketIdsWithPagination(ledger.begin(), PAGE_SIZE,
+                    bookmark));
+            List<String> page = new ArrayList<>();
+            for (JsonNode ticketId : response.get("records")) {
+                page.add(ticketId.asText());
+            }
+            if (!page.isEmpty()) {
+                pages.add(page);
+            }
+            bookmark = response.get("bookmark").asText();
+        } while (!bookmark.isEmpty());
+        return pages;
+    }
+}
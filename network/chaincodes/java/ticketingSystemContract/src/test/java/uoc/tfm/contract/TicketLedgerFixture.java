@@ -0,0 +1,134 @@
+package uoc.tfm.contract;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hyperledger.fabric.contract.Context;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Ledger with a given number of tickets, opened and updated through the
+ * contract itself on an {@link InMemoryChaincodeStub}.
+ *
+ * Tickets are spread over {@link #PROJECTS} projects. One in every four is
+ * then moved to IN_PROGRESS and assigned to one of {@link #USERS} users, so
+ * every scan of the benchmarks and the tests returns a known fraction of the
+ * ledger.
+ */
+public final class TicketLedgerFixture {
+
+    // Number of projects and assigned users the tickets are spread over
+    public static final int PROJECTS = 10;
+    public static final int USERS = 20;
+
+    // Number of tickets opened or updated in each setup transaction
+    private static final int TICKETS_PER_TRANSACTION = 100;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final InMemoryChaincodeStub stub = new InMemoryChaincodeStub("channeldev");
+    private final TicketingSystemContract contract = new TicketingSystemContract();
+    private final List<String> ticketIds = new ArrayList<>();
+    private long transactions;
+
+    /**
+     * Creates a ledger with the given number of tickets.
+     *
+     * @param numberOfTickets the number of tickets to open
+     */
+    public TicketLedgerFixture(final int numberOfTickets) {
+        this(numberOfTickets, "{}");
+    }
+
+    /**
+     * Creates a ledger with the given configuration of the contract and number
+     * of tickets. The configuration is set before any ticket is opened.
+     *
+     * @param numberOfTickets the number of tickets to open
+     * @param configJson      the settings of the contract, as given to
+     *                        SetContractConfig
+     */
+    public TicketLedgerFixture(final int numberOfTickets, final String configJson) {
+        Context ctx = begin();
+        contract.SetContractConfig(ctx, configJson);
+        for (int i = 0; i < numberOfTickets; i++) {
+            if (i % TICKETS_PER_TRANSACTION == 0) {
+                ctx = commitAndBegin(ctx);
+            }
+            String response = contract.OpenNewTicket(ctx, "Ticket " + i, "Description of ticket " + i,
+                    i % PROJECTS, "creator" + (i % USERS), "MEDIUM", i % 8);
+            ticketIds.add(ticketIdOf(response));
+        }
+        ctx = commitAndBegin(ctx);
+
+        for (int i = 0; i < numberOfTickets; i += 4) {
+            if (i % TICKETS_PER_TRANSACTION == 0) {
+                ctx = commitAndBegin(ctx);
+            }
+            contract.UpdateTicketToInProgress(ctx, ticketIds.get(i), user(i), "Started");
+        }
+        commitAndBegin(ctx);
+    }
+
+    /**
+     * Starts a new transaction on the ledger. Its writes are discarded unless
+     * {@link #commit(Context)} is called.
+     *
+     * @return the context of the transaction
+     */
+    public Context begin() {
+        transactions++;
+        stub.beginTransaction(String.format("%064x", transactions),
+                Instant.ofEpochMilli(1_718_000_000_000L + transactions * 1000L));
+        return contract.createContext(stub);
+    }
+
+    /**
+     * Flushes the writes of a transaction and applies them to the ledger.
+     *
+     * @param ctx the context of the transaction
+     */
+    public void commit(final Context ctx) {
+        contract.afterTransaction(ctx, null);
+        stub.commit();
+    }
+
+    public TicketingSystemContract getContract() {
+        return contract;
+    }
+
+    public InMemoryChaincodeStub getStub() {
+        return stub;
+    }
+
+    public List<String> getTicketIds() {
+        return ticketIds;
+    }
+
+    /**
+     * @param i the number of a ticket
+     * @return the user the ticket is assigned to, if it is in progress
+     */
+    public static String user(final int i) {
+        return "user" + (i % USERS);
+    }
+
+    private static String ticketIdOf(final String response) {
+        try {
+            return MAPPER.readTree(response).get("ticketId").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Context commitAndBegin(final Context ctx) {
+        if (ctx != null) {
+            commit(ctx);
+        }
+        return begin();
+    }
+}
@@ -0,0 +1,129 @@
+package uoc.tfm.contract;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uoc.tfm.contract.enums.TicketError;
+import uoc.tfm.contract.ledger.TicketArchive;
+import uoc.tfm.contract.ledger.TicketKeys;
+
+/**
+ * CouchDB rich queries of QueryTickets on a small ledger of the
+ * {@link TicketLedgerFixture}. CouchDB is not simulated, so only what the
+ * contract sends to it and how it maps the answer are checked.
+ */
+class TicketQueryTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private TicketLedgerFixture ledger;
+    private InMemoryChaincodeStub stub;
+    private TicketingSystemContract contract;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new TicketLedgerFixture(4);
+        stub = ledger.getStub();
+        contract = ledger.getContract();
+    }
+
+    @Test
+    void selectorIsRestrictedToTickets() throws IOException {
+        query("{\"ticketStatus\":\"OPEN\"}", 10, "");
+
+        JsonNode conditions = MAPPER.readTree(stub.getLastQuery()).get("selector").get("$and");
+        assertEquals(MAPPER.readTree("{\"ticketStatus\":\"OPEN\"}"), conditions.get(0));
+
+        // Only the keys of the tickets namespace match the restriction
+        Pattern isTicket = Pattern.compile(conditions.get(1).get("_id").get("$regex").asText());
+        assertTrue(isTicket.matcher(TicketKeys.key(stub, ticketId(0))).find());
+        assertFalse(isTicket.matcher(TicketArchive.key(stub, ticketId(0))).find());
+        assertFalse(isTicket.matcher(ticketId(0)).find());
+    }
+
+    @Test
+    void fullQueryKeepsSortAndDropsPaginationOptions() throws IOException {
+        query("{\"selector\":{\"ticketStatus\":\"IN_PROGRESS\"},\"sort\":[{\"projectIdNum\":\"desc\"}],"
+                + "\"use_index\":\"indexProject\",\"limit\":1,\"skip\":5,\"bookmark\":\"x\",\"fields\":[\"title\"]}",
+                10, "");
+
+        JsonNode sent = MAPPER.readTree(stub.getLastQuery());
+        assertEquals(MAPPER.readTree("[{\"projectIdNum\":\"desc\"}]"), sent.get("sort"));
+        assertEquals("indexProject", sent.get("use_index").asText());
+        for (String option : List.of("limit", "skip", "bookmark", "fields")) {
+            assertFalse(sent.has(option), option);
+        }
+        assertEquals(MAPPER.readTree("{\"ticketStatus\":\"IN_PROGRESS\"}"),
+                sent.get("selector").get("$and").get(0));
+    }
+
+    @Test
+    void bookmarksArePassedThrough() throws IOException {
+        stub.answerQueries(List.of(TicketKeys.key(stub, ticketId(1)), TicketKeys.key(stub, ticketId(2))), "next");
+
+        JsonNode page = query("{}", 2, "previous");
+
+        assertEquals(2, stub.getLastQueryPageSize());
+        assertEquals("previous", stub.getLastQueryBookmark());
+        assertEquals("next", page.get("bookmark").asText());
+        assertEquals(2, page.get("fetchedCount").asInt());
+        assertEquals(List.of(ticketId(1), ticketId(2)), ticketIdsOf(page));
+    }
+
+    @Test
+    void invalidQueriesAreRejected() {
+        for (String selectorJson : List.of("[1,2]", "{\"selector\":5}", "not json")) {
+            assertInvalidQuery(selectorJson);
+        }
+        assertNull(stub.getLastQuery());
+    }
+
+    @Test
+    void queriesRejectedByCouchDbAreInvalid() {
+        stub.failQueries(new RuntimeException("unknown operator $like"));
+
+        ChaincodeException e = assertInvalidQuery("{\"ticketStatus\":{\"$like\":\"OPEN\"}}");
+        assertTrue(e.getMessage().endsWith("unknown operator $like"), e.getMessage());
+    }
+
+    private ChaincodeException assertInvalidQuery(final String selectorJson) {
+        ChaincodeException e = assertThrows(ChaincodeException.class,
+                () -> contract.QueryTickets(ledger.begin(), selectorJson, 10, ""));
+        assertEquals(TicketError.TICKET_INVALID_QUERY.getCodeAndName(),
+                new String(e.getPayload(), StandardCharsets.UTF_8));
+        return e;
+    }
+
+    private JsonNode query(final String selectorJson, final int pageSize, final String bookmark)
+            throws IOException {
+        return MAPPER.readTree(contract.QueryTickets(ledger.begin(), selectorJson, pageSize, bookmark));
+    }
+
+    private String ticketId(final int i) {
+        return ledger.getTicketIds().get(i);
+    }
+
+    private static List<String> ticketIdsOf(final JsonNode page) {
+        List<String> ticketIds = new ArrayList<>();
+        for (JsonNode ticket : page.get("records")) {
+            ticketIds.add(ticket.get("ticketId").asText());
+        }
+        return ticketIds;
+    }
+}
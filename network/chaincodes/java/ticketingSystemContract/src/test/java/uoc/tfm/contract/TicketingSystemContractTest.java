@@ -0,0 +1,253 @@
+package uoc.tfm.contract;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.shim.ChaincodeException;
+import org.hyperledger.fabric.shim.ledger.KeyValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import uoc.tfm.contract.enums.TicketError;
+import uoc.tfm.contract.ledger.TicketKeys;
+import uoc.tfm.contract.ledger.TicketStats;
+
+/**
+ * Transactions of the contract run on a small ledger of the
+ * {@link TicketLedgerFixture}.
+ */
+class TicketingSystemContractTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+
+    private TicketLedgerFixture ledger;
+    private TicketingSystemContract contract;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new TicketLedgerFixture(40);
+        contract = ledger.getContract();
+    }
+
+    @Test
+    void commentMovesTicketToModifiedSince() throws IOException {
+        // Ticket 0 is in progress and was last modified when it was started
+        String ticketId = ledger.getTicketIds().get(0);
+
+        Context ctx = ledger.begin();
+        String since = LocalDateTime.ofInstant(ctx.getStub().getTxTimestamp(), ZONE).format(DATE_TIME);
+        contract.AddCommentForTicketInProgress(ctx, ticketId, "Still on it");
+        ledger.commit(ctx);
+
+        JsonNode page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), since, 10, ""));
+        assertEquals(List.of(ticketId), ticketIdsOf(page));
+    }
+
+    @Test
+    void commentNeitherReadsNorRewritesTheTicket() {
+        String ticketId = ledger.getTicketIds().get(0);
+        InMemoryChaincodeStub stub = ledger.getStub();
+
+        Context ctx = ledger.begin();
+        contract.AddCommentForTicketInProgress(ctx, ticketId, "Still on it");
+        contract.afterTransaction(ctx, null);
+
+        // Concurrent comments on the ticket cannot conflict on its key
+        String ticketKey = TicketKeys.key(stub, ticketId);
+        assertFalse(stub.getReadSet().containsKey(ticketKey));
+        assertFalse(stub.getWriteSet().containsKey(ticketKey));
+        stub.commit();
+    }
+
+    @Test
+    void ticketCommentedAndUpdatedIsModifiedSinceOnce() throws IOException {
+        String ticketId = ledger.getTicketIds().get(0);
+
+        Context ctx = ledger.begin();
+        String since = LocalDateTime.ofInstant(ctx.getStub().getTxTimestamp(), ZONE).format(DATE_TIME);
+        contract.AddCommentForTicketInProgress(ctx, ticketId, "Still on it");
+        ledger.commit(ctx);
+        ctx = ledger.begin();
+        contract.AddCommentForTicketInProgress(ctx, ticketId, "Almost done");
+        ledger.commit(ctx);
+        ctx = ledger.begin();
+        contract.UpdateTicketToResolved(ctx, ticketId, "1.0", 3, "Done");
+        ledger.commit(ctx);
+
+        JsonNode page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), since, 10, ""));
+        assertEquals(List.of(ticketId), ticketIdsOf(page));
+    }
+
+    @Test
+    void ticketsNotCommentedAreNotModifiedSince() throws IOException {
+        Context ctx = ledger.begin();
+        String since = LocalDateTime.ofInstant(ctx.getStub().getTxTimestamp(), ZONE).format(DATE_TIME);
+        ledger.commit(ctx);
+
+        JsonNode page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), since, 10, ""));
+        assertEquals(List.of(), ticketIdsOf(page));
+    }
+
+    @Test
+    void removedTicketsAreModifiedSince() throws IOException {
+        // Tickets 0 and 4 are in progress
+        String deleted = ledger.getTicketIds().get(0);
+        String archived = ledger.getTicketIds().get(4);
+
+        Context ctx = ledger.begin();
+        String since = ctx.getStub().getTxTimestamp().toString();
+        contract.UpdateTicketToResolved(ctx, archived, "1.0", 3, "Done");
+        contract.UpdateTicketToClosed(ctx, archived, "Closed");
+        ledger.commit(ctx);
+        ctx = ledger.begin();
+        contract.DeleteTicket(ctx, deleted);
+        contract.ArchiveClosedTickets(ctx, "", 10);
+        ledger.commit(ctx);
+
+        JsonNode page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), since, 10, ""));
+        assertEquals(List.of(deleted, archived), ticketIdsOf(page));
+        assertEquals("DELETE", page.get("records").get(0).get("operation").asText());
+        assertEquals("ARCHIVE", page.get("records").get(1).get("operation").asText());
+
+        // The instant of the removal resumes the sync from there
+        String removedDate = page.get("records").get(0).get("removedDate").asText();
+        page = MAPPER.readTree(contract.GetTicketsModifiedSince(ledger.begin(), removedDate, 10, ""));
+        assertEquals(List.of(deleted, archived), ticketIdsOf(page));
+    }
+
+    @Test
+    void bulkNumbersMustBeIntegers() {
+        String ticket = "{\"title\":\"Title\",\"creator\":\"user1\",\"projectIdNum\":%s,\"initStoryPoints\":3}";
+        for (String projectIdNum : List.of("\"two\"", "2.5", "4294967296", "null")) {
+            Context ctx = ledger.begin();
+            ChaincodeException e = assertThrows(ChaincodeException.class,
+                    () -> contract.OpenNewTickets(ctx, "[" + String.format(ticket, projectIdNum) + "]"));
+            assertTrue(e.getMessage().contains("Field projectIdNum must be an integer"), e.getMessage());
+        }
+
+        String resolve = "{\"ticketId\":\"" + ledger.getTicketIds().get(0)
+                + "\",\"status\":\"RESOLVED\",\"relatedProductVersion\":\"1.0\"}";
+        Context ctx = ledger.begin();
+        ChaincodeException e = assertThrows(ChaincodeException.class,
+                () -> contract.BulkTransition(ctx, "[" + resolve + "]"));
+        assertTrue(e.getMessage().contains("Field realStoryPoints must be an integer"), e.getMessage());
+    }
+
+    @Test
+    void statsKeysOfAProjectAreBounded() throws IOException {
+        int transactions = 3 * TicketStats.SHARDS;
+        for (int i = 0; i < transactions; i++) {
+            Context ctx = ledger.begin();
+            contract.OpenNewTicket(ctx, "Title", "Description", 1, "user1", "MEDIUM", 2);
+            ledger.commit(ctx);
+        }
+
+        int statsKeys = 0;
+        for (KeyValue ignored : ledger.getStub().getStateByPartialCompositeKey(
+                TicketStats.partialKey(ledger.getStub(), "1"))) {
+            statsKeys++;
+        }
+        assertTrue(statsKeys <= TicketStats.SHARDS + 1, "stats keys: " + statsKeys);
+
+        // The fixture opened 4 tickets of project 1, with 16 story points in all
+        JsonNode stats = MAPPER.readTree(contract.GetTicketStats(ledger.begin(), "1"));
+        assertEquals(4 + transactions, stats.get("NumberOfTickets").asInt());
+        assertEquals(16 + 2 * transactions, stats.get("StoryPoints").asInt());
+    }
+
+    @Test
+    void configChangeOnlyConflictsWithItsReaders() {
+        InMemoryChaincodeStub stub = ledger.getStub();
+        Context ctx = ledger.begin();
+        contract.OpenNewTicket(ctx, "Title", "Description", 1, "user1", "MEDIUM", 2);
+        contract.afterTransaction(ctx, null);
+        Set<String> openReads = new HashSet<>(stub.getReadSet().keySet());
+        stub.commit();
+
+        assertFalse(writesAnyOf("{\"MaxBulkOperations\":50}", openReads));
+        assertTrue(writesAnyOf("{\"ChangeLog\":true}", openReads));
+    }
+
+    @Test
+    void adminTransactionsRejectClients() {
+        ledger.getStub().setCreatorAdmin(false);
+        String notAdmin = TicketError.TICKET_NOT_ADMIN.getDescription();
+
+        assertEquals(notAdmin, assertThrows(ChaincodeException.class,
+                () -> contract.SetContractConfig(ledger.begin(), "{\"ChangeLog\":true}")).getMessage());
+        assertEquals(notAdmin, assertThrows(ChaincodeException.class,
+                () -> contract.StartTicketIndexRebuild(ledger.begin(), 10)).getMessage());
+        assertEquals(notAdmin, assertThrows(ChaincodeException.class,
+                () -> contract.PurgeArchivedTickets(ledger.begin(), "", 10)).getMessage());
+
+        Context ctx = ledger.begin();
+        contract.OpenNewTicket(ctx, "Title", "Description", 1, "user1", "MEDIUM", 2);
+        ledger.commit(ctx);
+    }
+
+    @Test
+    void changeLogPagesFollowTheBookmark() throws IOException {
+        ledger = new TicketLedgerFixture(4, "{\"ChangeLog\":true}");
+        contract = ledger.getContract();
+        String ticketId = ledger.getTicketIds().get(0);
+        Context ctx = ledger.begin();
+        contract.AddCommentForTicketInProgress(ctx, ticketId, "Still on it");
+        contract.UpdateTicketToResolved(ctx, ticketId, "1.0", 3, "Done");
+        ledger.commit(ctx);
+
+        List<JsonNode> records = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String bookmark = "";
+        do {
+            JsonNode page = MAPPER.readTree(contract.GetTicketChangeLog(ledger.begin(), ticketId, 4, bookmark));
+            page.get("records").forEach(records::add);
+            pageSizes.add(page.get("records").size());
+            bookmark = page.get("bookmark").asText();
+        } while (!bookmark.isEmpty());
+
+        assertEquals(List.of(4, 2), pageSizes);
+        List<String> operations = new ArrayList<>();
+        records.forEach(record -> operations.add(record.get("operation").asText()));
+        assertEquals(List.of("OPEN", "COMMENT", "UPDATE", "COMMENT", "COMMENT", "UPDATE"), operations);
+        JsonNode status = records.get(5).get("changes").get("ticketStatus");
+        assertEquals("IN_PROGRESS", status.get("from").asText());
+        assertEquals("RESOLVED", status.get("to").asText());
+    }
+
+    /**
+     * @return whether SetContractConfig with the given settings writes any of
+     *         the given keys, discarding its writes
+     */
+    private boolean writesAnyOf(final String configJson, final Set<String> keys) {
+        Context ctx = ledger.begin();
+        contract.SetContractConfig(ctx, configJson);
+        contract.afterTransaction(ctx, null);
+        return !Collections.disjoint(ledger.getStub().getWriteSet().keySet(), keys);
+    }
+
+    private static List<String> ticketIdsOf(final JsonNode page) {
+        List<String> ticketIds = new ArrayList<>();
+        for (JsonNode ticket : page.get("records")) {
+            ticketIds.add(ticket.get("ticketId").asText());
+        }
+        return ticketIds;
+    }
+}
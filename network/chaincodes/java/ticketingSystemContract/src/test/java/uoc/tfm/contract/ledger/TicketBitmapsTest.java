@@ -0,0 +1,115 @@
+package uoc.tfm.contract.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uoc.tfm.contract.InMemoryChaincodeStub;
+import uoc.tfm.contract.util.TicketFieldFilter;
+
+/**
+ * Chunks of the bitmap index, written by its builder and read back by
+ * {@link TicketBitmaps#find}.
+ */
+class TicketBitmapsTest {
+
+    // Ordinals per chunk, and the largest chunk stored as a list of ordinals
+    private static final int CHUNK_SIZE = 4096;
+    private static final int MAX_ARRAY_CARDINALITY = 256;
+
+    // First byte of a chunk, as both encodings have the same length at the limit
+    private static final byte ARRAY_CHUNK = 0;
+    private static final byte BITMAP_CHUNK = 1;
+
+    private static final Map<String, List<String>> IN_PROGRESS = Map.of(
+            TicketFieldFilter.STATUS_FIELD, List.of("IN_PROGRESS"));
+
+    private InMemoryChaincodeStub stub;
+
+    @BeforeEach
+    void setUp() {
+        stub = new InMemoryChaincodeStub("channeldev");
+        stub.beginTransaction("tx", Instant.ofEpochMilli(1_718_000_000_000L));
+    }
+
+    @Test
+    void chunkAtTheArrayLimitIsAListOfOrdinals() {
+        // Every 16th ordinal, up to 4080, is the largest chunk stored as a list
+        IntPredicate matches = i -> i % 16 == 0;
+        build(CHUNK_SIZE, matches);
+
+        byte[] chunk = chunk("IN_PROGRESS", 0);
+        assertEquals(ARRAY_CHUNK, chunk[0]);
+        assertEquals(1 + 2 * MAX_ARRAY_CARDINALITY, chunk.length);
+        assertEquals(ticketIds(CHUNK_SIZE, matches), TicketBitmaps.find(stub, IN_PROGRESS, 0, CHUNK_SIZE));
+    }
+
+    @Test
+    void chunkOverTheArrayLimitIsABitmap() {
+        // One more ordinal, the last one of the chunk, switches it to a bitmap
+        IntPredicate matches = i -> i % 16 == 0 || i == CHUNK_SIZE - 1;
+        build(CHUNK_SIZE, matches);
+
+        byte[] chunk = chunk("IN_PROGRESS", 0);
+        assertEquals(BITMAP_CHUNK, chunk[0]);
+        assertEquals(1 + CHUNK_SIZE / 8, chunk.length);
+        assertEquals(ticketIds(CHUNK_SIZE, matches), TicketBitmaps.find(stub, IN_PROGRESS, 0, CHUNK_SIZE));
+    }
+
+    @Test
+    void findSkipsTheOffsetAcrossChunks() {
+        // 8 matches in each of the first two chunks and 1 in the third
+        IntPredicate matches = i -> i % 512 == 0;
+        build(2 * CHUNK_SIZE + 100, matches);
+        List<String> all = ticketIds(2 * CHUNK_SIZE + 100, matches);
+        assertEquals(17, all.size());
+
+        // Starting in the first chunk and ending in the second one
+        assertEquals(all.subList(6, 11), TicketBitmaps.find(stub, IN_PROGRESS, 6, 5));
+        // Skipping the whole first chunk
+        assertEquals(all.subList(8, 11), TicketBitmaps.find(stub, IN_PROGRESS, 8, 3));
+        // Skipping the first two chunks, up to the last match
+        assertEquals(all.subList(16, 17), TicketBitmaps.find(stub, IN_PROGRESS, 16, 5));
+        assertEquals(List.of(), TicketBitmaps.find(stub, IN_PROGRESS, 17, 5));
+    }
+
+    /**
+     * Adds tickets with consecutive ordinals, in progress when their ordinal
+     * matches and open otherwise, and commits them.
+     */
+    private void build(final int numberOfTickets, final IntPredicate matches) {
+        TicketBitmaps.Builder bitmaps = new TicketBitmaps.Builder(stub);
+        for (int i = 0; i < numberOfTickets; i++) {
+            bitmaps.add(ticketId(i), Map.of(TicketFieldFilter.STATUS_FIELD,
+                    matches.test(i) ? "IN_PROGRESS" : "OPEN"));
+        }
+        bitmaps.write();
+        stub.commit();
+    }
+
+    private byte[] chunk(final String status, final int chunk) {
+        return stub.getState(stub.createCompositeKey(TicketBitmaps.BITMAP_KEY, TicketFieldFilter.STATUS_FIELD,
+                status, String.valueOf(chunk)).toString());
+    }
+
+    private static List<String> ticketIds(final int numberOfTickets, final IntPredicate matches) {
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < numberOfTickets; i++) {
+            if (matches.test(i)) {
+                ticketIds.add(ticketId(i));
+            }
+        }
+        return ticketIds;
+    }
+
+    private static String ticketId(final int i) {
+        return String.format("dev_t%05d", i);
+    }
+}
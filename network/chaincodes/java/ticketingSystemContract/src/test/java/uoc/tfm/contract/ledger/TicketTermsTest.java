@@ -0,0 +1,101 @@
+package uoc.tfm.contract.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import uoc.tfm.contract.InMemoryChaincodeStub;
+
+/**
+ * Intersections of the posting lists of the text index, whose pages of 100
+ * entries are crossed by the tickets of these tests.
+ */
+class TicketTermsTest {
+
+    private static final int TICKETS = 300;
+
+    private InMemoryChaincodeStub stub;
+
+    @BeforeEach
+    void setUp() {
+        stub = new InMemoryChaincodeStub("channeldev");
+        stub.beginTransaction("tx", Instant.ofEpochMilli(1_718_000_000_000L));
+        // Every ticket has alpha, even ones beta and every 30th gamma
+        for (int i = 0; i < TICKETS; i++) {
+            String title = "alpha" + (i % 2 == 0 ? " beta" : "") + (i % 30 == 0 ? " gamma" : "");
+            TicketTerms.add(stub, ticketId(i), title, "", "");
+        }
+        stub.commit();
+    }
+
+    @Test
+    void intersectionCrossesPostingPages() {
+        assertEquals(ticketIds(2, 0), intersect("alpha beta", ""));
+        assertEquals(ticketIds(30, 0), intersect("alpha beta gamma", ""));
+    }
+
+    @Test
+    void intersectionResumesAfterTheBookmark() {
+        // After a match, a ticket that does not match and the last entry of a page of alpha
+        for (int after : List.of(98, 101, 99, 199)) {
+            assertEquals(ticketIds(2, after + 1), intersect("alpha beta", ticketId(after)), "after " + after);
+        }
+        assertEquals(ticketIds(30, 121), intersect("alpha gamma", ticketId(120)));
+        assertEquals(List.of(), intersect("alpha beta", ticketId(TICKETS - 2)));
+    }
+
+    @Test
+    void pagesOfResultsFollowEachOther() {
+        List<String> ticketIds = new ArrayList<>();
+        List<String> page = intersect("alpha beta", "", 40);
+        while (!page.isEmpty()) {
+            // Each page must start after the previous one, or the loop would not end
+            assertTrue(ticketIds.isEmpty() || page.get(0).compareTo(ticketIds.get(ticketIds.size() - 1)) > 0);
+            ticketIds.addAll(page);
+            page = intersect("alpha beta", page.get(page.size() - 1), 40);
+        }
+        assertEquals(ticketIds(2, 0), ticketIds);
+    }
+
+    private List<String> intersect(final String text, final String afterTicketId) {
+        return intersect(text, afterTicketId, Integer.MAX_VALUE);
+    }
+
+    private List<String> intersect(final String text, final String afterTicketId, final int limit) {
+        Set<String> tokens = TicketTerms.terms(text);
+        List<String> ticketIds = new ArrayList<>();
+        try (TicketTerms.Intersection intersection = TicketTerms.intersect(stub, tokens, afterTicketId)) {
+            String ticketId = intersection.next();
+            while (ticketId != null && ticketIds.size() < limit) {
+                ticketIds.add(ticketId);
+                ticketId = ticketIds.size() < limit ? intersection.next() : null;
+            }
+        }
+        return ticketIds;
+    }
+
+    /**
+     * @return the IDs of the tickets whose number is a multiple of step, from
+     *         the given one
+     */
+    private static List<String> ticketIds(final int step, final int from) {
+        List<String> ticketIds = new ArrayList<>();
+        for (int i = 0; i < TICKETS; i++) {
+            if (i % step == 0 && i >= from) {
+                ticketIds.add(ticketId(i));
+            }
+        }
+        return ticketIds;
+    }
+
+    private static String ticketId(final int i) {
+        return String.format("dev_t%03d", i);
+    }
+}
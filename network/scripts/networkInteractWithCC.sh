@@ -187,6 +187,109 @@ function invokeDeleteTicket() {
   makeInvokeCC "$ctor"
 }
 
+function invokeStartTicketIndexRebuild() {
+  local maxPerTx=${1:-100}
+  local ctor='{"Args":["StartTicketIndexRebuild","'${maxPerTx}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokeRebuildTicketIndexes() {
+  local idsJson=$1
+  if [[ -z "$idsJson" ]]; then
+    errorln "Error in invokeRebuildTicketIndexes: 'idsJson' parameter is required and cannot be empty."
+    return 1
+  fi
+  # The IDs are escaped to be a string argument
+  local ctor='{"Args":["RebuildTicketIndexes","'${idsJson//\"/\\\"}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokeFinishTicketIndexRebuild() {
+  local ctor='{"Args":["FinishTicketIndexRebuild"]}'
+  makeInvokeCC "$ctor"
+}
+
+# Rebuilds the indexes of all the tickets: the current entries are deleted in
+# chunks, then each page of ticket IDs is indexed by its own transaction
+function rebuildAllTicketIndexes() {
+  local pageSize=${1:-100}
+  invokeStartTicketIndexRebuild "$pageSize"
+  while [[ "$invoke_output" =~ HasMore[^a-z]*true ]]; do
+    invokeStartTicketIndexRebuild "$pageSize"
+  done
+  forEachTicketIdsPage invokeRebuildTicketIndexes "$pageSize"
+  invokeFinishTicketIndexRebuild
+}
+
+function invokeMigrateTicketKeys() {
+  local maxPerTx=${1:-100}
+  local ctor='{"Args":["MigrateTicketKeys","'${maxPerTx}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokeMigrateTicketComments() {
+  local idsJson=$1
+  if [[ -z "$idsJson" ]]; then
+    errorln "Error in invokeMigrateTicketComments: 'idsJson' parameter is required and cannot be empty."
+    return 1
+  fi
+  # The IDs are escaped to be a string argument
+  local ctor='{"Args":["MigrateTicketComments","'${idsJson//\"/\\\"}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+# Moves the embedded comments of all the tickets, a page of IDs per transaction
+function migrateAllTicketComments() {
+  local pageSize=${1:-100}
+  forEachTicketIdsPage invokeMigrateTicketComments "$pageSize"
+}
+
+# Calls an invoke function with each page of the IDs of the active tickets,
+# as a JSON array
+function forEachTicketIdsPage() {
+  local invokeFunction=$1
+  local pageSize=${2:-100}
+  local bookmark=""
+  local idsJson
+  while :; do
+    queryGetTicketIds "$pageSize" "$bookmark"
+    idsJson=$(jq -c '.records' <<<"$query_output")
+    [[ "$idsJson" == "[]" ]] && break
+    $invokeFunction "$idsJson"
+    # The bookmark is a composite key, kept JSON-escaped for the next query
+    bookmark=$(jq -c '.bookmark' <<<"$query_output")
+    bookmark=${bookmark:1:-1}
+    [[ -z "$bookmark" ]] && break
+  done
+}
+
+function invokeArchiveClosedTickets() {
+  local olderThan=$1
+  local maxPerTx=${2:-100}
+  local ctor='{"Args":["ArchiveClosedTickets","'${olderThan}'","'${maxPerTx}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokePurgeArchivedTickets() {
+  local olderThan=$1
+  local maxPerTx=${2:-100}
+  local ctor='{"Args":["PurgeArchivedTickets","'${olderThan}'","'${maxPerTx}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokeCompactTicketStats() {
+  local maxPerTx=${1:-100}
+  local ctor='{"Args":["CompactTicketStats","'${maxPerTx}'"]}'
+  makeInvokeCC "$ctor"
+}
+
+function invokeSetContractConfig() {
+  local configJson=$1
+  # The settings are escaped to be a string argument
+  local ctor='{"Args":["SetContractConfig","'${configJson//\"/\\\"}'"]}'
+  makeInvokeCC "$ctor"
+}
+
 ########################################################################
 # QUERY CALL FUNCTIONS
 ########################################################################
@@ -264,11 +367,141 @@ function queryGetAllTicketsByAssigned() {
 
 function queryGetTicketHistory() {
   local ticketId=$1
+  local limit=${2:-0}
+  local afterTxId=$3
+  local from=$4
+  local to=$5
   if [[ -z "$ticketId" ]]; then
     errorln "Error in GetTicketHistory: 'ticketId' parameter is required and cannot be empty."
     return 1
   fi
-  local ctor='{"Args":["GetTicketHistory","'${ticketId}'"]}'
+  local ctor='{"Args":["GetTicketHistory","'${ticketId}'","'${limit}'","'${afterTxId}'","'${from}'","'${to}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketComments() {
+  local ticketId=$1
+  local pageSize=${2:-10}
+  local bookmark=$3
+  if [[ -z "$ticketId" ]]; then
+    errorln "Error in GetTicketComments: 'ticketId' parameter is required and cannot be empty."
+    return 1
+  fi
+  local ctor='{"Args":["GetTicketComments","'${ticketId}'","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryReadTickets() {
+  if [[ $# -eq 0 ]]; then
+    errorln "Error in queryReadTickets: at least one 'ticketId' parameter is required."
+    return 1
+  fi
+  # JSON array of the IDs, escaped to be a string argument
+  local idsJson
+  idsJson=$(printf '\\"%s\\",' "$@")
+  local ctor='{"Args":["ReadTickets","['${idsJson%,}']"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketChangeLog() {
+  local ticketId=$1
+  local pageSize=${2:-10}
+  local bookmark=$3
+  if [[ -z "$ticketId" ]]; then
+    errorln "Error in GetTicketChangeLog: 'ticketId' parameter is required and cannot be empty."
+    return 1
+  fi
+  local ctor='{"Args":["GetTicketChangeLog","'${ticketId}'","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryReadArchivedTicket() {
+  local ticketId=$1
+  if [[ -z "$ticketId" ]]; then
+    errorln "Error in ReadArchivedTicket: 'ticketId' parameter is required and cannot be empty."
+    return 1
+  fi
+  local ctor='{"Args":["ReadArchivedTicket","'${ticketId}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketIds() {
+  local pageSize=${1:-100}
+  local bookmark=$2
+  local ctor='{"Args":["GetTicketIdsWithPagination","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetArchivedTickets() {
+  local pageSize=${1:-10}
+  local bookmark=$2
+  local ctor='{"Args":["GetArchivedTicketsWithPagination","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function querySearchTickets() {
+  local query=$1
+  local pageSize=${2:-10}
+  local bookmark=$3
+  local ctor='{"Args":["SearchTickets","'${query}'","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketsModifiedSince() {
+  local since=$1
+  local pageSize=${2:-10}
+  local bookmark=$3
+  local ctor='{"Args":["GetTicketsModifiedSince","'${since}'","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketsCreatedBetween() {
+  local from=$1
+  local to=$2
+  local pageSize=${3:-10}
+  local bookmark=$4
+  local ctor='{"Args":["GetTicketsCreatedBetween","'${from}'","'${to}'","'${pageSize}'","'${bookmark}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTopTickets() {
+  local projectId=$1
+  local status=${2:-OPEN}
+  local k=${3:-20}
+  if [[ -z "$projectId" ]]; then
+    errorln "Error in GetTopTickets: 'projectId' parameter is required and cannot be empty."
+    return 1
+  fi
+  local ctor='{"Args":["GetTopTickets","'${projectId}'","'${status}'","'${k}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryFilterTickets() {
+  local criteriaJson=$1
+  local pageSize=${2:-10}
+  local offset=${3:-0}
+  if [[ -z "$criteriaJson" ]]; then
+    errorln "Error in FilterTickets: 'criteriaJson' parameter is required and cannot be empty."
+    return 1
+  fi
+  # The criteria are escaped to be a string argument
+  local ctor='{"Args":["FilterTickets","'${criteriaJson//\"/\\\"}'","'${pageSize}'","'${offset}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetTicketStats() {
+  local projectId=$1
+  local ctor='{"Args":["GetTicketStats","'${projectId}'"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetContractConfig() {
+  local ctor='{"Args":["GetContractConfig"]}'
+  makeQueryCC "$ctor"
+}
+
+function queryGetContractMetrics() {
+  local ctor='{"Args":["GetContractMetrics"]}'
   makeQueryCC "$ctor"
 }
 
@@ -276,6 +509,8 @@ function test_InitLedger_GetAllTickets() {
   invokeInitLedger
   sleep 2
   queryGetAllTickets
+  queryGetTicketStats
+  queryGetTopTickets 1
 }
 
 function test_Open_Update_History_Delete_NewTicket() {
@@ -292,10 +527,13 @@ function test_Open_Update_History_Delete_NewTicket() {
   queryGetAllTicketsByStatus "CLOSED"
   queryGetAllTicketsByAssigned "Alvaro"
   queryReadTicket "$TICKET_ID"
+  queryGetTicketComments "$TICKET_ID"
   queryGetTicketHistory "$TICKET_ID"
+  queryGetTicketChangeLog "$TICKET_ID"
   invokeDeleteTicket "$TICKET_ID"
   sleep 2
   queryGetAllTicketsByProject 99
+  queryGetTicketStats 99
 }
 
 function interact() {